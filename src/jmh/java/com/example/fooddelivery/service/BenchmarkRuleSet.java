@@ -0,0 +1,184 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.BaseFee;
+import com.example.fooddelivery.entity.ExtraFee;
+import com.example.fooddelivery.entity.WeatherData;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates fee rules and weather observations of a given size for the delivery fee benchmarks.
+ * <p>
+ * Every city has a base fee for every vehicle type. The first vehicle type (a car) has no extra fees, like in the
+ * production rules, while every other vehicle type has air temperature bands over -40..40 °C, wind speed bands over
+ * 0..20 m/s (faster winds forbid it) and a fee per weather phenomenon, with heavy snowfall forbidding it.
+ */
+public final class BenchmarkRuleSet {
+
+    static final LocalDateTime LATEST_OBSERVATION = LocalDateTime.of(2025, 1, 15, 12, 15);
+
+    private static final int OBSERVATION_HOURS = 24;
+
+    private static final List<String> KNOWN_VEHICLE_TYPES = List.of("Car", "Scooter", "Bike");
+
+    private static final List<String> KNOWN_PHENOMENA = List.of("Heavy snowfall", "Light snow shower", "Glaze",
+            "Light rain");
+
+    private final List<String> cities;
+    private final List<String> vehicleTypes;
+    private final List<BaseFee> baseFees;
+    private final List<ExtraFee> extraFees;
+    private final List<WeatherData> observations;
+
+    private BenchmarkRuleSet(List<String> cities, List<String> vehicleTypes, List<BaseFee> baseFees,
+                             List<ExtraFee> extraFees, List<WeatherData> observations) {
+        this.cities = cities;
+        this.vehicleTypes = vehicleTypes;
+        this.baseFees = baseFees;
+        this.extraFees = extraFees;
+        this.observations = observations;
+    }
+
+    /**
+     * Generates a rule set and 24 hourly observations per city, the newest of which matches the weather state.
+     *
+     * @param size    The dimensions of the rule set.
+     * @param weather The current weather in every city.
+     * @return The generated rule set.
+     */
+    static BenchmarkRuleSet generate(RuleSetSize size, WeatherState weather) {
+        List<String> cities = new ArrayList<>();
+        for (int i = 0; i < size.cities; i++) {
+            cities.add(String.format("City%03d", i));
+        }
+
+        List<String> vehicleTypes = new ArrayList<>();
+        for (int i = 0; i < size.vehicleTypes; i++) {
+            vehicleTypes.add(i < KNOWN_VEHICLE_TYPES.size() ? KNOWN_VEHICLE_TYPES.get(i) : "Vehicle" + i);
+        }
+
+        List<BaseFee> baseFees = new ArrayList<>();
+        for (int c = 0; c < cities.size(); c++) {
+            for (int v = 0; v < vehicleTypes.size(); v++) {
+                baseFees.add(new BaseFee(cities.get(c), vehicleTypes.get(v), 2.0 + (c % 5) * 0.5 + v * 0.25));
+            }
+        }
+
+        List<String> phenomena = new ArrayList<>(KNOWN_PHENOMENA);
+        for (int i = phenomena.size(); i < size.phenomena; i++) {
+            phenomena.add("Phenomenon " + i);
+        }
+
+        List<ExtraFee> extraFees = new ArrayList<>();
+        for (String vehicleType : vehicleTypes.subList(1, vehicleTypes.size())) {
+            addBands(extraFees, vehicleType, "air_temperature", -40.0, 40.0, size.temperatureBands);
+            addBands(extraFees, vehicleType, "wind_speed", 0.0, 20.0, size.windSpeedBands);
+            for (int i = 0; i < phenomena.size(); i++) {
+                extraFees.add(new ExtraFee("weather_phenomenon", vehicleType, phenomena.get(i),
+                        i == 0 ? null : 0.5 + (i % 3) * 0.5, i == 0));
+            }
+        }
+
+        List<WeatherData> observations = new ArrayList<>();
+        for (int c = 0; c < cities.size(); c++) {
+            for (int hour = OBSERVATION_HOURS - 1; hour >= 0; hour--) {
+                WeatherData observation = hour == 0
+                        ? new WeatherData(stationName(cities.get(c)), 26000 + c, weather.airTemperature,
+                        weather.windSpeed, weather.weatherPhenomenon)
+                        : new WeatherData(stationName(cities.get(c)), 26000 + c, weather.airTemperature + hour % 7,
+                        Math.max(0.0, weather.windSpeed - hour % 5), phenomena.get(hour % phenomena.size()));
+                observation.setTimestamp(LATEST_OBSERVATION.minusHours(hour));
+                observations.add(observation);
+            }
+        }
+
+        return new BenchmarkRuleSet(cities, vehicleTypes, baseFees, extraFees, observations);
+    }
+
+    private static void addBands(List<ExtraFee> extraFees, String vehicleType, String conditionType, double from,
+                                 double to, int bands) {
+        double width = (to - from) / bands;
+        for (int i = 0; i < bands; i++) {
+            extraFees.add(new ExtraFee(vehicleType, conditionType, (bands - i) * 0.1, from + i * width,
+                    from + (i + 1) * width));
+        }
+    }
+
+    /**
+     * @return The name of the weather station serving a city, which contains the city name.
+     */
+    static String stationName(String city) {
+        return city + "-Station";
+    }
+
+    List<String> cities() {
+        return cities;
+    }
+
+    List<String> vehicleTypes() {
+        return vehicleTypes;
+    }
+
+    List<BaseFee> baseFees() {
+        return baseFees;
+    }
+
+    List<ExtraFee> extraFees() {
+        return extraFees;
+    }
+
+    List<WeatherData> observations() {
+        return observations;
+    }
+
+    /**
+     * Dimensions of a generated rule set.
+     */
+    public enum RuleSetSize {
+        /**
+         * About the size of the production rules.
+         */
+        SMALL(3, 3, 3, 1, 4),
+
+        /**
+         * A nationwide rule set with many cities, vehicle types and finely graded bands.
+         */
+        LARGE(60, 8, 24, 12, 40);
+
+        final int cities;
+        final int vehicleTypes;
+        final int temperatureBands;
+        final int windSpeedBands;
+        final int phenomena;
+
+        RuleSetSize(int cities, int vehicleTypes, int temperatureBands, int windSpeedBands, int phenomena) {
+            this.cities = cities;
+            this.vehicleTypes = vehicleTypes;
+            this.temperatureBands = temperatureBands;
+            this.windSpeedBands = windSpeedBands;
+            this.phenomena = phenomena;
+        }
+    }
+
+    /**
+     * Current weather in every city. The colder and windier it gets, the more rules apply and the more vehicle
+     * types are forbidden.
+     */
+    public enum WeatherState {
+        MILD(12.0, 3.0, "Clear"),
+        COLD_WINDY(-15.0, 18.0, "Light snow shower"),
+        SNOWSTORM(-8.0, 25.0, "Heavy snowfall");
+
+        final double airTemperature;
+        final double windSpeed;
+        final String weatherPhenomenon;
+
+        WeatherState(double airTemperature, double windSpeed, String weatherPhenomenon) {
+            this.airTemperature = airTemperature;
+            this.windSpeed = windSpeed;
+            this.weatherPhenomenon = weatherPhenomenon;
+        }
+    }
+}
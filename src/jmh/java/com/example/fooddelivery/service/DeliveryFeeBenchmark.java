@@ -0,0 +1,163 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.FoodDeliveryApplication;
+import com.example.fooddelivery.dto.DeliveryFeeRequest;
+import com.example.fooddelivery.exception.InvalidVehicleException;
+import com.example.fooddelivery.repository.BaseFeeRepository;
+import com.example.fooddelivery.repository.ExtraFeeRepository;
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import com.example.fooddelivery.service.BenchmarkRuleSet.RuleSetSize;
+import com.example.fooddelivery.service.BenchmarkRuleSet.WeatherState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+
+/**
+ * Measures the delivery fee engine across rule set sizes, weather states and rule sources.
+ * <p>
+ * The {@code IN_MEMORY} source serves rules and weather from lists; {@code REPOSITORY} starts the application
+ * without a web server against an in-memory H2 database, so matrix rebuilds and historical quotes pay for real
+ * queries. Run with {@code ./gradlew jmh}; throughput, average time and, through the GC profiler, the allocation
+ * rate are reported per benchmark.
+ */
+@State(Scope.Benchmark)
+public class DeliveryFeeBenchmark {
+
+    @Param({"SMALL", "LARGE"})
+    public RuleSetSize ruleSetSize;
+
+    @Param({"MILD", "COLD_WINDY", "SNOWSTORM"})
+    public WeatherState weather;
+
+    @Param({"IN_MEMORY", "REPOSITORY"})
+    public RuleSource ruleSource;
+
+    private ConfigurableApplicationContext context;
+    private DeliveryFeeService deliveryFeeService;
+    private DeliveryFeeRequest[] requests;
+    private DeliveryFeeRequest[] historicalRequests;
+    private String[] vehicleTypes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkRuleSet ruleSet = BenchmarkRuleSet.generate(ruleSetSize, weather);
+
+        if (ruleSource == RuleSource.REPOSITORY) {
+            context = new SpringApplicationBuilder(FoodDeliveryApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .logStartupInfo(false)
+                    .properties(
+                            "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                            "spring.jpa.hibernate.ddl-auto=create-drop",
+                            "spring.h2.console.enabled=false",
+                            "weather.import.enabled=false",
+                            "logging.level.root=WARN")
+                    .run();
+            context.getBean(BaseFeeRepository.class).saveAll(ruleSet.baseFees());
+            context.getBean(ExtraFeeRepository.class).saveAll(ruleSet.extraFees());
+            context.getBean(WeatherDataRepository.class).saveAll(ruleSet.observations());
+            context.getBean(LatestWeatherCache.class).refresh();
+            context.getBean(FeeRuleCache.class).refresh();
+            deliveryFeeService = context.getBean(DeliveryFeeService.class);
+        } else {
+            deliveryFeeService = DeliveryFeeFixture.inMemory(ruleSet.baseFees(), ruleSet.extraFees(),
+                    ruleSet.observations()).getDeliveryFeeService();
+        }
+        deliveryFeeService.rebuildFeeMatrix();
+
+        int pairs = ruleSet.cities().size() * ruleSet.vehicleTypes().size();
+        requests = new DeliveryFeeRequest[pairs];
+        historicalRequests = new DeliveryFeeRequest[pairs];
+        for (int i = 0; i < pairs; i++) {
+            String city = ruleSet.cities().get(i / ruleSet.vehicleTypes().size());
+            String vehicleType = ruleSet.vehicleTypes().get(i % ruleSet.vehicleTypes().size());
+            requests[i] = new DeliveryFeeRequest(city, vehicleType);
+            historicalRequests[i] = new DeliveryFeeRequest(city, vehicleType,
+                    BenchmarkRuleSet.LATEST_OBSERVATION.minusHours(1 + i % 20).minusMinutes(30));
+        }
+        vehicleTypes = ruleSet.vehicleTypes().toArray(new String[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public FeeQuoteResult calculateDeliveryFee(Cursor cursor) {
+        return deliveryFeeService.calculateDeliveryFee(requests[cursor.next(requests.length)]);
+    }
+
+    @Benchmark
+    public FeeQuoteResult calculateHistoricalDeliveryFee(Cursor cursor) {
+        return deliveryFeeService.calculateDeliveryFee(historicalRequests[cursor.next(historicalRequests.length)]);
+    }
+
+    @Benchmark
+    public Double getAirTemperatureFee(Cursor cursor) {
+        return deliveryFeeService.getAirTemperatureFee(vehicleTypes[cursor.next(vehicleTypes.length)],
+                weather.airTemperature);
+    }
+
+    /**
+     * Winds above the highest band forbid every vehicle type with wind speed rules, so during a snowstorm this
+     * mostly measures the exception path.
+     */
+    @Benchmark
+    public Double getWindSpeedFee(Cursor cursor) {
+        try {
+            return deliveryFeeService.getWindSpeedFee(vehicleTypes[cursor.next(vehicleTypes.length)],
+                    weather.windSpeed);
+        } catch (InvalidVehicleException ex) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Double getWeatherPhenomenonFee(Cursor cursor) {
+        try {
+            return deliveryFeeService.getWeatherPhenomenonFee(vehicleTypes[cursor.next(vehicleTypes.length)],
+                    weather.weatherPhenomenon);
+        } catch (InvalidVehicleException ex) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public FeeMatrix rebuildFeeMatrix() {
+        deliveryFeeService.rebuildFeeMatrix();
+        return deliveryFeeService.getFeeMatrix();
+    }
+
+    /**
+     * Where the fee rules and weather observations are read from.
+     */
+    public enum RuleSource {
+        IN_MEMORY,
+        REPOSITORY
+    }
+
+    /**
+     * Per-thread position in the request arrays, so every invocation quotes a different pair.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int position;
+
+        int next(int length) {
+            position = position + 1 < length ? position + 1 : 0;
+            return position;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.dto.DeliveryFeeRequest;
+import com.example.fooddelivery.dto.DeliveryFeeResponse;
+import com.example.fooddelivery.entity.BaseFee;
+import com.example.fooddelivery.entity.ExtraFee;
+import com.example.fooddelivery.entity.WeatherData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Compares the bytes allocated per quote by the interned fee model against the per-quote rule scan it replaced. The
+ * {@code gc} profiler reports them as {@code gc.alloc.rate.norm}; the fee matrix lookup alone should not allocate.
+ */
+@State(Scope.Benchmark)
+public class FeeQuoteAllocationBenchmark {
+
+    private static final List<BaseFee> BASE_FEES = List.of(
+            new BaseFee("Tallinn", "Car", 4.0),
+            new BaseFee("Tallinn", "Scooter", 3.5),
+            new BaseFee("Tallinn", "Bike", 3.0)
+    );
+
+    private static final List<ExtraFee> EXTRA_FEES = List.of(
+            new ExtraFee("Scooter", "air_temperature", 1.0, -100.0, -10.0),
+            new ExtraFee("Scooter", "air_temperature", 0.5, -10.0, 0.0),
+            new ExtraFee("Bike", "air_temperature", 1.0, -100.0, -10.0),
+            new ExtraFee("Bike", "air_temperature", 0.5, -10.0, 0.0),
+            new ExtraFee("Bike", "wind_speed", 0.5, 10.0, 20.0),
+            new ExtraFee("weather_phenomenon", "Scooter", "snow", 1.0, false),
+            new ExtraFee("weather_phenomenon", "Scooter", "rain", 0.5, false),
+            new ExtraFee("weather_phenomenon", "Bike", "snow", 1.0, false),
+            new ExtraFee("weather_phenomenon", "Bike", "rain", 0.5, false)
+    );
+
+    private static final WeatherData WEATHER = new WeatherData("Tallinn-Harku", 26038, -5.0, 5.0, " Snow ");
+
+    private final DeliveryFeeRequest request = new DeliveryFeeRequest("Tallinn", "Scooter");
+
+    private DeliveryFeeService deliveryFeeService;
+    private FeeMatrix feeMatrix;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        deliveryFeeService = DeliveryFeeFixture.inMemory(BASE_FEES, EXTRA_FEES, List.of(WEATHER))
+                .getDeliveryFeeService();
+        feeMatrix = deliveryFeeService.getFeeMatrix();
+    }
+
+    @Benchmark
+    public Object legacyQuote() {
+        return legacyQuote(request);
+    }
+
+    @Benchmark
+    public Object internedQuote() {
+        return deliveryFeeService.calculateDeliveryFee(request);
+    }
+
+    @Benchmark
+    public Object matrixLookup() {
+        int cell = feeMatrix.cellOf(request.getCity(), request.getVehicleType());
+        return feeMatrix.statusOf(cell) == null ? null : feeMatrix.messageOf(cell);
+    }
+
+    /**
+     * The quote path as it was before fee rules were interned: rules are selected by comparing condition type and
+     * vehicle type strings on every quote, fees are boxed and phenomena are trimmed on every comparison.
+     */
+    private static DeliveryFeeResponse legacyQuote(DeliveryFeeRequest request) {
+        String vehicleType = request.getVehicleType();
+
+        Double baseFee = BASE_FEES.stream()
+                .filter(fee -> fee.getCity().equals(request.getCity()) && fee.getVehicleType().equals(vehicleType))
+                .findFirst()
+                .map(BaseFee::getFee)
+                .orElseThrow();
+
+        boolean forbidden = legacyRules("weather_phenomenon", vehicleType).stream()
+                .anyMatch(fee -> fee.getIsForbidden()
+                        && fee.getWeatherPhenomenon().equalsIgnoreCase(WEATHER.getWeatherPhenomenon()));
+        if (forbidden) {
+            return null;
+        }
+
+        Double airTemperatureFee = 0.0;
+        for (ExtraFee fee : legacyRules("air_temperature", vehicleType)) {
+            if (WEATHER.getAirTemperature() > fee.getMinValue() && WEATHER.getAirTemperature() < fee.getMaxValue()) {
+                airTemperatureFee = fee.getFee();
+                break;
+            }
+        }
+
+        Double windSpeedFee = 0.0;
+        for (ExtraFee fee : legacyRules("wind_speed", vehicleType)) {
+            if (WEATHER.getWindSpeed() > fee.getMinValue() && WEATHER.getWindSpeed() < fee.getMaxValue()) {
+                windSpeedFee = fee.getFee();
+                break;
+            }
+        }
+
+        Double weatherPhenomenonFee = 0.0;
+        for (ExtraFee fee : legacyRules("weather_phenomenon", vehicleType)) {
+            if (fee.getWeatherPhenomenon().trim().equalsIgnoreCase(WEATHER.getWeatherPhenomenon().trim())) {
+                weatherPhenomenonFee = fee.getFee();
+                break;
+            }
+        }
+
+        Double totalFee = baseFee + airTemperatureFee + windSpeedFee + weatherPhenomenonFee;
+
+        return new DeliveryFeeResponse(String.format("Total delivery fee: %.2f", totalFee), totalFee);
+    }
+
+    /**
+     * Stands in for the per-quote {@code findByConditionTypeAndVehicleType} query, which returned a fresh list.
+     */
+    private static List<ExtraFee> legacyRules(String conditionType, String vehicleType) {
+        return EXTRA_FEES.stream()
+                .filter(fee -> fee.getConditionType().equals(conditionType) && fee.getVehicleType().equals(vehicleType))
+                .toList();
+    }
+}
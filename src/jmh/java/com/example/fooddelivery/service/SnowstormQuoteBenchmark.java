@@ -0,0 +1,104 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.dto.DeliveryFeeRequest;
+import com.example.fooddelivery.dto.ErrorResponse;
+import com.example.fooddelivery.dto.FeeQuoteStatus;
+import com.example.fooddelivery.entity.BaseFee;
+import com.example.fooddelivery.entity.ExtraFee;
+import com.example.fooddelivery.entity.WeatherData;
+import com.example.fooddelivery.exception.BaseFeeNotFoundException;
+import com.example.fooddelivery.exception.DeliveryFeeCalculationException;
+import com.example.fooddelivery.exception.InvalidVehicleException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures quotes while a snowstorm makes most of them fail, comparing the result-based handling of forbidden and
+ * unknown quotes against the exception-based handling it replaced. Nine of the twelve quoted pairs fail: scooters and
+ * bikes are forbidden in every city, and a fourth city has no rules at all.
+ */
+@State(Scope.Benchmark)
+public class SnowstormQuoteBenchmark {
+
+    private static final List<String> CITIES = List.of("Tallinn", "Tartu", "Pärnu", "Narva");
+    private static final List<String> VEHICLE_TYPES = List.of("Car", "Scooter", "Bike");
+
+    private FeeQuoteEncoder feeQuoteEncoder;
+    private DeliveryFeeService deliveryFeeService;
+    private DeliveryFeeRequest[] requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<BaseFee> baseFees = new ArrayList<>();
+        for (String city : CITIES.subList(0, 3)) {
+            baseFees.add(new BaseFee(city, "Car", 4.0));
+            baseFees.add(new BaseFee(city, "Scooter", 3.5));
+            baseFees.add(new BaseFee(city, "Bike", 3.0));
+        }
+        List<ExtraFee> extraFees = List.of(
+                new ExtraFee("Scooter", "air_temperature", 1.0, -100.0, -10.0),
+                new ExtraFee("Bike", "air_temperature", 1.0, -100.0, -10.0),
+                new ExtraFee("Bike", "wind_speed", 0.5, 10.0, 20.0),
+                new ExtraFee("weather_phenomenon", "Scooter", "Heavy snowfall", true),
+                new ExtraFee("weather_phenomenon", "Bike", "Heavy snowfall", true)
+        );
+        List<WeatherData> snowstorm = new ArrayList<>();
+        for (String city : CITIES) {
+            WeatherData observation = new WeatherData(city, 0, -15.0, 24.0, "Heavy snowfall");
+            observation.setTimestamp(LocalDateTime.of(2025, 1, 15, 12, 0));
+            snowstorm.add(observation);
+        }
+
+        DeliveryFeeFixture fixture = DeliveryFeeFixture.inMemory(baseFees, extraFees, snowstorm);
+        feeQuoteEncoder = fixture.getFeeQuoteEncoder();
+        deliveryFeeService = fixture.getDeliveryFeeService();
+
+        requests = new DeliveryFeeRequest[CITIES.size() * VEHICLE_TYPES.size()];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = new DeliveryFeeRequest(CITIES.get(i / VEHICLE_TYPES.size()),
+                    VEHICLE_TYPES.get(i % VEHICLE_TYPES.size()));
+        }
+    }
+
+    /**
+     * Mirrors the controller: expected failures are answered with the pre-encoded calculation failure body.
+     */
+    @Benchmark
+    public Object quoteWithResults(DeliveryFeeBenchmark.Cursor cursor) {
+        FeeQuoteResult result = deliveryFeeService.calculateDeliveryFee(requests[cursor.next(requests.length)]);
+        return result.isOk() ? result.response() : feeQuoteEncoder.calculationFailure();
+    }
+
+    /**
+     * Mirrors the previous flow: the service threw, the controller wrapped the exception and the exception handler
+     * turned it into an error body.
+     */
+    @Benchmark
+    public Object quoteWithExceptions(DeliveryFeeBenchmark.Cursor cursor) {
+        DeliveryFeeRequest request = requests[cursor.next(requests.length)];
+        try {
+            try {
+                FeeQuoteResult result = deliveryFeeService.calculateDeliveryFee(request);
+                if (result.status() == FeeQuoteStatus.FORBIDDEN) {
+                    throw new InvalidVehicleException(result.statusMessage());
+                }
+                if (result.status() == FeeQuoteStatus.NO_BASE_FEE) {
+                    throw new BaseFeeNotFoundException(result.statusMessage());
+                }
+                return result.response();
+            } catch (Exception ex) {
+                throw new DeliveryFeeCalculationException(FeeQuoteEncoder.CALCULATION_FAILED_MESSAGE);
+            }
+        } catch (DeliveryFeeCalculationException ex) {
+            return new ErrorResponse(LocalDateTime.now(), ex.getMessage(), FeeQuoteEncoder.CALCULATION_FAILED_MESSAGE,
+                    500);
+        }
+    }
+}
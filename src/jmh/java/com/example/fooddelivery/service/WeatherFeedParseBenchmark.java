@@ -0,0 +1,122 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.WeatherData;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Measures parsing one observations feed with the streaming {@link ObservationsFeedParser} against the Jsoup
+ * document parsing it replaced. Both read the feed from bytes, so decoding is included, and keep three target
+ * stations out of {@link #stations}. Allocations per import are reported by the GC profiler as
+ * {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+public class WeatherFeedParseBenchmark {
+
+    private static final List<String> TARGET_STATIONS = List.of("Tallinn-Harku", "Tartu-Tõravere", "Pärnu");
+
+    /**
+     * Stations in the feed; the national feed lists about a hundred.
+     */
+    @Param({"100", "400"})
+    public int stations;
+
+    private byte[] feed;
+    private LocalDateTime timestamp;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder xml = new StringBuilder(stations * 700)
+                .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<observations timestamp=\"1736942400\">\n");
+        for (int i = 0; i < stations; i++) {
+            String name = i < TARGET_STATIONS.size() ? TARGET_STATIONS.get(i) : "Station " + i;
+            appendStation(xml, name, 26000 + i, (i % 30) - 10.0, (i % 15) * 1.0, i % 4 == 0 ? "Light rain" : "");
+        }
+        feed = xml.append("</observations>\n").toString().getBytes(StandardCharsets.UTF_8);
+        timestamp = LocalDateTime.of(2025, 1, 15, 12, 0);
+    }
+
+    private static void appendStation(StringBuilder xml, String name, int wmoCode, double airTemperature,
+                                      double windSpeed, String phenomenon) {
+        xml.append("  <station>\n")
+                .append("    <name>").append(name).append("</name>\n")
+                .append("    <wmocode>").append(wmoCode).append("</wmocode>\n")
+                .append("    <longitude>24.602891666624284</longitude>\n")
+                .append("    <latitude>59.398122222355134</latitude>\n")
+                .append("    <phenomenon>").append(phenomenon).append("</phenomenon>\n")
+                .append("    <visibility>20.0</visibility>\n")
+                .append("    <precipitations>0</precipitations>\n")
+                .append("    <airpressure>1012.4</airpressure>\n")
+                .append("    <relativehumidity>85</relativehumidity>\n")
+                .append("    <airtemperature>").append(airTemperature).append("</airtemperature>\n")
+                .append("    <winddirection>210</winddirection>\n")
+                .append("    <windspeed>").append(windSpeed).append("</windspeed>\n")
+                .append("    <windspeedmax>").append(windSpeed + 3.0).append("</windspeedmax>\n")
+                .append("    <waterlevel></waterlevel>\n")
+                .append("    <waterlevel_eh2000></waterlevel_eh2000>\n")
+                .append("    <watertemperature></watertemperature>\n")
+                .append("    <uvindex>0.1</uvindex>\n")
+                .append("  </station>\n");
+    }
+
+    @Benchmark
+    public List<WeatherData> stax() throws XMLStreamException {
+        return ObservationsFeedParser.parse(new ByteArrayInputStream(feed), TARGET_STATIONS, timestamp)
+                .observations();
+    }
+
+    /**
+     * The replaced import: a full document of the feed, then CSS lookups per field of every target station.
+     */
+    @Benchmark
+    public List<WeatherData> jsoup() throws IOException {
+        Document document = Jsoup.parse(new ByteArrayInputStream(feed), StandardCharsets.UTF_8.name(), "");
+        return document.select("station").stream()
+                .filter(station -> TARGET_STATIONS.contains(getTextOrNull(station, "name")))
+                .map(this::parseWeatherData)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private WeatherData parseWeatherData(Element station) {
+        String wmoCode = getTextOrNull(station, "wmocode");
+        if (wmoCode == null) {
+            return null;
+        }
+
+        WeatherData weatherData = new WeatherData();
+        weatherData.setStationName(getTextOrNull(station, "name"));
+        weatherData.setWmoCode(Integer.parseInt(wmoCode));
+        weatherData.setAirTemperature(getDoubleOrNull(station, "airtemperature"));
+        weatherData.setWindSpeed(getDoubleOrNull(station, "windspeed"));
+        weatherData.setWeatherPhenomenon(getTextOrNull(station, "phenomenon"));
+        weatherData.setTimestamp(timestamp);
+        return weatherData;
+    }
+
+    private static String getTextOrNull(Element element, String tag) {
+        Element selected = element.selectFirst(tag);
+        return (selected != null && !selected.text().isBlank()) ? selected.text().trim() : null;
+    }
+
+    private static Double getDoubleOrNull(Element element, String tag) {
+        String textValue = getTextOrNull(element, tag);
+        return textValue == null ? null : Double.parseDouble(textValue);
+    }
+}
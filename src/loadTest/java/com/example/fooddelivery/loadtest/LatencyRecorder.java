@@ -0,0 +1,79 @@
+package com.example.fooddelivery.loadtest;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the latency and outcome of every measured request of one operation.
+ * <p>
+ * Latencies are kept in full rather than in buckets, since a run is bounded by the arrival rate and duration,
+ * and percentiles are computed exactly once the run is over. Each latency runs from the time the request was
+ * scheduled to start, not from the time it was sent, so a stalled server is not hidden by a stalled client.
+ */
+final class LatencyRecorder {
+
+    private final String operation;
+    private final long[] latencyNanos;
+    private final AtomicInteger recorded = new AtomicInteger();
+    private final AtomicLong errors = new AtomicLong();
+
+    LatencyRecorder(String operation, int capacity) {
+        this.operation = operation;
+        this.latencyNanos = new long[capacity];
+    }
+
+    void record(long nanos, boolean success) {
+        int slot = recorded.getAndIncrement();
+        if (slot < latencyNanos.length) {
+            latencyNanos[slot] = nanos;
+        }
+        if (!success) {
+            errors.incrementAndGet();
+        }
+    }
+
+    int count() {
+        return Math.min(recorded.get(), latencyNanos.length);
+    }
+
+    long errors() {
+        return errors.get();
+    }
+
+    /**
+     * Formats one report line. Must only be called once all requests have completed.
+     */
+    String summary() {
+        int count = count();
+        long[] sorted = Arrays.copyOf(latencyNanos, count);
+        Arrays.sort(sorted);
+
+        return String.format(Locale.ROOT, "%-18s %9d %8d %7.2f%% %9.2f %9.2f %9.2f %9.2f", operation, count,
+                errors(), count == 0 ? 0.0 : 100.0 * errors() / count, millis(percentile(sorted, 0.50)),
+                millis(percentile(sorted, 0.99)), millis(percentile(sorted, 0.999)),
+                millis(count == 0 ? 0L : sorted[count - 1]));
+    }
+
+    static String header() {
+        return String.format(Locale.ROOT, "%-18s %9s %8s %8s %9s %9s %9s %9s", "operation", "requests", "errors",
+                "error", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+    }
+
+    /**
+     * @return The smallest recorded latency that at least the given share of requests did not exceed.
+     */
+    static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0L;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.fooddelivery.loadtest;
+
+/**
+ * Load test settings, read from {@code loadtest.*} system properties.
+ *
+ * @param arrivalRate     Requests started per second, regardless of how fast responses arrive.
+ * @param warmupSeconds   Seconds of load whose latencies are discarded.
+ * @param durationSeconds Seconds of load whose latencies are recorded.
+ * @param writePercent    Share of requests, in percent, that update a fee rule.
+ * @param rulePercent     Share of requests, in percent, that list fee rules. The rest are fee quotes.
+ * @param timeoutSeconds  Seconds after which a request counts as failed.
+ * @param seed            Seed of the operation mix, so runs are repeatable.
+ */
+record LoadTestConfig(int arrivalRate, int warmupSeconds, int durationSeconds, int writePercent, int rulePercent,
+                      int timeoutSeconds, long seed) {
+
+    static LoadTestConfig fromSystemProperties() {
+        LoadTestConfig config = new LoadTestConfig(
+                Integer.getInteger("loadtest.rate", 200),
+                Integer.getInteger("loadtest.warmup", 10),
+                Integer.getInteger("loadtest.duration", 60),
+                Integer.getInteger("loadtest.writePercent", 2),
+                Integer.getInteger("loadtest.rulePercent", 8),
+                Integer.getInteger("loadtest.timeout", 10),
+                Long.getLong("loadtest.seed", 42L));
+
+        if (config.arrivalRate() <= 0 || config.durationSeconds() <= 0 || config.warmupSeconds() < 0) {
+            throw new IllegalArgumentException("Arrival rate and duration must be positive: " + config);
+        }
+        if (config.writePercent() < 0 || config.rulePercent() < 0
+                || config.writePercent() + config.rulePercent() > 100) {
+            throw new IllegalArgumentException("Write and rule listing shares must add up to at most 100%: "
+                    + config);
+        }
+        return config;
+    }
+
+    long totalRequests() {
+        return (long) arrivalRate * (warmupSeconds + durationSeconds);
+    }
+
+    long warmupRequests() {
+        return (long) arrivalRate * warmupSeconds;
+    }
+}
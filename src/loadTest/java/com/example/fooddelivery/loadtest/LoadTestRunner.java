@@ -0,0 +1,266 @@
+package com.example.fooddelivery.loadtest;
+
+import com.example.fooddelivery.FoodDeliveryApplication;
+import com.example.fooddelivery.entity.BaseFee;
+import com.example.fooddelivery.entity.ExtraFee;
+import com.example.fooddelivery.loadtest.ObservationsFeedStub.Station;
+import com.example.fooddelivery.repository.BaseFeeRepository;
+import com.example.fooddelivery.repository.ExtraFeeRepository;
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import com.example.fooddelivery.service.FeeRuleCache;
+import com.example.fooddelivery.service.WeatherDataService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop HTTP load test of the delivery fee and fee rule endpoints.
+ * <p>
+ * Boots the application on a random port against an in-memory database and a local {@link ObservationsFeedStub},
+ * imports the stub's weather once, seeds the production fee rules and then starts requests at a fixed arrival
+ * rate, whether or not earlier requests have completed. Requests are a seeded mix of fee quotes, rule listings and
+ * rule updates. Latency percentiles and error rates are printed per operation when the run is over.
+ * <p>
+ * Run with {@code ./gradlew loadTest}, e.g. {@code ./gradlew loadTest -Dloadtest.rate=500 -Dloadtest.duration=120};
+ * see {@link LoadTestConfig} for all settings.
+ */
+public final class LoadTestRunner {
+
+    private static final List<String> CITIES = List.of("Tallinn", "Tartu", "Pärnu");
+    private static final List<String> VEHICLE_TYPES = List.of("Car", "Scooter", "Bike");
+
+    private static final List<Station> STATIONS = List.of(
+            new Station("Tallinn-Harku", 26038, -2.1, 4.7, "Light snow shower"),
+            new Station("Tartu-Tõravere", 26242, -11.3, 12.0, "Clear"),
+            new Station("Pärnu", 41803, 1.5, 21.4, "Light rain"));
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+
+        try (ObservationsFeedStub feed = ObservationsFeedStub.start(STATIONS);
+             ConfigurableApplicationContext context = startApplication(feed)) {
+            List<Long> baseFeeIds = seedRules(context);
+            context.getBean(WeatherDataService.class).fetchAndStoreWeatherData();
+            if (context.getBean(WeatherDataRepository.class).count() == 0) {
+                throw new IllegalStateException("No weather data was imported from " + feed.url());
+            }
+
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            run(config, new Workload(baseUrl, baseFeeIds, objectMapper, config.seed()));
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(ObservationsFeedStub feed) {
+        return new SpringApplicationBuilder(FoodDeliveryApplication.class)
+                .logStartupInfo(false)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.h2.console.enabled=false",
+                        "weather.api.url=" + feed.url(),
+                        "weather.target.stations=" + String.join(",", STATIONS.stream().map(Station::name).toList()),
+                        "weather.import.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    /**
+     * Stores the production fee rules and returns the ids of the base fees, which the write operations update.
+     */
+    private static List<Long> seedRules(ConfigurableApplicationContext context) {
+        List<BaseFee> baseFees = new ArrayList<>();
+        for (int c = 0; c < CITIES.size(); c++) {
+            for (int v = 0; v < VEHICLE_TYPES.size(); v++) {
+                baseFees.add(new BaseFee(CITIES.get(c), VEHICLE_TYPES.get(v), 4.0 - 0.5 * c - 0.5 * v));
+            }
+        }
+
+        List<ExtraFee> extraFees = new ArrayList<>();
+        for (String vehicleType : List.of("Scooter", "Bike")) {
+            extraFees.add(new ExtraFee(vehicleType, "air_temperature", 1.0, -100.0, -10.0));
+            extraFees.add(new ExtraFee(vehicleType, "air_temperature", 0.5, -10.0, 0.0));
+            extraFees.add(new ExtraFee("weather_phenomenon", vehicleType, "Light snow shower", 1.0, false));
+            extraFees.add(new ExtraFee("weather_phenomenon", vehicleType, "Light rain", 0.5, false));
+            extraFees.add(new ExtraFee("weather_phenomenon", vehicleType, "Glaze", true));
+        }
+        extraFees.add(new ExtraFee("Bike", "wind_speed", 0.5, 10.0, 20.0));
+
+        List<Long> baseFeeIds = context.getBean(BaseFeeRepository.class).saveAll(baseFees).stream()
+                .map(BaseFee::getId)
+                .toList();
+        context.getBean(ExtraFeeRepository.class).saveAll(extraFees);
+        context.getBean(FeeRuleCache.class).refresh();
+        return baseFeeIds;
+    }
+
+    private static void run(LoadTestConfig config, Workload workload) {
+        long totalRequests = config.totalRequests();
+        long warmupRequests = config.warmupRequests();
+        int measuredRequests = Math.toIntExact(totalRequests - warmupRequests);
+
+        Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new LatencyRecorder(operation.name(), measuredRequests));
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(config.timeoutSeconds()))
+                .build();
+        Duration timeout = Duration.ofSeconds(config.timeoutSeconds());
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.arrivalRate();
+
+        System.out.printf("Load test: %d req/s for %d s after %d s warmup, %d%% writes, %d%% rule listings%n",
+                config.arrivalRate(), config.durationSeconds(), config.warmupSeconds(), config.writePercent(),
+                config.rulePercent());
+
+        List<CompletableFuture<?>> inFlight = new ArrayList<>(measuredRequests);
+        long started = System.nanoTime();
+        for (long i = 0; i < totalRequests; i++) {
+            long scheduledAt = started + i * intervalNanos;
+            long delay = scheduledAt - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+
+            Operation operation = workload.nextOperation(config);
+            HttpRequest request = workload.request(operation, timeout);
+            LatencyRecorder recorder = i < warmupRequests ? null : recorders.get(operation);
+
+            CompletableFuture<?> response = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((result, error) -> {
+                        if (recorder != null) {
+                            boolean success = error == null && result.statusCode() < 400;
+                            recorder.record(System.nanoTime() - scheduledAt, success);
+                        }
+                    });
+            if (recorder != null) {
+                inFlight.add(response);
+            }
+        }
+        long dispatchNanos = System.nanoTime() - started;
+
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture<?>[0]))
+                .exceptionally(error -> null)
+                .join();
+
+        report(recorders, config, dispatchNanos);
+    }
+
+    private static void report(Map<Operation, LatencyRecorder> recorders, LoadTestConfig config,
+                               long dispatchNanos) {
+        double achievedRate = config.totalRequests() / (dispatchNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        long requests = recorders.values().stream().mapToLong(LatencyRecorder::count).sum();
+        long errors = recorders.values().stream().mapToLong(LatencyRecorder::errors).sum();
+
+        System.out.printf("%nTarget arrival rate %d req/s, achieved %.1f req/s%n", config.arrivalRate(),
+                achievedRate);
+        System.out.println(LatencyRecorder.header());
+        recorders.values().stream()
+                .filter(recorder -> recorder.count() > 0)
+                .forEach(recorder -> System.out.println(recorder.summary()));
+        System.out.printf("Measured %d requests, %d errors (%.2f%%)%n", requests, errors,
+                requests == 0 ? 0.0 : 100.0 * errors / requests);
+    }
+
+    /**
+     * The kinds of requests the load test issues.
+     */
+    enum Operation {
+        QUOTE,
+        LIST_BASE_FEES,
+        LIST_EXTRA_FEES,
+        UPDATE_BASE_FEE
+    }
+
+    /**
+     * Picks operations from a seeded random mix and builds their requests. Only used from the dispatching thread.
+     */
+    private static final class Workload {
+
+        private final String baseUrl;
+        private final List<Long> baseFeeIds;
+        private final ObjectMapper objectMapper;
+        private final Random random;
+
+        private Workload(String baseUrl, List<Long> baseFeeIds, ObjectMapper objectMapper, long seed) {
+            this.baseUrl = baseUrl;
+            this.baseFeeIds = baseFeeIds;
+            this.objectMapper = objectMapper;
+            this.random = new Random(seed);
+        }
+
+        Operation nextOperation(LoadTestConfig config) {
+            int roll = random.nextInt(100);
+            if (roll < config.writePercent()) {
+                return Operation.UPDATE_BASE_FEE;
+            }
+            if (roll < config.writePercent() + config.rulePercent()) {
+                return random.nextBoolean() ? Operation.LIST_BASE_FEES : Operation.LIST_EXTRA_FEES;
+            }
+            return Operation.QUOTE;
+        }
+
+        HttpRequest request(Operation operation, Duration timeout) {
+            return switch (operation) {
+                case QUOTE -> json(HttpRequest.newBuilder(URI.create(baseUrl + "/api/delivery-fee")), timeout)
+                        .POST(body(Map.of(
+                                "city", CITIES.get(random.nextInt(CITIES.size())),
+                                "vehicleType", VEHICLE_TYPES.get(random.nextInt(VEHICLE_TYPES.size())))))
+                        .build();
+                case LIST_BASE_FEES -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/base-fee"))
+                        .timeout(timeout)
+                        .GET()
+                        .build();
+                case LIST_EXTRA_FEES -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/extra-fee"))
+                        .timeout(timeout)
+                        .GET()
+                        .build();
+                case UPDATE_BASE_FEE -> updateBaseFee(timeout);
+            };
+        }
+
+        private HttpRequest updateBaseFee(Duration timeout) {
+            int index = random.nextInt(baseFeeIds.size());
+            String city = CITIES.get(index / VEHICLE_TYPES.size());
+            String vehicleType = VEHICLE_TYPES.get(index % VEHICLE_TYPES.size());
+            double fee = 2.0 + random.nextInt(5) * 0.5;
+
+            URI uri = URI.create(baseUrl + "/api/base-fee/" + baseFeeIds.get(index));
+            return json(HttpRequest.newBuilder(uri), timeout)
+                    .PUT(body(Map.of("city", city, "vehicleType", vehicleType, "fee", fee)))
+                    .build();
+        }
+
+        private static HttpRequest.Builder json(HttpRequest.Builder builder, Duration timeout) {
+            return builder.timeout(timeout).header("Content-Type", "application/json");
+        }
+
+        private HttpRequest.BodyPublisher body(Map<String, Object> fields) {
+            try {
+                return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(fields));
+            } catch (Exception ex) {
+                throw new IllegalStateException("Failed to encode request body", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.fooddelivery.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Local stand-in for the ilmateenistus observations feed, so load tests neither depend on nor hit the real service.
+ * <p>
+ * Serves a document shaped like {@code observations.php}: the target stations followed by filler stations, so the
+ * importer parses a document of about the real size.
+ */
+final class ObservationsFeedStub implements AutoCloseable {
+
+    static final String PATH = "/ilma_andmed/xml/observations.php";
+
+    private static final int FILLER_STATIONS = 120;
+
+    private final HttpServer server;
+    private final byte[] body;
+
+    private ObservationsFeedStub(HttpServer server, byte[] body) {
+        this.server = server;
+        this.body = body;
+    }
+
+    /**
+     * Starts the stub on a free local port.
+     *
+     * @param stations The target stations to report, with their weather.
+     * @return The running stub.
+     * @throws IOException If the server cannot be started.
+     */
+    static ObservationsFeedStub start(List<Station> stations) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        ObservationsFeedStub stub = new ObservationsFeedStub(server, observationsXml(stations));
+
+        server.createContext(PATH, exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=UTF-8");
+            exchange.sendResponseHeaders(200, stub.body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(stub.body);
+            }
+        });
+        server.start();
+        return stub;
+    }
+
+    String url() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + PATH;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private static byte[] observationsXml(List<Station> stations) {
+        StringBuilder xml = new StringBuilder(64 * 1024)
+                .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<observations timestamp=\"").append(Instant.now().getEpochSecond()).append("\">\n");
+        for (Station station : stations) {
+            appendStation(xml, station);
+        }
+        for (int i = 0; i < FILLER_STATIONS; i++) {
+            appendStation(xml, new Station("Station " + i, 27000 + i, (i % 30) - 10.0, (i % 15) * 1.0,
+                    i % 4 == 0 ? "Light rain" : "Clear"));
+        }
+        return xml.append("</observations>\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendStation(StringBuilder xml, Station station) {
+        xml.append("  <station>\n")
+                .append("    <name>").append(station.name()).append("</name>\n")
+                .append("    <wmocode>").append(station.wmoCode()).append("</wmocode>\n")
+                .append("    <longitude>24.6</longitude>\n")
+                .append("    <latitude>59.4</latitude>\n")
+                .append("    <phenomenon>").append(station.phenomenon()).append("</phenomenon>\n")
+                .append("    <visibility>20.0</visibility>\n")
+                .append("    <precipitations>0</precipitations>\n")
+                .append("    <airpressure>1012.4</airpressure>\n")
+                .append("    <relativehumidity>85</relativehumidity>\n")
+                .append("    <airtemperature>").append(format(station.airTemperature())).append("</airtemperature>\n")
+                .append("    <winddirection>210</winddirection>\n")
+                .append("    <windspeed>").append(format(station.windSpeed())).append("</windspeed>\n")
+                .append("    <windspeedmax>").append(format(station.windSpeed() + 3.0)).append("</windspeedmax>\n")
+                .append("    <waterlevel></waterlevel>\n")
+                .append("    <waterlevel_eh2000></waterlevel_eh2000>\n")
+                .append("    <watertemperature></watertemperature>\n")
+                .append("    <uvindex>0.1</uvindex>\n")
+                .append("  </station>\n");
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    /**
+     * Weather reported for one station.
+     */
+    record Station(String name, int wmoCode, double airTemperature, double windSpeed, String phenomenon) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.fooddelivery.config;
+
+import com.example.fooddelivery.dto.PreEncodedJson;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link PreEncodedJson} bodies by copying their serialized bytes, bypassing Jackson.
+ * Reading is not supported.
+ */
+public class PreEncodedJsonHttpMessageConverter extends AbstractHttpMessageConverter<PreEncodedJson> {
+
+    public PreEncodedJsonHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return PreEncodedJson.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected PreEncodedJson readInternal(Class<? extends PreEncodedJson> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Pre-encoded JSON bodies cannot be read", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(PreEncodedJson body, HttpOutputMessage outputMessage) throws IOException {
+        body.writeJson(outputMessage.getBody());
+    }
+}
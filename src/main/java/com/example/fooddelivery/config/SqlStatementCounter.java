@@ -0,0 +1,71 @@
+package com.example.fooddelivery.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a {@link Recording} is open.
+ * <p>
+ * Hibernate's own statistics are kept per session factory and mix the statements of concurrent requests, so
+ * statements are counted through a {@link StatementInspector} instead, which Hibernate calls on the thread that
+ * prepares each statement. Recordings nest: every open recording of a thread counts every statement. Statements
+ * run on other threads are not counted.
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector {
+
+    private final transient ThreadLocal<Recording> currentRecording = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        for (Recording recording = currentRecording.get(); recording != null; recording = recording.parent) {
+            recording.count++;
+        }
+        return sql;
+    }
+
+    /**
+     * Starts counting the statements of the current thread. The recording must be closed on the same thread.
+     *
+     * @return The open recording.
+     */
+    public Recording startRecording() {
+        Recording recording = new Recording(this, currentRecording.get());
+        currentRecording.set(recording);
+        return recording;
+    }
+
+    /**
+     * Statement count of one unit of work, such as a request.
+     */
+    public static final class Recording implements AutoCloseable {
+
+        private final SqlStatementCounter counter;
+        private final Recording parent;
+        private int count;
+
+        private Recording(SqlStatementCounter counter, Recording parent) {
+            this.counter = counter;
+            this.parent = parent;
+        }
+
+        /**
+         * @return The number of statements prepared so far, or in total once closed.
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Stops counting and makes the enclosing recording, if any, current again.
+         */
+        @Override
+        public void close() {
+            if (parent == null) {
+                counter.currentRecording.remove();
+            } else {
+                counter.currentRecording.set(parent);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.fooddelivery.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements issued while handling each request and records them in the
+ * {@code sql.statements.per.request} distribution summary, tagged with the request method and URI pattern.
+ * <p>
+ * With {@code sql.statements.debug-header=true} the count is also returned in the {@value #HEADER} response header.
+ * The header can only be set once the handler is done, so in that mode response bodies are buffered, which also
+ * holds back streamed responses until they are complete. It is meant for debugging, not for production.
+ */
+@Component
+public class SqlStatementCountingFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Sql-Statement-Count";
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementCountingFilter.class);
+
+    private final SqlStatementCounter sqlStatementCounter;
+    private final MeterRegistry meterRegistry;
+    private final boolean debugHeader;
+
+    public SqlStatementCountingFilter(SqlStatementCounter sqlStatementCounter, MeterRegistry meterRegistry,
+                                      @Value("${sql.statements.debug-header:false}") boolean debugHeader) {
+        this.sqlStatementCounter = sqlStatementCounter;
+        this.meterRegistry = meterRegistry;
+        this.debugHeader = debugHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper bufferedResponse =
+                debugHeader ? new ContentCachingResponseWrapper(response) : null;
+        SqlStatementCounter.Recording recording = sqlStatementCounter.startRecording();
+        try {
+            filterChain.doFilter(request, bufferedResponse != null ? bufferedResponse : response);
+        } finally {
+            recording.close();
+            String uri = uriPattern(request);
+            DistributionSummary.builder("sql.statements.per.request")
+                    .description("SQL statements issued while handling a request")
+                    .baseUnit("statements")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(recording.getCount());
+            logger.debug("{} {} issued {} SQL statements", request.getMethod(), uri, recording.getCount());
+
+            if (bufferedResponse != null) {
+                bufferedResponse.setHeader(HEADER, Integer.toString(recording.getCount()));
+                bufferedResponse.copyBodyToResponse();
+            }
+        }
+    }
+
+    private static String uriPattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
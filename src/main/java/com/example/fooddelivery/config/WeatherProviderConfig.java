@@ -0,0 +1,28 @@
+package com.example.fooddelivery.config;
+
+import com.example.fooddelivery.service.IlmateenistusWeatherProvider;
+import com.example.fooddelivery.service.WeatherFeedClient;
+import com.example.fooddelivery.service.WeatherProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class WeatherProviderConfig {
+
+    /**
+     * The national observations feed of Estonia. Providers for other regions are added as further
+     * {@link WeatherProvider} beans.
+     */
+    @Bean
+    public WeatherProvider ilmateenistusWeatherProvider(
+            @Value("${weather.api.url}") String apiUrl,
+            @Value("${weather.target.stations}") List<String> targetStations,
+            @Value("${weather.provider.timeout:10s}") Duration timeout) {
+        return new IlmateenistusWeatherProvider("ilmateenistus", new WeatherFeedClient(apiUrl, timeout),
+                targetStations, timeout);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.fooddelivery.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /**
+     * Registers the pre-encoded JSON converter ahead of Jackson, so cached response bodies are written as-is.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new PreEncodedJsonHttpMessageConverter());
+    }
+}
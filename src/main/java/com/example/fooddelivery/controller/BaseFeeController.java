@@ -4,9 +4,12 @@ import com.example.fooddelivery.entity.BaseFee;
 import com.example.fooddelivery.exception.BaseFeeDeletionException;
 import com.example.fooddelivery.exception.ResourceNotFoundException;
 import com.example.fooddelivery.repository.BaseFeeRepository;
+import com.example.fooddelivery.service.FeeRuleCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,17 +26,33 @@ public class BaseFeeController {
     private static final Logger logger = LoggerFactory.getLogger(BaseFeeController.class);
 
     private final BaseFeeRepository baseFeeRepository;
+    private final FeeRuleCache feeRuleCache;
 
-    public BaseFeeController(BaseFeeRepository baseFeeRepository) {
+    public BaseFeeController(BaseFeeRepository baseFeeRepository, FeeRuleCache feeRuleCache) {
         this.baseFeeRepository = baseFeeRepository;
+        this.feeRuleCache = feeRuleCache;
     }
 
-    @Operation(summary = "Get all base fees", description = "Fetches all the base fees")
+    @Operation(summary = "Get all base fees",
+            description = "Fetches all the base fees. The response carries an ETag that changes with the fee rules, "
+                    + "and a matching If-None-Match is answered with 304 without reading the table")
     @GetMapping
-    public ResponseEntity<List<BaseFee>> getAllBaseFees() {
+    public ResponseEntity<List<BaseFee>> getAllBaseFees(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = feeRuleCache.getETag();
+        if (ConditionalRequests.isNotModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+
         logger.info("Fetching all base fees");
         List<BaseFee> baseFees = baseFeeRepository.findAll();
-        return ResponseEntity.ok(baseFees);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(baseFees);
     }
 
     @Operation(summary = "Create a new base fee", description = "Adds a new base fee record")
@@ -43,6 +62,7 @@ public class BaseFeeController {
                 baseFee.getCity(), baseFee.getVehicleType(), baseFee.getFee());
 
         BaseFee savedBaseFee = baseFeeRepository.save(baseFee);
+        feeRuleCache.refresh();
         return ResponseEntity.status(201).body(savedBaseFee);
     }
 
@@ -52,6 +72,7 @@ public class BaseFeeController {
         logger.info("Creating a batch of {} base fees", baseFees.size());
 
         List<BaseFee> savedFees = baseFeeRepository.saveAll(baseFees);
+        feeRuleCache.refresh();
         return ResponseEntity.status(HttpStatus.CREATED).body(savedFees);
     }
 
@@ -68,6 +89,7 @@ public class BaseFeeController {
                     return baseFeeRepository.save(baseFee);
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("Base fee not found with ID: " + id));
+        feeRuleCache.refresh();
 
         logger.info("Successfully updated base fee with ID: {}", id);
         return ResponseEntity.ok(updatedFee);
@@ -85,10 +107,12 @@ public class BaseFeeController {
         try {
             baseFeeRepository.deleteById(id);
             logger.info("Successfully deleted base fee with ID: {}", id);
-            return ResponseEntity.noContent().build(); // 204 No Content
         } catch (Exception ex) {
             logger.error("Error deleting base fee ID: {} - {}", id, ex.getMessage(), ex);
             throw new BaseFeeDeletionException("Failed to delete base fee with ID: " + id);
         }
+
+        feeRuleCache.refresh();
+        return ResponseEntity.noContent().build(); // 204 No Content
     }
 }
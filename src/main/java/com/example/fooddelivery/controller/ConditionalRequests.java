@@ -0,0 +1,43 @@
+package com.example.fooddelivery.controller;
+
+/**
+ * Evaluates {@code If-None-Match} request headers against entity tags.
+ * <p>
+ * Spring's {@code WebRequest.checkNotModified} answers a matching {@code If-None-Match} on anything but GET and HEAD
+ * with 412 Precondition Failed, which does not suit the quote endpoint: a quote is computed by a POST without side
+ * effects, so a client holding the current tag should get 304 Not Modified.
+ */
+final class ConditionalRequests {
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Checks whether a client already holds the current representation, using the weak comparison that
+     * {@code If-None-Match} calls for.
+     *
+     * @param ifNoneMatch The {@code If-None-Match} header value, may be null.
+     * @param eTag        The quoted entity tag of the current representation, may be null.
+     * @return true if the header lists the entity tag or is {@code *}.
+     */
+    static boolean isNotModified(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+
+        String current = stripWeakPrefix(eTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || stripWeakPrefix(trimmed).equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String eTag) {
+        return eTag.startsWith(WEAK_PREFIX) ? eTag.substring(WEAK_PREFIX.length()) : eTag;
+    }
+}
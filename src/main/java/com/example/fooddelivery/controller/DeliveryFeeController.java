@@ -1,18 +1,46 @@
 package com.example.fooddelivery.controller;
 
+import com.example.fooddelivery.dto.DeliveryFeeBatchResult;
 import com.example.fooddelivery.dto.DeliveryFeeRequest;
-import com.example.fooddelivery.dto.DeliveryFeeResponse;
+import com.example.fooddelivery.dto.QuoteThroughputStats;
 import com.example.fooddelivery.exception.DeliveryFeeCalculationException;
 import com.example.fooddelivery.exception.InvalidDeliveryFeeRequestException;
 import com.example.fooddelivery.service.DeliveryFeeService;
+import com.example.fooddelivery.service.FeeQuoteEncoder;
+import com.example.fooddelivery.service.FeeQuoteResult;
+import com.example.fooddelivery.service.QuoteThroughputTracker;
+import com.example.fooddelivery.service.QuoteThroughputTracker.Endpoint;
+import com.example.fooddelivery.service.WeatherImportSchedule;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 @Tag(name = "Delivery Fee API", description = "API for calculating delivery fees")
 @RestController
 @RequestMapping("/api/delivery-fee")
@@ -20,16 +48,41 @@ public class DeliveryFeeController {
 
     private static final Logger logger = LoggerFactory.getLogger(DeliveryFeeController.class);
 
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    static final String WEATHER_OBSERVED_AT_HEADER = "X-Weather-Observed-At";
+    static final String WEATHER_STALE_HEADER = "X-Weather-Stale";
+
     private final DeliveryFeeService deliveryFeeService;
+    private final QuoteThroughputTracker quoteThroughputTracker;
+    private final FeeQuoteEncoder feeQuoteEncoder;
+    private final WeatherImportSchedule weatherImportSchedule;
+    private final Duration staleAfter;
+    private final ObjectReader requestReader;
+    private final ObjectWriter resultWriter;
 
-    public DeliveryFeeController(DeliveryFeeService deliveryFeeService) {
+    public DeliveryFeeController(DeliveryFeeService deliveryFeeService,
+                                 QuoteThroughputTracker quoteThroughputTracker,
+                                 FeeQuoteEncoder feeQuoteEncoder,
+                                 WeatherImportSchedule weatherImportSchedule,
+                                 @Value("${weather.stale-after:90m}") Duration staleAfter,
+                                 ObjectMapper objectMapper) {
         this.deliveryFeeService = deliveryFeeService;
+        this.quoteThroughputTracker = quoteThroughputTracker;
+        this.feeQuoteEncoder = feeQuoteEncoder;
+        this.weatherImportSchedule = weatherImportSchedule;
+        this.staleAfter = staleAfter;
+        this.requestReader = objectMapper.readerFor(DeliveryFeeRequest.class);
+        this.resultWriter = objectMapper.writerFor(DeliveryFeeBatchResult.class);
     }
 
     @Operation(summary = "Calculate delivery fee",
-            description = "Calculates the delivery fee based on request details")
+            description = "Calculates the delivery fee based on request details. Current quotes carry an ETag and "
+                    + "may be cached until the next weather import; a matching If-None-Match is answered with 304")
     @PostMapping
-    public ResponseEntity<DeliveryFeeResponse> calculateDeliveryFee(@Valid @RequestBody DeliveryFeeRequest request) {
+    public ResponseEntity<?> calculateDeliveryFee(
+            @Valid @RequestBody DeliveryFeeRequest request,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.info("Calculating delivery fee for city: {}, vehicle: {}", request.getCity(), request.getVehicleType());
 
         if (request.getCity() == null || request.getCity().isBlank() ||
@@ -38,12 +91,128 @@ public class DeliveryFeeController {
             throw new InvalidDeliveryFeeRequestException("Invalid request: city and vehicleType must not be empty");
         }
 
+        long started = System.nanoTime();
         try {
-            DeliveryFeeResponse response = deliveryFeeService.calculateDeliveryFee(request);
-            return ResponseEntity.ok(response);
+            FeeQuoteResult result = deliveryFeeService.calculateDeliveryFee(request);
+            if (result.isOk()) {
+                if (result.eTag() == null) {
+                    return ResponseEntity.ok(result.response());
+                }
+
+                CacheControl cacheControl = CacheControl.maxAge(weatherImportSchedule.secondsUntilNextImport(),
+                        TimeUnit.SECONDS);
+                HttpHeaders weatherHeaders = weatherHeaders(result.weatherObservedAt());
+                if (ConditionalRequests.isNotModified(ifNoneMatch, result.eTag())) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                            .eTag(result.eTag())
+                            .cacheControl(cacheControl)
+                            .headers(weatherHeaders)
+                            .build();
+                }
+                return ResponseEntity.ok()
+                        .eTag(result.eTag())
+                        .cacheControl(cacheControl)
+                        .headers(weatherHeaders)
+                        .body(result.response());
+            }
+
+            // Forbidden vehicle types and missing base fees are expected outcomes, answered without an exception
+            logger.debug("Delivery fee not available ({}): {}", result.status(), result.statusMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(feeQuoteEncoder.calculationFailure());
         } catch (Exception ex) {
             logger.error("Error calculating delivery fee: {}", ex.getMessage());
-            throw new DeliveryFeeCalculationException("Failed to calculate delivery fee");
+            throw new DeliveryFeeCalculationException(FeeQuoteEncoder.CALCULATION_FAILED_MESSAGE);
+        } finally {
+            quoteThroughputTracker.record(Endpoint.SINGLE, 1, System.nanoTime() - started);
+        }
+    }
+
+    @Operation(summary = "Calculate delivery fees in batch",
+            description = "Calculates delivery fees for multiple requests, reporting the outcome of each one")
+    @PostMapping("/batch")
+    public ResponseEntity<List<DeliveryFeeBatchResult>> calculateDeliveryFees(
+            @RequestBody List<DeliveryFeeRequest> requests) {
+        logger.info("Calculating a batch of {} delivery fees", requests.size());
+
+        long started = System.nanoTime();
+        List<DeliveryFeeBatchResult> results = deliveryFeeService.calculateDeliveryFees(requests);
+        quoteThroughputTracker.record(Endpoint.BATCH, results.size(), System.nanoTime() - started);
+
+        return ResponseEntity.ok(results);
+    }
+
+    @Operation(summary = "Stream delivery fee quotes",
+            description = "Reads newline-delimited JSON requests and writes one newline-delimited JSON result "
+                    + "per line as it goes, so memory use does not depend on the input size")
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamDeliveryFees(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        logger.info("Streaming delivery fee quotes");
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        long started = System.nanoTime();
+        long quotes = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream out = new BufferedOutputStream(response.getOutputStream(), STREAM_BUFFER_SIZE)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                DeliveryFeeBatchResult result = deliveryFeeService.calculateDeliveryFeeResult(readRequest(line));
+                out.write(resultWriter.writeValueAsBytes(result));
+                out.write('\n');
+                quotes++;
+            }
+        } finally {
+            long elapsedNanos = System.nanoTime() - started;
+            quoteThroughputTracker.record(Endpoint.STREAM, quotes, elapsedNanos);
+            logger.info("Streamed {} delivery fee quotes in {} ms", quotes,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        }
+    }
+
+    @Operation(summary = "Get quote throughput",
+            description = "Returns the number of quotes served and the time spent per delivery fee endpoint")
+    @GetMapping("/throughput")
+    public ResponseEntity<List<QuoteThroughputStats>> getQuoteThroughput() {
+        return ResponseEntity.ok(quoteThroughputTracker.getStats());
+    }
+
+    /**
+     * Describes the weather a current quote was computed from. The quote keeps being served from the last good
+     * observation while the weather feed is unavailable, but is marked stale once that observation is older than
+     * {@code weather.stale-after}, or if there is no observation at all.
+     *
+     * @param observedAt The timestamp of the observation, or null if there is none.
+     * @return The {@value #WEATHER_OBSERVED_AT_HEADER} and {@value #WEATHER_STALE_HEADER} headers.
+     */
+    HttpHeaders weatherHeaders(LocalDateTime observedAt) {
+        HttpHeaders headers = new HttpHeaders();
+        if (observedAt != null) {
+            headers.set(WEATHER_OBSERVED_AT_HEADER, observedAt.toString());
+        }
+        boolean stale = observedAt == null || observedAt.plus(staleAfter).isBefore(LocalDateTime.now());
+        headers.set(WEATHER_STALE_HEADER, Boolean.toString(stale));
+        return headers;
+    }
+
+    /**
+     * Parses one NDJSON line into a request.
+     *
+     * @param line The JSON text of a single request.
+     * @return The parsed request, or null if the line is not a valid request.
+     */
+    private DeliveryFeeRequest readRequest(String line) {
+        try {
+            return requestReader.readValue(line);
+        } catch (JsonProcessingException ex) {
+            logger.warn("Skipping unreadable delivery fee request line: {}", ex.getOriginalMessage());
+            return null;
         }
     }
 }
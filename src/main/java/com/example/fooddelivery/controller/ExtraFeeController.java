@@ -4,11 +4,14 @@ import com.example.fooddelivery.entity.ExtraFee;
 import com.example.fooddelivery.exception.ExtraFeeDeletionException;
 import com.example.fooddelivery.exception.ResourceNotFoundException;
 import com.example.fooddelivery.repository.ExtraFeeRepository;
+import com.example.fooddelivery.service.FeeRuleCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,18 +26,33 @@ public class ExtraFeeController {
     private static final Logger logger = LoggerFactory.getLogger(ExtraFeeController.class);
 
     private final ExtraFeeRepository extraFeeRepository;
+    private final FeeRuleCache feeRuleCache;
 
-    public ExtraFeeController(ExtraFeeRepository extraFeeRepository) {
+    public ExtraFeeController(ExtraFeeRepository extraFeeRepository, FeeRuleCache feeRuleCache) {
         this.extraFeeRepository = extraFeeRepository;
+        this.feeRuleCache = feeRuleCache;
     }
 
-    @Operation(summary = "Get all extra fees", description = "Fetches all the extra fees")
+    @Operation(summary = "Get all extra fees",
+            description = "Fetches all the extra fees. The response carries an ETag that changes with the fee rules, "
+                    + "and a matching If-None-Match is answered with 304 without reading the table")
     @GetMapping
-    public ResponseEntity<List<ExtraFee>> getAllExtraFees() {
-        logger.info("Fetching all extra fees");
+    public ResponseEntity<List<ExtraFee>> getAllExtraFees(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = feeRuleCache.getETag();
+        if (ConditionalRequests.isNotModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
 
+        logger.info("Fetching all extra fees");
         List<ExtraFee> extraFees = extraFeeRepository.findAll();
-        return ResponseEntity.ok(extraFees);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(extraFees);
     }
 
     @Operation(summary = "Create a new extra fee", description = "Adds a new extra fee record")
@@ -48,6 +66,7 @@ public class ExtraFeeController {
         );
 
         ExtraFee savedExtraFee = extraFeeRepository.save(extraFee);
+        feeRuleCache.refresh();
         return ResponseEntity.status(HttpStatus.CREATED).body(savedExtraFee); // 201 Created
     }
 
@@ -57,6 +76,7 @@ public class ExtraFeeController {
         logger.info("Creating a batch of {} extra fees", extraFees.size());
 
         List<ExtraFee> savedFees = extraFeeRepository.saveAll(extraFees);
+        feeRuleCache.refresh();
         return ResponseEntity.status(HttpStatus.CREATED).body(savedFees);
     }
 
@@ -81,6 +101,7 @@ public class ExtraFeeController {
                     return savedFee;
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("Extra fee not found with ID: " + id));
+        feeRuleCache.refresh();
 
         return ResponseEntity.ok(updatedFee);
     }
@@ -97,10 +118,12 @@ public class ExtraFeeController {
         try {
             extraFeeRepository.deleteById(id);
             logger.info("Successfully deleted extra fee with ID: {}", id);
-            return ResponseEntity.noContent().build(); // 204 No Content
         } catch (Exception ex) {
             logger.error("Error deleting extra fee ID: {} - {}", id, ex.getMessage(), ex);
             throw new ExtraFeeDeletionException("Failed to delete extra fee with ID: " + id);
         }
+
+        feeRuleCache.refresh();
+        return ResponseEntity.noContent().build(); // 204 No Content
     }
 }
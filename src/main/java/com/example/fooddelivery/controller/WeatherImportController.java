@@ -0,0 +1,49 @@
+package com.example.fooddelivery.controller;
+
+import com.example.fooddelivery.dto.WeatherImportResult;
+import com.example.fooddelivery.service.WeatherImportSchedule;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+
+@Tag(name = "Weather Import API", description = "API for running weather imports on demand")
+@RestController
+@RequestMapping("/api/weather/import")
+public class WeatherImportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherImportController.class);
+
+    private final WeatherImportSchedule weatherImportSchedule;
+
+    public WeatherImportController(WeatherImportSchedule weatherImportSchedule) {
+        this.weatherImportSchedule = weatherImportSchedule;
+    }
+
+    @Operation(summary = "Import weather data now",
+            description = "Runs a weather import and returns its outcome once it has finished. If an import is "
+                    + "already in progress, waits for that one instead of starting another; a failed import is "
+                    + "answered with 502, 409 if another instance holds the import lease, and 503 if the lease "
+                    + "could not be checked")
+    @PostMapping
+    public CompletableFuture<ResponseEntity<WeatherImportResult>> triggerImport() {
+        logger.info("Weather import requested");
+        return weatherImportSchedule.trigger()
+                .thenApply(result -> ResponseEntity.status(statusOf(result)).body(result));
+    }
+
+    private static HttpStatus statusOf(WeatherImportResult result) {
+        return switch (result.getLeaseStatus()) {
+            case ACQUIRED -> result.isSucceeded() ? HttpStatus.OK : HttpStatus.BAD_GATEWAY;
+            case HELD_ELSEWHERE -> HttpStatus.CONFLICT;
+            case UNAVAILABLE -> HttpStatus.SERVICE_UNAVAILABLE;
+        };
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.fooddelivery.controller;
+
+import com.example.fooddelivery.entity.WeatherStation;
+import com.example.fooddelivery.exception.ResourceNotFoundException;
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import com.example.fooddelivery.repository.WeatherStationRepository;
+import com.example.fooddelivery.service.WeatherStationCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+@Tag(name = "Weather Station API", description = "API for mapping weather stations to delivery cities")
+@RestController
+@RequestMapping("/api/weather-station")
+public class WeatherStationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherStationController.class);
+
+    private final WeatherStationRepository weatherStationRepository;
+    private final WeatherDataRepository weatherDataRepository;
+    private final WeatherStationCache weatherStationCache;
+
+    public WeatherStationController(WeatherStationRepository weatherStationRepository,
+                                    WeatherDataRepository weatherDataRepository,
+                                    WeatherStationCache weatherStationCache) {
+        this.weatherStationRepository = weatherStationRepository;
+        this.weatherDataRepository = weatherDataRepository;
+        this.weatherStationCache = weatherStationCache;
+    }
+
+    @Operation(summary = "Get all weather stations", description = "Fetches the station-to-city mapping")
+    @GetMapping
+    public ResponseEntity<List<WeatherStation>> getAllWeatherStations() {
+        logger.info("Fetching all weather stations");
+        return ResponseEntity.ok(weatherStationRepository.findAll());
+    }
+
+    @Operation(summary = "Map a weather station to a city",
+            description = "Adds a station-to-city mapping and links the station's stored observations to it")
+    @PostMapping
+    public ResponseEntity<WeatherStation> createWeatherStation(@Valid @RequestBody WeatherStation weatherStation) {
+        logger.info("Mapping weather station: {} to city: {}",
+                weatherStation.getStationName(), weatherStation.getCity());
+        validate(weatherStation, null);
+
+        WeatherStation savedStation = weatherStationRepository.save(weatherStation);
+        weatherStationCache.refresh();
+        return ResponseEntity.status(HttpStatus.CREATED).body(savedStation);
+    }
+
+    @Operation(summary = "Update a weather station", description = "Updates a station-to-city mapping using its ID")
+    @PutMapping("/{id}")
+    public ResponseEntity<WeatherStation> updateWeatherStation(@PathVariable Long id,
+                                                               @Valid @RequestBody WeatherStation newStation) {
+        logger.info("Updating weather station with ID: {}", id);
+        validate(newStation, id);
+
+        WeatherStation updatedStation = weatherStationRepository.findById(id)
+                .map(station -> {
+                    if (!station.getStationName().equals(newStation.getStationName())) {
+                        weatherDataRepository.clearStationId(id);
+                    }
+                    station.setStationName(newStation.getStationName());
+                    station.setCity(newStation.getCity());
+                    return weatherStationRepository.save(station);
+                })
+                .orElseThrow(() -> new ResourceNotFoundException("Weather station not found with ID: " + id));
+        weatherStationCache.refresh();
+
+        logger.info("Successfully updated weather station with ID: {}", id);
+        return ResponseEntity.ok(updatedStation);
+    }
+
+    @Operation(summary = "Delete a weather station",
+            description = "Removes a station-to-city mapping by its ID and unlinks the station's observations")
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteWeatherStation(@PathVariable Long id) {
+        logger.info("Attempting to delete weather station with ID: {}", id);
+
+        if (!weatherStationRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Weather station not found with ID: " + id);
+        }
+
+        weatherDataRepository.clearStationId(id);
+        weatherStationRepository.deleteById(id);
+        weatherStationCache.refresh();
+
+        logger.info("Successfully deleted weather station with ID: {}", id);
+        return ResponseEntity.noContent().build(); // 204 No Content
+    }
+
+    /**
+     * Rejects a mapping without a station name or city, or of a station that another entry already maps.
+     *
+     * @param weatherStation The mapping to store.
+     * @param id             The id of the entry being updated, or null for a new entry.
+     */
+    private void validate(WeatherStation weatherStation, Long id) {
+        String stationName = weatherStation.getStationName();
+        if (stationName == null || stationName.isBlank()
+                || weatherStation.getCity() == null || weatherStation.getCity().isBlank()) {
+            throw new IllegalArgumentException("Station name and city must not be empty");
+        }
+        weatherStationRepository.findByStationName(stationName)
+                .filter(existing -> !existing.getId().equals(id))
+                .ifPresent(existing -> {
+                    throw new IllegalArgumentException("Weather station " + stationName + " is already mapped to "
+                            + existing.getCity());
+                });
+    }
+}
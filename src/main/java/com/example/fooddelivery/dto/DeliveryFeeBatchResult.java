@@ -0,0 +1,14 @@
+package com.example.fooddelivery.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class DeliveryFeeBatchResult {
+    private String city;
+    private String vehicleType;
+    private FeeQuoteStatus status;
+    private Double totalFee;
+    private String statusMessage;
+}
@@ -2,10 +2,24 @@ package com.example.fooddelivery.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 @AllArgsConstructor
 public class DeliveryFeeRequest {
     private String city;
     private String vehicleType;
-}
\ No newline at end of file
+
+    /**
+     * Optional time of the order. When present, the fee is calculated against the weather observed at or before
+     * this time instead of the latest weather.
+     */
+    private LocalDateTime orderTime;
+
+    public DeliveryFeeRequest(String city, String vehicleType) {
+        this(city, vehicleType, null);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.fooddelivery.dto;
+
+/**
+ * Outcome of a delivery fee quote for one city and vehicle type.
+ */
+public enum FeeQuoteStatus {
+    OK,
+    FORBIDDEN,
+    NO_BASE_FEE,
+    INVALID_REQUEST
+}
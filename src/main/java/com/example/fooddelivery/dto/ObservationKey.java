@@ -0,0 +1,16 @@
+package com.example.fooddelivery.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Identifies a weather observation: a station's WMO code and the time it was observed.
+ */
+@Data
+@AllArgsConstructor
+public class ObservationKey {
+    private Integer wmoCode;
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,33 @@
+package com.example.fooddelivery.dto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link DeliveryFeeResponse} that carries its serialized JSON. Instances are shared between all quotes that
+ * resolve to the same fee matrix cell, so the setters reject changes that would make them disagree with the JSON.
+ */
+public class PreEncodedDeliveryFeeResponse extends DeliveryFeeResponse implements PreEncodedJson {
+
+    private final byte[] json;
+
+    public PreEncodedDeliveryFeeResponse(String statusMessage, Double totalFee, byte[] json) {
+        super(statusMessage, totalFee);
+        this.json = json;
+    }
+
+    @Override
+    public void setStatusMessage(String statusMessage) {
+        throw new UnsupportedOperationException("Pre-encoded delivery fee responses are immutable");
+    }
+
+    @Override
+    public void setTotalFee(Double totalFee) {
+        throw new UnsupportedOperationException("Pre-encoded delivery fee responses are immutable");
+    }
+
+    @Override
+    public void writeJson(OutputStream out) throws IOException {
+        out.write(json);
+    }
+}
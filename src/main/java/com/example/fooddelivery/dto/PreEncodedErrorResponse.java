@@ -0,0 +1,40 @@
+package com.example.fooddelivery.dto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * An {@link ErrorResponse} whose fields after the timestamp have been serialized in advance.
+ * Only the timestamp is encoded per response.
+ */
+public class PreEncodedErrorResponse extends ErrorResponse implements PreEncodedJson {
+
+    private static final byte[] HEAD = "{\"timestamp\":".getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] timestampJson;
+    private final byte[] tail;
+
+    /**
+     * @param timestamp     The time of the error.
+     * @param message       The error message.
+     * @param details       The error details.
+     * @param statusCode    The HTTP status code.
+     * @param timestampJson The serialized timestamp value.
+     * @param tail          The serialized remainder of the object following the timestamp value.
+     */
+    public PreEncodedErrorResponse(LocalDateTime timestamp, String message, String details, int statusCode,
+                                   byte[] timestampJson, byte[] tail) {
+        super(timestamp, message, details, statusCode);
+        this.timestampJson = timestampJson;
+        this.tail = tail;
+    }
+
+    @Override
+    public void writeJson(OutputStream out) throws IOException {
+        out.write(HEAD);
+        out.write(timestampJson);
+        out.write(tail);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.fooddelivery.dto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A response body whose JSON representation has already been serialized, so it can be written to the client
+ * as-is instead of going through Jackson on every request.
+ */
+public interface PreEncodedJson {
+
+    /**
+     * Writes the JSON representation of this body.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If writing fails.
+     */
+    void writeJson(OutputStream out) throws IOException;
+}
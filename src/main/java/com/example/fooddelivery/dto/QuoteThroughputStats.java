@@ -0,0 +1,14 @@
+package com.example.fooddelivery.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class QuoteThroughputStats {
+    private String endpoint;
+    private long requests;
+    private long quotes;
+    private long elapsedMillis;
+    private double quotesPerSecond;
+}
@@ -0,0 +1,11 @@
+package com.example.fooddelivery.dto;
+
+/**
+ * Outcome of taking the weather import lease before an import: this instance took it and imported, another instance
+ * holds it and imports instead, or the lease could not be checked, for example because the database is unreachable.
+ */
+public enum WeatherImportLeaseStatus {
+    ACQUIRED,
+    HELD_ELSEWHERE,
+    UNAVAILABLE
+}
@@ -0,0 +1,17 @@
+package com.example.fooddelivery.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class WeatherImportResult {
+    private boolean succeeded;
+    private WeatherImportLeaseStatus leaseStatus;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private int consecutiveFailures;
+    private LocalDateTime nextImportAt;
+}
@@ -15,16 +15,27 @@ import java.time.LocalDateTime;
 @Table(name = "weather_data", indexes = {
         @Index(name = "idx_wmo_code", columnList = "wmoCode"),
         @Index(name = "idx_timestamp", columnList = "timestamp"),
-        @Index(name = "idx_station_name", columnList = "stationName")
+        @Index(name = "idx_station_name", columnList = "stationName"),
+        @Index(name = "idx_station_name_timestamp", columnList = "stationName, timestamp"),
+        @Index(name = "idx_station_id_timestamp", columnList = "stationId, timestamp DESC")
 })
 public class WeatherData {
+    /**
+     * Sequence ids, unlike identity columns, are known before the insert, which lets Hibernate batch inserts.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weather_data_seq")
+    @SequenceGenerator(name = "weather_data_seq", sequenceName = "weather_data_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private String stationName;
 
+    /**
+     * The {@link WeatherStation} the station name is mapped to, or null if it is not mapped.
+     */
+    private Long stationId;
+
     @Column(nullable = false)
     private Integer wmoCode;
 
@@ -0,0 +1,61 @@
+package com.example.fooddelivery.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * The observations of one station during one hour, compacted from {@link WeatherData} rows that are past the raw
+ * retention window.
+ */
+@Getter @Setter
+@Entity
+@AllArgsConstructor @NoArgsConstructor
+@Table(name = "weather_hourly_rollup", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_rollup_station_name_hour_start", columnNames = {"stationName", "hourStart"})
+}, indexes = {
+        @Index(name = "idx_rollup_hour_start", columnList = "hourStart")
+})
+public class WeatherHourlyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weather_hourly_rollup_seq")
+    @SequenceGenerator(name = "weather_hourly_rollup_seq", sequenceName = "weather_hourly_rollup_seq",
+            allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String stationName;
+
+    @Column(nullable = false)
+    private Integer wmoCode;
+
+    /**
+     * The start of the hour, inclusive.
+     */
+    @Column(nullable = false)
+    private LocalDateTime hourStart;
+
+    @Column(nullable = false)
+    private Integer observationCount;
+
+    private Double minAirTemperature;
+
+    private Double maxAirTemperature;
+
+    private Double avgAirTemperature;
+
+    private Double minWindSpeed;
+
+    private Double maxWindSpeed;
+
+    private Double avgWindSpeed;
+
+    /**
+     * The most frequent phenomenon of the hour, ties going to the later observation.
+     */
+    private String dominantPhenomenon;
+}
@@ -0,0 +1,35 @@
+package com.example.fooddelivery.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * The lease that elects the one instance importing weather data, and the version of the stored weather data that the
+ * other instances poll to notice new imports. There is a single row per lease name; rows that only carry a version,
+ * like the one counting changes of the fee rules, are never leased.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "weather_import_lease")
+public class WeatherImportLease {
+
+    @Id
+    private String name;
+
+    private String owner; // The instance holding the lease, null if it was never taken
+
+    private LocalDateTime leasedUntil; // The lease is free once this time has passed
+
+    @Column(nullable = false)
+    private long dataVersion; // Incremented after every change of the data the row guards, such as a new import
+
+    public WeatherImportLease(String name) {
+        this.name = name;
+    }
+}
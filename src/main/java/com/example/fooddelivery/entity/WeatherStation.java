@@ -0,0 +1,36 @@
+package com.example.fooddelivery.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Maps a weather station to the delivery city it serves. A city may be served by several stations.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "weather_station", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_weather_station_name", columnNames = "stationName")
+}, indexes = {
+        @Index(name = "idx_weather_station_city", columnList = "city")
+})
+public class WeatherStation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String stationName; // As named in the observations feed, e.g. "Tartu-Tõravere"
+
+    @Column(nullable = false)
+    private String city; // As named in the fee rules, e.g. "Tartu"
+
+    public WeatherStation(String stationName, String city) {
+        this.stationName = stationName;
+        this.city = city;
+    }
+}
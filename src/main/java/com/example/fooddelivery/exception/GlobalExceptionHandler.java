@@ -1,6 +1,7 @@
 package com.example.fooddelivery.exception;
 
 import com.example.fooddelivery.dto.ErrorResponse;
+import com.example.fooddelivery.service.FeeQuoteEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -15,6 +16,12 @@ public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    private final FeeQuoteEncoder feeQuoteEncoder;
+
+    public GlobalExceptionHandler(FeeQuoteEncoder feeQuoteEncoder) {
+        this.feeQuoteEncoder = feeQuoteEncoder;
+    }
+
     @ExceptionHandler(InvalidDeliveryFeeRequestException.class)
     public ResponseEntity<ErrorResponse> handleInvalidDeliveryFeeRequestException(
             InvalidDeliveryFeeRequestException ex) {
@@ -32,6 +39,10 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(DeliveryFeeCalculationException.class)
     public ResponseEntity<ErrorResponse> handleDeliveryFeeCalculationException(DeliveryFeeCalculationException ex) {
         logger.warn("Failed to calculate delivery fee: {}", ex.getMessage());
+
+        if (FeeQuoteEncoder.CALCULATION_FAILED_MESSAGE.equals(ex.getMessage())) {
+            return new ResponseEntity<>(feeQuoteEncoder.calculationFailure(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
         return errorResponseBuilder(ex.getMessage(), "Failed to calculate delivery fee",
                 HttpStatus.INTERNAL_SERVER_ERROR);
     }
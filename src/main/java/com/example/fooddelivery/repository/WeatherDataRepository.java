@@ -1,18 +1,83 @@
 package com.example.fooddelivery.repository;
 
+import com.example.fooddelivery.dto.ObservationKey;
 import com.example.fooddelivery.entity.WeatherData;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface WeatherDataRepository extends JpaRepository<WeatherData, Long> {
     Boolean existsByWmoCodeAndTimestamp(Integer wmoCode, LocalDateTime timestamp);
 
-    @Query("SELECT w FROM WeatherData w WHERE LOWER(w.stationName) LIKE LOWER(CONCAT('%', :stationName, '%'))")
-    Optional<WeatherData> findByStationNameContaining(@Param("stationName") String stationName);
+    /**
+     * Finds the keys of the stored observations with any of the given WMO codes and any of the given timestamps.
+     */
+    @Query("SELECT new com.example.fooddelivery.dto.ObservationKey(w.wmoCode, w.timestamp) FROM WeatherData w "
+            + "WHERE w.wmoCode IN :wmoCodes AND w.timestamp IN :timestamps")
+    List<ObservationKey> findKeysByWmoCodeInAndTimestampIn(@Param("wmoCodes") Collection<Integer> wmoCodes,
+                                                           @Param("timestamps") Collection<LocalDateTime> timestamps);
+
+    /**
+     * Finds the latest observation of every station. Stations with several observations at their latest timestamp
+     * return all of them.
+     */
+    @Query("SELECT w FROM WeatherData w WHERE w.timestamp = "
+            + "(SELECT MAX(l.timestamp) FROM WeatherData l WHERE l.stationName = w.stationName)")
+    List<WeatherData> findLatestOfEachStation();
+
+    /**
+     * Finds the highest stored observation id, 0 if none is stored.
+     */
+    @Query("SELECT COALESCE(MAX(w.id), 0) FROM WeatherData w")
+    long findMaxId();
+
+    Optional<WeatherData> findFirstByStationNameAndTimestampLessThanEqualOrderByTimestampDesc(String stationName,
+                                                                                              LocalDateTime timestamp);
+
+    List<WeatherData> findByStationNameAndTimestampBetweenOrderByTimestampAsc(String stationName,
+                                                                              LocalDateTime from,
+                                                                              LocalDateTime to);
+
+    Optional<WeatherData> findFirstByStationIdAndTimestampLessThanEqualOrderByTimestampDesc(Long stationId,
+                                                                                            LocalDateTime timestamp);
+
+    List<WeatherData> findByStationIdAndTimestampBetweenOrderByTimestampAsc(Long stationId, LocalDateTime from,
+                                                                            LocalDateTime to);
+
+    /**
+     * Sets the station id of the observations of mapped stations that were stored before their station was mapped.
+     *
+     * @return The number of observations updated.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WeatherData w SET w.stationId = "
+            + "(SELECT s.id FROM WeatherStation s WHERE s.stationName = w.stationName) "
+            + "WHERE w.stationId IS NULL AND w.stationName IN (SELECT s.stationName FROM WeatherStation s)")
+    int assignUnresolvedStationIds();
+
+    /**
+     * Unlinks the observations of a station that is unmapped or renamed.
+     *
+     * @return The number of observations updated.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WeatherData w SET w.stationId = NULL WHERE w.stationId = :stationId")
+    int clearStationId(@Param("stationId") Long stationId);
+
+    /**
+     * Finds the oldest observations before the given time, a page at a time.
+     */
+    List<WeatherData> findByTimestampBeforeOrderByTimestampAscIdAsc(LocalDateTime timestamp, Pageable pageable);
 }
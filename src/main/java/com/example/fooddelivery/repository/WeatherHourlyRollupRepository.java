@@ -0,0 +1,21 @@
+package com.example.fooddelivery.repository;
+
+import com.example.fooddelivery.entity.WeatherHourlyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WeatherHourlyRollupRepository extends JpaRepository<WeatherHourlyRollup, Long> {
+    List<WeatherHourlyRollup> findByHourStartBetween(LocalDateTime from, LocalDateTime to);
+
+    Optional<WeatherHourlyRollup> findFirstByStationNameAndHourStartLessThanEqualOrderByHourStartDesc(
+            String stationName, LocalDateTime hourStart);
+
+    List<WeatherHourlyRollup> findByStationNameAndHourStartBetweenOrderByHourStartAsc(String stationName,
+                                                                                     LocalDateTime from,
+                                                                                     LocalDateTime to);
+}
@@ -0,0 +1,57 @@
+package com.example.fooddelivery.repository;
+
+import com.example.fooddelivery.entity.WeatherImportLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface WeatherImportLeaseRepository extends JpaRepository<WeatherImportLease, String> {
+
+    /**
+     * Takes or renews a lease in a single conditional update, so that of several instances racing for a free lease
+     * exactly one succeeds.
+     *
+     * @param name        The lease name.
+     * @param owner       The instance taking the lease.
+     * @param now         The current time; a lease held by another instance is free once it has expired.
+     * @param leasedUntil The time the lease expires unless renewed.
+     * @return 1 if the instance now holds the lease, 0 if another instance does.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WeatherImportLease l SET l.owner = :owner, l.leasedUntil = :leasedUntil "
+            + "WHERE l.name = :name AND (l.owner = :owner OR l.leasedUntil IS NULL OR l.leasedUntil < :now)")
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now,
+                   @Param("leasedUntil") LocalDateTime leasedUntil);
+
+    /**
+     * Frees a lease if the instance still holds it.
+     *
+     * @return 1 if the lease was freed, 0 if the instance did not hold it.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WeatherImportLease l SET l.leasedUntil = NULL WHERE l.name = :name AND l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner);
+
+    /**
+     * Announces newly stored weather data to the other instances.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WeatherImportLease l SET l.dataVersion = l.dataVersion + 1 WHERE l.name = :name")
+    int incrementDataVersion(@Param("name") String name);
+
+    /**
+     * Reads the version of the stored weather data, a single primary key lookup cheap enough to poll.
+     */
+    @Query("SELECT l.dataVersion FROM WeatherImportLease l WHERE l.name = :name")
+    Optional<Long> findDataVersion(@Param("name") String name);
+}
@@ -0,0 +1,12 @@
+package com.example.fooddelivery.repository;
+
+import com.example.fooddelivery.entity.WeatherStation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface WeatherStationRepository extends JpaRepository<WeatherStation, Long> {
+    Optional<WeatherStation> findByStationName(String stationName);
+}
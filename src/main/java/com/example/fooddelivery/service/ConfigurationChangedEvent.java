@@ -0,0 +1,8 @@
+package com.example.fooddelivery.service;
+
+/**
+ * Published by {@link FeeRuleCache} and {@link WeatherStationCache} after this instance changed the fee rules or the
+ * station-to-city mapping, so that {@link WeatherImportCoordinator} can announce the change to the other instances.
+ */
+public record ConfigurationChangedEvent() {
+}
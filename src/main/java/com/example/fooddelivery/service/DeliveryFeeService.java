@@ -1,21 +1,35 @@
 package com.example.fooddelivery.service;
 
+import com.example.fooddelivery.dto.DeliveryFeeBatchResult;
 import com.example.fooddelivery.dto.DeliveryFeeRequest;
 import com.example.fooddelivery.dto.DeliveryFeeResponse;
-import com.example.fooddelivery.entity.BaseFee;
-import com.example.fooddelivery.entity.ExtraFee;
+import com.example.fooddelivery.dto.FeeQuoteStatus;
 import com.example.fooddelivery.entity.WeatherData;
+import com.example.fooddelivery.entity.WeatherHourlyRollup;
+import com.example.fooddelivery.entity.WeatherStation;
 import com.example.fooddelivery.exception.BaseFeeNotFoundException;
 import com.example.fooddelivery.exception.InvalidVehicleException;
-import com.example.fooddelivery.repository.BaseFeeRepository;
-import com.example.fooddelivery.repository.ExtraFeeRepository;
 import com.example.fooddelivery.repository.WeatherDataRepository;
+import com.example.fooddelivery.repository.WeatherHourlyRollupRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class DeliveryFeeService {
@@ -23,79 +37,545 @@ public class DeliveryFeeService {
     private static final String USAGE_FORBIDDEN_MESSAGE =
             "Usage of selected vehicle type is forbidden due to weather conditions";
 
+    private static final FeeQuoteResult FORBIDDEN_RESULT = FeeQuoteResult.forbidden(USAGE_FORBIDDEN_MESSAGE);
+
+    private static final String INVALID_REQUEST_MESSAGE = "Invalid request: city and vehicleType must not be empty";
+
     private static final Logger logger = LoggerFactory.getLogger(DeliveryFeeService.class);
 
-    private final BaseFeeRepository baseFeeRepository;
-    private final ExtraFeeRepository extraFeeRepository;
+    private static final String PHASE_TIMER = "delivery.fee.phase";
+    private static final String QUOTE_COUNTER = "delivery.fee.quotes";
+
+    private final FeeRuleCache feeRuleCache;
+    private final LatestWeatherCache latestWeatherCache;
+    private final WeatherStationCache weatherStationCache;
     private final WeatherDataRepository weatherDataRepository;
+    private final WeatherHourlyRollupRepository weatherHourlyRollupRepository;
+
+    private final FeeQuoteEncoder feeQuoteEncoder;
+
+    private final Timer ruleLookupTimer;
+    private final Timer weatherLookupTimer;
+    private final Timer feeEvaluationTimer;
+    private final Timer serializationTimer;
 
-    public DeliveryFeeService(BaseFeeRepository baseFeeRepository,
-                              ExtraFeeRepository extraFeeRepository,
-                              WeatherDataRepository weatherDataRepository) {
-        this.baseFeeRepository = baseFeeRepository;
-        this.extraFeeRepository = extraFeeRepository;
+    /**
+     * Quote outcome counters, indexed by {@link FeeQuoteStatus#ordinal()}.
+     */
+    private final Counter[] quoteCounters;
+
+    private final AtomicLong feeMatrixVersion = new AtomicLong();
+    private volatile FeeMatrix feeMatrix = FeeMatrix.EMPTY;
+
+    public DeliveryFeeService(FeeRuleCache feeRuleCache, LatestWeatherCache latestWeatherCache,
+                              WeatherStationCache weatherStationCache, WeatherDataRepository weatherDataRepository,
+                              WeatherHourlyRollupRepository weatherHourlyRollupRepository,
+                              FeeQuoteEncoder feeQuoteEncoder, MeterRegistry meterRegistry) {
+        this.feeRuleCache = feeRuleCache;
+        this.latestWeatherCache = latestWeatherCache;
+        this.weatherStationCache = weatherStationCache;
         this.weatherDataRepository = weatherDataRepository;
+        this.weatherHourlyRollupRepository = weatherHourlyRollupRepository;
+        this.feeQuoteEncoder = feeQuoteEncoder;
+
+        this.ruleLookupTimer = phaseTimer(meterRegistry, "rule_lookup",
+                "Resolving a quote from the fee rules or the precomputed fee matrix");
+        this.weatherLookupTimer = phaseTimer(meterRegistry, "weather_lookup",
+                "Loading the weather observations a quote depends on");
+        this.feeEvaluationTimer = phaseTimer(meterRegistry, "fee_evaluation",
+                "Applying the base and extra fee rules to a weather observation");
+        this.serializationTimer = phaseTimer(meterRegistry, "serialization",
+                "Encoding the JSON response of a successful quote");
+
+        this.quoteCounters = new Counter[FeeQuoteStatus.values().length];
+        for (FeeQuoteStatus status : FeeQuoteStatus.values()) {
+            quoteCounters[status.ordinal()] = Counter.builder(QUOTE_COUNTER)
+                    .description("Delivery fee quotes by outcome")
+                    .tag("outcome", outcomeTag(status))
+                    .register(meterRegistry);
+        }
+    }
+
+    private static Timer phaseTimer(MeterRegistry meterRegistry, String phase, String description) {
+        return Timer.builder(PHASE_TIMER)
+                .description(description)
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static String outcomeTag(FeeQuoteStatus status) {
+        return switch (status) {
+            case OK -> "ok";
+            case FORBIDDEN -> "forbidden";
+            case NO_BASE_FEE -> "not_found";
+            case INVALID_REQUEST -> "invalid";
+        };
+    }
+
+    private void countQuote(FeeQuoteStatus status) {
+        quoteCounters[status.ordinal()].increment();
     }
 
     /**
      * Calculates the total delivery fee based on base fees and applicable extra fees.
+     * The result is read from the precomputed {@link FeeMatrix}, so a quote is a constant-time lookup that returns
+     * a shared result. Forbidden vehicle types and missing base fees are reported in the result, not thrown.
+     * <p>
+     * If the request has an order time, the fee is instead recomputed against the weather observed at or before
+     * that time, using the current fee rules.
      *
-     * @param deliveryFeeRequest The request containing city and vehicle type.
-     * @return DeliveryFeeResponse containing the total fee.
+     * @param deliveryFeeRequest The request containing city, vehicle type and optionally the order time.
+     * @return The quote result. Its response, if any, must not be modified.
      */
-    public DeliveryFeeResponse calculateDeliveryFee(DeliveryFeeRequest deliveryFeeRequest) {
+    public FeeQuoteResult calculateDeliveryFee(DeliveryFeeRequest deliveryFeeRequest) {
         String city = deliveryFeeRequest.getCity();
         String vehicleType = deliveryFeeRequest.getVehicleType();
 
-        Double baseFee = getBaseFee(city, vehicleType);
-        Double extraFee = getExtraFees(city, vehicleType);
+        if (deliveryFeeRequest.getOrderTime() != null) {
+            FeeQuoteResult result = calculateHistoricalDeliveryFee(city, vehicleType,
+                    deliveryFeeRequest.getOrderTime());
+            countQuote(result.status());
+            return result;
+        }
+
+        long started = System.nanoTime();
+        FeeMatrix matrix = getFeeMatrix();
+        int cell = matrix.cellOf(city, vehicleType);
+        FeeQuoteResult result = cell < 0
+                ? FeeQuoteResult.noBaseFee(noBaseFeeMessage(city, vehicleType))
+                : matrix.resultOf(cell);
+        ruleLookupTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        countQuote(result.status());
+        return result;
+    }
+
+    /**
+     * Calculates delivery fees for a batch of requests. Each distinct (city, vehicleType) pair is evaluated once
+     * against a single fee matrix, and every request gets its own result in input order. Invalid, forbidden and
+     * not-found cases are reported per item instead of failing the whole batch.
+     * <p>
+     * Requests with an order time are repriced against historical weather in bulk: the observations of each city
+     * covering all of its order times are loaded at once and each order is resolved with a binary search.
+     *
+     * @param deliveryFeeRequests The requests containing city, vehicle type and optionally the order time.
+     * @return One result per request, in the same order.
+     */
+    public List<DeliveryFeeBatchResult> calculateDeliveryFees(List<DeliveryFeeRequest> deliveryFeeRequests) {
+        FeeMatrix matrix = getFeeMatrix();
+        Map<String, Map<String, DeliveryFeeBatchResult>> evaluated = new HashMap<>();
+        Map<String, List<Integer>> historicalByCity = new HashMap<>();
+        List<DeliveryFeeBatchResult> results = new ArrayList<>(deliveryFeeRequests.size());
+
+        for (DeliveryFeeRequest request : deliveryFeeRequests) {
+            if (!isValid(request)) {
+                results.add(toInvalidResult(request));
+                continue;
+            }
+
+            if (request.getOrderTime() != null) {
+                historicalByCity.computeIfAbsent(request.getCity(), city -> new ArrayList<>()).add(results.size());
+                results.add(null);
+                continue;
+            }
+
+            results.add(evaluated.computeIfAbsent(request.getCity(), city -> new HashMap<>())
+                    .computeIfAbsent(request.getVehicleType(),
+                            vehicleType -> toBatchResult(matrix, request.getCity(), vehicleType)));
+        }
+
+        historicalByCity.forEach((city, indexes) -> repriceHistorical(city, indexes, deliveryFeeRequests, results));
+        for (DeliveryFeeBatchResult result : results) {
+            countQuote(result.getStatus());
+        }
+
+        logger.info("Calculated {} delivery fees from {} distinct city and vehicle type pairs and {} historical orders",
+                results.size(), evaluated.values().stream().mapToInt(Map::size).sum(),
+                historicalByCity.values().stream().mapToInt(List::size).sum());
+
+        return results;
+    }
+
+    /**
+     * Calculates the delivery fee for a single request without throwing for expected outcomes.
+     * Used by streaming callers that need one result per input line.
+     *
+     * @param deliveryFeeRequest The request containing city and vehicle type, or null if it could not be read.
+     * @return The result for the request.
+     */
+    public DeliveryFeeBatchResult calculateDeliveryFeeResult(DeliveryFeeRequest deliveryFeeRequest) {
+        if (!isValid(deliveryFeeRequest)) {
+            countQuote(FeeQuoteStatus.INVALID_REQUEST);
+            return toInvalidResult(deliveryFeeRequest);
+        }
+
+        if (deliveryFeeRequest.getOrderTime() != null) {
+            return toBatchResult(deliveryFeeRequest.getCity(), deliveryFeeRequest.getVehicleType(),
+                    calculateDeliveryFee(deliveryFeeRequest));
+        }
+
+        DeliveryFeeBatchResult result = toBatchResult(getFeeMatrix(), deliveryFeeRequest.getCity(),
+                deliveryFeeRequest.getVehicleType());
+        countQuote(result.getStatus());
+        return result;
+    }
+
+    private boolean isValid(DeliveryFeeRequest request) {
+        return request != null && request.getCity() != null && !request.getCity().isBlank()
+                && request.getVehicleType() != null && !request.getVehicleType().isBlank();
+    }
+
+    private DeliveryFeeBatchResult toInvalidResult(DeliveryFeeRequest request) {
+        return new DeliveryFeeBatchResult(request != null ? request.getCity() : null,
+                request != null ? request.getVehicleType() : null, FeeQuoteStatus.INVALID_REQUEST,
+                null, INVALID_REQUEST_MESSAGE);
+    }
+
+    private DeliveryFeeBatchResult toBatchResult(FeeMatrix matrix, String city, String vehicleType) {
+        long started = System.nanoTime();
+        int cell = matrix.cellOf(city, vehicleType);
+        FeeQuoteStatus status = matrix.statusOf(cell);
+        ruleLookupTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
 
-        Double totalFee = baseFee + extraFee;
+        if (cell < 0) {
+            return new DeliveryFeeBatchResult(city, vehicleType, status, null, noBaseFeeMessage(city, vehicleType));
+        }
+
+        return new DeliveryFeeBatchResult(city, vehicleType, status,
+                status == FeeQuoteStatus.OK ? matrix.totalFeeOf(cell) : null, matrix.messageOf(cell));
+    }
 
-        return new DeliveryFeeResponse(String.format("Total delivery fee: %.2f", totalFee), totalFee);
+    private DeliveryFeeBatchResult toBatchResult(String city, String vehicleType, FeeQuoteResult result) {
+        return new DeliveryFeeBatchResult(city, vehicleType, result.status(),
+                result.isOk() ? result.response().getTotalFee() : null, result.statusMessage());
     }
 
     /**
-     * Retrieves the base fee for a given city and vehicle type from the database.
+     * Recomputes the fee of a past order against the weather observed at or before the order time. A station with no
+     * raw observation in effect at the order time, because it has been compacted, is priced against its latest hourly
+     * rollup at or before the order time.
      *
      * @param city        The city for delivery.
      * @param vehicleType The type of vehicle.
-     * @return The base fee amount.
+     * @param orderTime   The time of the order.
+     * @return The quote result.
      */
-    public Double getBaseFee(String city, String vehicleType) {
-        return baseFeeRepository.findByCityAndVehicleType(city, vehicleType)
-                .map(BaseFee::getFee)
-                .orElseThrow(() -> new BaseFeeNotFoundException(
-                        "No base fee found for city: " + city + " and vehicle type: " + vehicleType)
-                );
+    private FeeQuoteResult calculateHistoricalDeliveryFee(String city, String vehicleType, LocalDateTime orderTime) {
+        FeeRuleSnapshot rules = feeRuleCache.getSnapshot();
+        int cityId = rules.cityId(city);
+        int vehicleTypeId = rules.vehicleTypeId(vehicleType);
+        if (Double.isNaN(rules.baseFee(cityId, vehicleTypeId))) {
+            return FeeQuoteResult.noBaseFee(noBaseFeeMessage(city, vehicleType));
+        }
+
+        long started = System.nanoTime();
+        WeatherData weatherData = null;
+        for (WeatherStation station : findStations(city)) {
+            WeatherData observed = findObservationAt(station, orderTime)
+                    .or(() -> weatherHourlyRollupRepository
+                            .findFirstByStationNameAndHourStartLessThanEqualOrderByHourStartDesc(
+                                    station.getStationName(), orderTime)
+                            .map(DeliveryFeeService::toObservation))
+                    .orElse(null);
+            if (observed != null
+                    && (weatherData == null || observed.getTimestamp().isAfter(weatherData.getTimestamp()))) {
+                weatherData = observed;
+            }
+        }
+        weatherLookupTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        return evaluate(rules, cityId, vehicleTypeId, weatherData, false);
     }
 
     /**
-     * Calculates the extra fees based on weather conditions and stored fee rules.
+     * Reprices the historical orders of one city. Loads every observation of the city's stations between the
+     * earliest and latest order time, plus the one in effect at the earliest order time, and evaluates each
+     * distinct (observation, vehicleType) pair once. If no raw observation of a station is in effect at the earliest
+     * order time, because it has been compacted, the station's hourly rollups over the same range are loaded as well.
+     *
+     * @param city     The city of the orders.
+     * @param indexes  Positions of the city's orders in {@code requests} and {@code results}.
+     * @param requests All requests of the batch.
+     * @param results  The batch results, filled in at the given positions.
+     */
+    private void repriceHistorical(String city, List<Integer> indexes, List<DeliveryFeeRequest> requests,
+                                   List<DeliveryFeeBatchResult> results) {
+        FeeRuleSnapshot rules = feeRuleCache.getSnapshot();
+        int cityId = rules.cityId(city);
+
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        for (int index : indexes) {
+            LocalDateTime orderTime = requests.get(index).getOrderTime();
+            from = from == null || orderTime.isBefore(from) ? orderTime : from;
+            to = to == null || orderTime.isAfter(to) ? orderTime : to;
+        }
+
+        long started = System.nanoTime();
+        List<WeatherData> observations = new ArrayList<>();
+        if (cityId >= 0) {
+            for (WeatherStation station : findStations(city)) {
+                String stationName = station.getStationName();
+                Optional<WeatherData> inEffect = findObservationAt(station, from);
+                inEffect.ifPresent(observations::add);
+                observations.addAll(findObservationsBetween(station, from, to));
+                if (inEffect.isEmpty()) {
+                    weatherHourlyRollupRepository
+                            .findFirstByStationNameAndHourStartLessThanEqualOrderByHourStartDesc(stationName, from)
+                            .map(DeliveryFeeService::toObservation)
+                            .ifPresent(observations::add);
+                    for (WeatherHourlyRollup rollup : weatherHourlyRollupRepository
+                            .findByStationNameAndHourStartBetweenOrderByHourStartAsc(stationName, from, to)) {
+                        observations.add(toObservation(rollup));
+                    }
+                }
+            }
+        }
+        weatherLookupTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        WeatherTimeline timeline = new WeatherTimeline(observations);
+
+        Map<String, Map<Integer, DeliveryFeeBatchResult>> evaluated = new HashMap<>();
+        for (int index : indexes) {
+            DeliveryFeeRequest request = requests.get(index);
+            int vehicleTypeId = rules.vehicleTypeId(request.getVehicleType());
+            int observation = timeline.indexAt(request.getOrderTime());
+
+            // Keyed by the requested vehicle type, as every unknown one shares the id -1 but echoes its own name
+            results.set(index, evaluated.computeIfAbsent(request.getVehicleType(), vehicleType -> new HashMap<>())
+                    .computeIfAbsent(observation, ignored -> {
+                        FeeQuoteResult result = Double.isNaN(rules.baseFee(cityId, vehicleTypeId))
+                                ? FeeQuoteResult.noBaseFee(noBaseFeeMessage(city, request.getVehicleType()))
+                                : evaluate(rules, cityId, vehicleTypeId, timeline.observation(observation), false);
+                        return toBatchResult(city, request.getVehicleType(), result);
+                    }));
+        }
+
+        logger.info("Repriced {} historical orders for city: {} against {} weather observations",
+                indexes.size(), city, timeline.size());
+    }
+
+    /**
+     * Stands an hourly rollup in for the observations it compacted: its averages and dominant phenomenon, observed
+     * at the start of the hour.
+     */
+    private static WeatherData toObservation(WeatherHourlyRollup rollup) {
+        return new WeatherData(null, rollup.getStationName(), null, rollup.getWmoCode(),
+                rollup.getAvgAirTemperature(), rollup.getAvgWindSpeed(), rollup.getDominantPhenomenon(),
+                rollup.getHourStart());
+    }
+
+    /**
+     * Finds the weather stations serving a city.
+     *
+     * @param city The city for delivery.
+     * @return The stations mapped to the city or, if it has none, unmapped stations (without an id) with a latest
+     * observation whose names contain the city name, ignoring case.
+     */
+    private List<WeatherStation> findStations(String city) {
+        List<WeatherStation> mapped = weatherStationCache.findStations(city);
+        if (!mapped.isEmpty()) {
+            return mapped;
+        }
+        String needle = city.toLowerCase(Locale.ROOT);
+        return latestWeatherCache.getLatestByStation().keySet().stream()
+                .filter(stationName -> stationName.toLowerCase(Locale.ROOT).contains(needle))
+                .map(stationName -> new WeatherStation(stationName, city))
+                .toList();
+    }
+
+    /**
+     * Finds the latest observation of a station at or before the given time, by the station's id if it is mapped.
+     */
+    private Optional<WeatherData> findObservationAt(WeatherStation station, LocalDateTime time) {
+        return station.getId() != null
+                ? weatherDataRepository.findFirstByStationIdAndTimestampLessThanEqualOrderByTimestampDesc(
+                        station.getId(), time)
+                : weatherDataRepository.findFirstByStationNameAndTimestampLessThanEqualOrderByTimestampDesc(
+                        station.getStationName(), time);
+    }
+
+    /**
+     * Finds the observations of a station within the given times, by the station's id if it is mapped.
+     */
+    private List<WeatherData> findObservationsBetween(WeatherStation station, LocalDateTime from, LocalDateTime to) {
+        return station.getId() != null
+                ? weatherDataRepository.findByStationIdAndTimestampBetweenOrderByTimestampAsc(station.getId(), from, to)
+                : weatherDataRepository.findByStationNameAndTimestampBetweenOrderByTimestampAsc(
+                        station.getStationName(), from, to);
+    }
+
+    /**
+     * Returns the fee matrix currently used for quotes, building it first if it has never been built.
+     *
+     * @return The current fee matrix.
+     */
+    public FeeMatrix getFeeMatrix() {
+        FeeMatrix matrix = feeMatrix;
+        if (matrix == FeeMatrix.EMPTY) {
+            rebuildFeeMatrix();
+            matrix = feeMatrix;
+        }
+        return matrix;
+    }
+
+    /**
+     * Precomputes the quote outcome of every (city, vehicleType) pair from the current rule snapshot and the
+     * latest weather data of each city, encodes the response of every successful quote, then swaps the new matrix
+     * in. Replacing the matrix also drops the responses encoded for the previous rules and weather.
+     * Runs on startup, after every fee rule change, after every weather import that stored new data and after
+     * reloading the data another instance imported.
+     */
+    @EventListener({ApplicationReadyEvent.class, FeeRulesRefreshedEvent.class, WeatherDataImportedEvent.class,
+            WeatherDataReloadedEvent.class, WeatherStationsRefreshedEvent.class})
+    public synchronized void rebuildFeeMatrix() {
+        FeeRuleSnapshot rules = feeRuleCache.getSnapshot();
+        SymbolTable cities = rules.cityTable();
+        SymbolTable vehicleTypes = rules.vehicleTypeTable();
+
+        FeeQuoteResult[] results = new FeeQuoteResult[cities.size() * vehicleTypes.size()];
+        double[] totalFees = new double[results.length];
+        LocalDateTime weatherTimestamp = null;
+
+        for (int cityId = 0; cityId < cities.size(); cityId++) {
+            String city = cities.symbolOf(cityId);
+            WeatherData weatherData = findLatestWeatherData(city);
+            if (weatherData != null && weatherData.getTimestamp() != null
+                    && (weatherTimestamp == null || weatherData.getTimestamp().isAfter(weatherTimestamp))) {
+                weatherTimestamp = weatherData.getTimestamp();
+            }
+
+            for (int vehicleTypeId = 0; vehicleTypeId < vehicleTypes.size(); vehicleTypeId++) {
+                int cell = cityId * vehicleTypes.size() + vehicleTypeId;
+
+                results[cell] = Double.isNaN(rules.baseFee(cityId, vehicleTypeId))
+                        ? FeeQuoteResult.noBaseFee(noBaseFeeMessage(city, vehicleTypes.symbolOf(vehicleTypeId)))
+                        : evaluate(rules, cityId, vehicleTypeId, weatherData, true);
+                if (results[cell].isOk()) {
+                    totalFees[cell] = results[cell].response().getTotalFee();
+                    results[cell] = results[cell].withETag(quoteETag(rules, cell, weatherData))
+                            .withWeatherObservedAt(weatherData != null ? weatherData.getTimestamp() : null);
+                }
+            }
+        }
+
+        FeeMatrix rebuilt = new FeeMatrix(feeMatrixVersion.incrementAndGet(), rules.getVersion(), weatherTimestamp,
+                cities, vehicleTypes, totalFees, results);
+        feeMatrix = rebuilt;
+
+        logger.info("Built fee matrix version {} for {} cities and {} vehicle types (weather as of {})",
+                rebuilt.getVersion(), cities.size(), vehicleTypes.size(), weatherTimestamp);
+    }
+
+    /**
+     * Derives the entity tag of a successful quote from the rule content and the station and timestamp of the
+     * weather observation it was computed from. Rebuilding the matrix without a change to either keeps the tag,
+     * a weather import for one city leaves the tags of other cities untouched, and all instances sharing the
+     * database derive the same tag.
+     *
+     * @param rules       The rule snapshot the matrix is built from.
+     * @param cell        The cell of the quote.
+     * @param weatherData The weather in effect, or null if there is none.
+     * @return The quoted entity tag.
+     */
+    private String quoteETag(FeeRuleSnapshot rules, int cell, WeatherData weatherData) {
+        String weatherVersion = weatherData != null && weatherData.getTimestamp() != null
+                ? weatherData.getWmoCode() + "-" + weatherData.getTimestamp().toEpochSecond(ZoneOffset.UTC)
+                : "0";
+        return "\"quote-" + rules.getContentHash() + "-" + cell + "-" + weatherVersion + "\"";
+    }
+
+    /**
+     * Retrieves the base fee for a given city and vehicle type from the current rule snapshot.
      *
      * @param city        The city for delivery.
      * @param vehicleType The type of vehicle.
-     * @return The extra fee amount.
+     * @return The base fee amount.
      */
-    private Double getExtraFees(String city, String vehicleType) {
-        Optional<WeatherData> latestWeatherData = weatherDataRepository.findByStationNameContaining(city);
+    public Double getBaseFee(String city, String vehicleType) {
+        return feeRuleCache.getSnapshot().findBaseFee(city, vehicleType)
+                .orElseThrow(() -> new BaseFeeNotFoundException(noBaseFeeMessage(city, vehicleType)));
+    }
+
+    private static String noBaseFeeMessage(String city, String vehicleType) {
+        return "No base fee found for city: " + city + " and vehicle type: " + vehicleType;
+    }
 
-        if (latestWeatherData.isEmpty()) {
+    /**
+     * Looks up the most recent weather observation of the station serving a city in the {@link LatestWeatherCache}.
+     *
+     * @param city The city for delivery.
+     * @return The latest weather data, or null if there is none.
+     */
+    private WeatherData findLatestWeatherData(String city) {
+        long started = System.nanoTime();
+        WeatherData latestWeatherData = latestWeatherCache.findLatest(city);
+        weatherLookupTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        if (latestWeatherData == null) {
             logger.warn("No weather data found for city: {}", city);
-            return 0.0;
         }
+        return latestWeatherData;
+    }
 
-        WeatherData weatherData = latestWeatherData.get();
+    /**
+     * Evaluates a quote for a city and vehicle type that has a base fee, under the given weather.
+     *
+     * @param rules         The rule snapshot to apply.
+     * @param cityId        The interned city.
+     * @param vehicleTypeId The interned type of vehicle.
+     * @param weatherData   The weather in effect, or null if there is none.
+     * @param preEncode     Whether a successful response should carry its pre-encoded JSON.
+     * @return The quote result.
+     */
+    private FeeQuoteResult evaluate(FeeRuleSnapshot rules, int cityId, int vehicleTypeId, WeatherData weatherData,
+                                    boolean preEncode) {
+        long started = System.nanoTime();
+        int phenomenonId = weatherData != null ? rules.phenomenonId(weatherData.getWeatherPhenomenon()) : -1;
+        if (weatherData != null && isVehicleForbidden(rules, vehicleTypeId, weatherData, phenomenonId)) {
+            feeEvaluationTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            return FORBIDDEN_RESULT;
+        }
 
-        if (isForbidden(vehicleType, weatherData)) {
-            throw new InvalidVehicleException(USAGE_FORBIDDEN_MESSAGE);
+        double totalFee = rules.baseFee(cityId, vehicleTypeId)
+                + getExtraFees(rules, vehicleTypeId, weatherData, phenomenonId);
+        String statusMessage = String.format("Total delivery fee: %.2f", totalFee);
+        feeEvaluationTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        if (!preEncode) {
+            return FeeQuoteResult.ok(new DeliveryFeeResponse(statusMessage, totalFee));
         }
 
-        Double airTemperatureFee = getAirTemperatureFee(vehicleType, weatherData.getAirTemperature());
-        Double windSpeedFee = getWindSpeedFee(vehicleType, weatherData.getWindSpeed());
-        Double weatherPhenomenonFee = getWeatherPhenomenonFee(vehicleType, weatherData.getWeatherPhenomenon());
+        started = System.nanoTime();
+        DeliveryFeeResponse response = feeQuoteEncoder.encodeQuote(statusMessage, totalFee);
+        serializationTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return FeeQuoteResult.ok(response);
+    }
+
+    /**
+     * Calculates the extra fees based on weather conditions and stored fee rules.
+     * The vehicle type must already be known not to be forbidden.
+     *
+     * @param rules         The rule snapshot the matrix is built from.
+     * @param vehicleTypeId The interned type of vehicle.
+     * @param weatherData   The latest weather data, or null if there is none.
+     * @param phenomenonId  The interned weather phenomenon of the weather data.
+     * @return The extra fee amount.
+     */
+    private double getExtraFees(FeeRuleSnapshot rules, int vehicleTypeId, WeatherData weatherData,
+                                int phenomenonId) {
+        if (weatherData == null) {
+            return 0.0;
+        }
 
-        return airTemperatureFee + windSpeedFee + weatherPhenomenonFee;
+        double extraFees = rules.phenomenonFee(vehicleTypeId, phenomenonId);
+        if (weatherData.getAirTemperature() != null) {
+            extraFees += rules.airTemperatureBands(vehicleTypeId).feeFor(weatherData.getAirTemperature());
+        }
+        if (weatherData.getWindSpeed() != null) {
+            extraFees += rules.windSpeedBands(vehicleTypeId).feeFor(weatherData.getWindSpeed());
+        }
+        return extraFees;
     }
 
     /**
@@ -110,17 +590,8 @@ public class DeliveryFeeService {
             return 0.0;
         }
 
-        List<ExtraFee> airTempFees = extraFeeRepository.findByConditionTypeAndVehicleType(
-                "air_temperature", vehicleType
-        );
-
-        for (ExtraFee fee : airTempFees) {
-            if (airTemperature > fee.getMinValue() && airTemperature < fee.getMaxValue()) {
-                return fee.getFee();
-            }
-        }
-
-        return 0.0;
+        FeeRuleSnapshot rules = feeRuleCache.getSnapshot();
+        return rules.airTemperatureBands(rules.vehicleTypeId(vehicleType)).feeFor(airTemperature);
     }
 
     /**
@@ -135,23 +606,16 @@ public class DeliveryFeeService {
             return 0.0;
         }
 
-        List<ExtraFee> windSpeedFees = extraFeeRepository.findByConditionTypeAndVehicleType(
-                "wind_speed", vehicleType
-        );
+        FeeRuleSnapshot rules = feeRuleCache.getSnapshot();
+        FeeBandIndex windSpeedBands = rules.windSpeedBands(rules.vehicleTypeId(vehicleType));
 
-        for (ExtraFee fee : windSpeedFees) {
-            if (windSpeed > fee.getMaxValue()) {  // Forbidden case
-                logger.error("Vehicle type {} is forbidden due to wind speed {} m/s", vehicleType, windSpeed);
+        if (windSpeedBands.isAboveMax(windSpeed)) {
+            logger.error("Vehicle type {} is forbidden due to wind speed {} m/s", vehicleType, windSpeed);
 
-                throw new InvalidVehicleException(USAGE_FORBIDDEN_MESSAGE);
-            }
-
-            if (windSpeed > fee.getMinValue() && windSpeed < fee.getMaxValue()) {
-                return fee.getFee();
-            }
+            throw new InvalidVehicleException(USAGE_FORBIDDEN_MESSAGE);
         }
 
-        return 0.0;
+        return windSpeedBands.feeFor(windSpeed);
     }
 
     /**
@@ -162,41 +626,33 @@ public class DeliveryFeeService {
      * @return The applicable extra fee.
      */
     Double getWeatherPhenomenonFee(String vehicleType, String weatherPhenomenon) {
-        if (weatherPhenomenon == null || vehicleType == null) {
-            return 0.0;
-        }
+        FeeRuleSnapshot rules = feeRuleCache.getSnapshot();
+        int vehicleTypeId = rules.vehicleTypeId(vehicleType);
+        int phenomenonId = rules.phenomenonId(weatherPhenomenon);
 
-        List<ExtraFee> weatherPhenomenonFees = extraFeeRepository.findByConditionTypeAndVehicleType(
-                "weather_phenomenon", vehicleType
-        );
+        if (rules.isPhenomenonForbidden(vehicleTypeId, phenomenonId)) {
+            logger.error("Vehicle type {} is forbidden due to weather phenomenon '{}'",
+                    vehicleType, weatherPhenomenon);
 
-        for (ExtraFee fee : weatherPhenomenonFees) {
-            if (fee.getWeatherPhenomenon().trim().equalsIgnoreCase(weatherPhenomenon.trim())) {
-                if (Boolean.TRUE.equals(fee.getIsForbidden())) {
-                    logger.error("Vehicle type {} is forbidden due to weather phenomenon '{}'",
-                            vehicleType, weatherPhenomenon);
-
-                    throw new InvalidVehicleException(USAGE_FORBIDDEN_MESSAGE);
-                }
-
-                return fee.getFee();
-            }
+            throw new InvalidVehicleException(USAGE_FORBIDDEN_MESSAGE);
         }
 
-        return 0.0;
+        return rules.phenomenonFee(vehicleTypeId, phenomenonId);
     }
 
     /**
      * Checks if a given vehicle type is forbidden based on weather conditions.
      *
-     * @param vehicleType The type of vehicle.
-     * @param weatherData The current weather data.
+     * @param rules         The rule snapshot the matrix is built from.
+     * @param vehicleTypeId The interned type of vehicle.
+     * @param weatherData   The current weather data.
+     * @param phenomenonId  The interned weather phenomenon of the weather data.
      * @return true if the vehicle type is forbidden under the given weather conditions, false otherwise.
      */
-    private boolean isForbidden(String vehicleType, WeatherData weatherData) {
-        return extraFeeRepository.findByConditionTypeAndVehicleType("weather_phenomenon", vehicleType)
-                .stream()
-                .anyMatch(fee -> fee.getIsForbidden()
-                        && fee.getWeatherPhenomenon().equalsIgnoreCase(weatherData.getWeatherPhenomenon()));
+    private boolean isVehicleForbidden(FeeRuleSnapshot rules, int vehicleTypeId, WeatherData weatherData,
+                                       int phenomenonId) {
+        return rules.isPhenomenonForbidden(vehicleTypeId, phenomenonId)
+                || (weatherData.getWindSpeed() != null
+                && rules.windSpeedBands(vehicleTypeId).isAboveMax(weatherData.getWindSpeed()));
     }
 }
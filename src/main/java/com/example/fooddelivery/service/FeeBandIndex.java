@@ -0,0 +1,140 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.service.FeeRuleSnapshot.ExtraFeeRule;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sorted interval index over the range-based extra fee rules (air temperature, wind speed) of one vehicle type.
+ * <p>
+ * Bands are stored in primitive arrays ordered by their lower bound and resolved with a binary search. Both
+ * bounds are exclusive, exactly like the linear scan in {@link DeliveryFeeService}: a value matches a band when
+ * {@code minValue < value < maxValue}. A missing lower or upper bound is treated as unbounded. Where bands overlap,
+ * the band of the rule supplied first wins, again like the linear scan.
+ */
+final class FeeBandIndex {
+
+    static final FeeBandIndex EMPTY = new FeeBandIndex(new double[0], new double[0], new double[0], new int[0]);
+
+    private final double[] minValues;
+    private final double[] maxValues;
+    private final double[] fees;
+
+    /**
+     * Position of each band's rule among the rules supplied, to let the first of several containing bands win.
+     */
+    private final int[] rows;
+
+    /**
+     * Running maximum of {@code maxValues}; lets a lookup stop as soon as no earlier band can contain the value.
+     */
+    private final double[] maxValuesSoFar;
+
+    private FeeBandIndex(double[] minValues, double[] maxValues, double[] fees, int[] rows) {
+        this.minValues = minValues;
+        this.maxValues = maxValues;
+        this.fees = fees;
+        this.rows = rows;
+        this.maxValuesSoFar = new double[maxValues.length];
+
+        double runningMax = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < maxValues.length; i++) {
+            runningMax = Math.max(runningMax, maxValues[i]);
+            maxValuesSoFar[i] = runningMax;
+        }
+    }
+
+    /**
+     * Builds an index from the given range rules.
+     *
+     * @param rules The extra fee rules of one condition type and vehicle type.
+     * @return A new index, or {@link #EMPTY} if there are no rules.
+     */
+    static FeeBandIndex of(List<ExtraFeeRule> rules) {
+        if (rules.isEmpty()) {
+            return EMPTY;
+        }
+
+        Integer[] sorted = new Integer[rules.size()];
+        for (int row = 0; row < sorted.length; row++) {
+            sorted[row] = row;
+        }
+        Arrays.sort(sorted, Comparator.comparingDouble(row -> lowerBound(rules.get(row))));
+
+        double[] minValues = new double[sorted.length];
+        double[] maxValues = new double[sorted.length];
+        double[] fees = new double[sorted.length];
+        int[] rows = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            ExtraFeeRule rule = rules.get(sorted[i]);
+            minValues[i] = lowerBound(rule);
+            maxValues[i] = upperBound(rule);
+            fees[i] = rule.fee() != null ? rule.fee() : 0.0;
+            rows[i] = sorted[i];
+        }
+
+        return new FeeBandIndex(minValues, maxValues, fees, rows);
+    }
+
+    /**
+     * Returns the fee of the band containing the given value.
+     *
+     * @param value The measured value.
+     * @return The fee of the matching band, or 0.0 if no band matches.
+     */
+    double feeFor(double value) {
+        int band = findBand(value);
+        return band >= 0 ? fees[band] : 0.0;
+    }
+
+    /**
+     * Checks whether the value lies above the upper bound of every band, which forbids the vehicle type.
+     *
+     * @param value The measured value.
+     * @return true if there is at least one band and the value exceeds all upper bounds.
+     */
+    boolean isAboveMax(double value) {
+        return maxValues.length > 0 && value > maxValuesSoFar[maxValuesSoFar.length - 1];
+    }
+
+    int size() {
+        return minValues.length;
+    }
+
+    private int findBand(double value) {
+        // Index of the last band whose lower bound is strictly below the value.
+        int low = 0;
+        int high = minValues.length - 1;
+        int candidate = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (minValues[mid] < value) {
+                candidate = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        // Non-overlapping bands resolve on the first iteration; overlapping ones walk back only while an
+        // earlier band can still reach past the value, keeping the containing band supplied first.
+        int match = -1;
+        for (int i = candidate; i >= 0 && maxValuesSoFar[i] > value; i--) {
+            if (value < maxValues[i] && (match < 0 || rows[i] < rows[match])) {
+                match = i;
+            }
+        }
+
+        return match;
+    }
+
+    private static double lowerBound(ExtraFeeRule rule) {
+        return rule.minValue() != null ? rule.minValue() : Double.NEGATIVE_INFINITY;
+    }
+
+    private static double upperBound(ExtraFeeRule rule) {
+        return rule.maxValue() != null ? rule.maxValue() : Double.POSITIVE_INFINITY;
+    }
+}
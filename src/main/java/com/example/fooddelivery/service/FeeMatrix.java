@@ -0,0 +1,127 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.dto.FeeQuoteStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable, precomputed quote outcome for every (city, vehicleType) pair known to the fee rules.
+ * <p>
+ * Rows and columns are the interned city and vehicle type ids of the {@link FeeRuleSnapshot} the matrix was built
+ * from, and cells are stored row-major in flat arrays. Every cell holds a shared {@link FeeQuoteResult}, which for
+ * successful quotes carries a pre-encoded response. Resolving a quote is therefore two symbol lookups and array
+ * reads, with nothing to format, box, serialize or throw. A matrix is rebuilt whenever the fee rules change or new
+ * weather data is imported.
+ */
+public final class FeeMatrix {
+
+    public static final FeeMatrix EMPTY = new FeeMatrix(0L, 0L, null, SymbolTable.EMPTY, SymbolTable.EMPTY,
+            new double[0], new FeeQuoteResult[0]);
+
+    private final long version;
+    private final long ruleVersion;
+    private final LocalDateTime weatherTimestamp;
+    private final SymbolTable cities;
+    private final SymbolTable vehicleTypes;
+    private final double[] totalFees;
+    private final FeeQuoteResult[] results;
+
+    /**
+     * Creates a matrix from precomputed cells.
+     *
+     * @param version          The version number of this matrix.
+     * @param ruleVersion      The version of the {@link FeeRuleSnapshot} the cells were computed from.
+     * @param weatherTimestamp The newest weather observation used, or null if there was none.
+     * @param cities           The row labels.
+     * @param vehicleTypes     The column labels.
+     * @param totalFees        Total fee per cell, indexed {@code row * vehicleTypes.size() + column}. Only
+     *                         meaningful where the status is {@link FeeQuoteStatus#OK}.
+     * @param results          Shared quote result per cell, indexed like {@code totalFees}.
+     */
+    FeeMatrix(long version, long ruleVersion, LocalDateTime weatherTimestamp, SymbolTable cities,
+              SymbolTable vehicleTypes, double[] totalFees, FeeQuoteResult[] results) {
+        if (results.length != cities.size() * vehicleTypes.size() || totalFees.length != results.length) {
+            throw new IllegalArgumentException("Fee matrix cells do not match its dimensions");
+        }
+
+        this.version = version;
+        this.ruleVersion = ruleVersion;
+        this.weatherTimestamp = weatherTimestamp;
+        this.cities = cities;
+        this.vehicleTypes = vehicleTypes;
+        this.totalFees = totalFees;
+        this.results = results;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getRuleVersion() {
+        return ruleVersion;
+    }
+
+    public LocalDateTime getWeatherTimestamp() {
+        return weatherTimestamp;
+    }
+
+    /**
+     * Resolves the cell of a city and vehicle type.
+     *
+     * @param city        The city for delivery.
+     * @param vehicleType The type of vehicle.
+     * @return The cell index, or -1 if the pair is not part of the matrix.
+     */
+    public int cellOf(String city, String vehicleType) {
+        int row = cities.idOf(city);
+        int column = vehicleTypes.idOf(vehicleType);
+        if (row < 0 || column < 0) {
+            return -1;
+        }
+        return row * vehicleTypes.size() + column;
+    }
+
+    /**
+     * Returns the quote outcome of a cell. Pairs outside the matrix have no base fee.
+     *
+     * @param cell A cell index from {@link #cellOf(String, String)}.
+     * @return The quote outcome.
+     */
+    public FeeQuoteStatus statusOf(int cell) {
+        return cell < 0 ? FeeQuoteStatus.NO_BASE_FEE : results[cell].status();
+    }
+
+    /**
+     * Returns the total fee of a cell whose status is {@link FeeQuoteStatus#OK}.
+     *
+     * @param cell A cell index from {@link #cellOf(String, String)}.
+     * @return The total delivery fee.
+     */
+    public double totalFeeOf(int cell) {
+        return totalFees[cell];
+    }
+
+    /**
+     * Returns the status message rendered for a cell when the matrix was built.
+     *
+     * @param cell A cell index from {@link #cellOf(String, String)}, not -1.
+     * @return The status message.
+     */
+    public String messageOf(int cell) {
+        return results[cell].statusMessage();
+    }
+
+    /**
+     * Returns the result shared by all quotes of a cell. Its response must not be modified.
+     *
+     * @param cell A cell index from {@link #cellOf(String, String)}, not -1.
+     * @return The quote result.
+     */
+    public FeeQuoteResult resultOf(int cell) {
+        return results[cell];
+    }
+
+    public int size() {
+        return results.length;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.dto.DeliveryFeeResponse;
+import com.example.fooddelivery.dto.ErrorResponse;
+import com.example.fooddelivery.dto.PreEncodedDeliveryFeeResponse;
+import com.example.fooddelivery.dto.PreEncodedErrorResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Serializes quote and error bodies once, with the application's {@link ObjectMapper}, so they can be cached and
+ * written without going through Jackson again. Encoding failures are logged and leave the body to be serialized
+ * normally.
+ */
+@Service
+public class FeeQuoteEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeeQuoteEncoder.class);
+
+    /**
+     * Message and details of the error returned when a quote cannot be served.
+     */
+    public static final String CALCULATION_FAILED_MESSAGE = "Failed to calculate delivery fee";
+
+    private static final byte[] NULL_TIMESTAMP_HEAD = "{\"timestamp\":null".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final byte[] calculationFailureTail;
+
+    public FeeQuoteEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.calculationFailureTail = encodeErrorTail(CALCULATION_FAILED_MESSAGE, CALCULATION_FAILED_MESSAGE,
+                HttpStatus.INTERNAL_SERVER_ERROR.value());
+    }
+
+    /**
+     * Builds a quote response that carries its own JSON.
+     *
+     * @param statusMessage The status message of the quote.
+     * @param totalFee      The total delivery fee.
+     * @return The pre-encoded response, or a plain response if encoding failed.
+     */
+    public DeliveryFeeResponse encodeQuote(String statusMessage, double totalFee) {
+        DeliveryFeeResponse response = new DeliveryFeeResponse(statusMessage, totalFee);
+        try {
+            return new PreEncodedDeliveryFeeResponse(statusMessage, totalFee,
+                    objectMapper.writeValueAsBytes(response));
+        } catch (JsonProcessingException ex) {
+            logger.warn("Could not pre-encode delivery fee response: {}", ex.getOriginalMessage());
+            return response;
+        }
+    }
+
+    /**
+     * Builds the error body returned when a quote cannot be served, from its pre-encoded fields.
+     *
+     * @return The calculation failure error response, timestamped now.
+     */
+    public ErrorResponse calculationFailure() {
+        return encodeError(LocalDateTime.now(), CALCULATION_FAILED_MESSAGE, CALCULATION_FAILED_MESSAGE,
+                HttpStatus.INTERNAL_SERVER_ERROR.value(), calculationFailureTail);
+    }
+
+    /**
+     * Serializes everything of an error body that follows the timestamp.
+     *
+     * @param message    The error message.
+     * @param details    The error details.
+     * @param statusCode The HTTP status code.
+     * @return The serialized tail, or null if the error body cannot be split after its timestamp.
+     */
+    private byte[] encodeErrorTail(String message, String details, int statusCode) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(new ErrorResponse(null, message, details, statusCode));
+            if (json.length < NULL_TIMESTAMP_HEAD.length
+                    || !Arrays.equals(json, 0, NULL_TIMESTAMP_HEAD.length, NULL_TIMESTAMP_HEAD, 0,
+                    NULL_TIMESTAMP_HEAD.length)) {
+                logger.warn("Error responses do not start with their timestamp, not pre-encoding them");
+                return null;
+            }
+            return Arrays.copyOfRange(json, NULL_TIMESTAMP_HEAD.length, json.length);
+        } catch (JsonProcessingException ex) {
+            logger.warn("Could not pre-encode error response: {}", ex.getOriginalMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Builds an error response from a tail returned by {@link #encodeErrorTail(String, String, int)}.
+     *
+     * @param timestamp  The time of the error.
+     * @param message    The error message.
+     * @param details    The error details.
+     * @param statusCode The HTTP status code.
+     * @param tail       The pre-encoded tail, may be null.
+     * @return The pre-encoded error response, or a plain one if it cannot be pre-encoded.
+     */
+    private ErrorResponse encodeError(LocalDateTime timestamp, String message, String details, int statusCode,
+                                      byte[] tail) {
+        if (tail != null) {
+            try {
+                return new PreEncodedErrorResponse(timestamp, message, details, statusCode,
+                        objectMapper.writeValueAsBytes(timestamp), tail);
+            } catch (JsonProcessingException ex) {
+                logger.warn("Could not encode error timestamp: {}", ex.getOriginalMessage());
+            }
+        }
+        return new ErrorResponse(timestamp, message, details, statusCode);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.dto.DeliveryFeeResponse;
+import com.example.fooddelivery.dto.FeeQuoteStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a single delivery fee quote. Expected outcomes such as a forbidden vehicle type or a missing base fee
+ * are reported through the status instead of an exception.
+ *
+ * @param status            The quote outcome.
+ * @param statusMessage     The human-readable status message.
+ * @param response          The response to return to the client, only present when the status is
+ *                          {@link FeeQuoteStatus#OK}.
+ * @param eTag              The quoted entity tag identifying the response, or null if the response cannot be
+ *                          revalidated.
+ * @param weatherObservedAt The timestamp of the weather observation a current quote was computed from, or null if
+ *                          there was none or the quote is for a past order time.
+ */
+public record FeeQuoteResult(FeeQuoteStatus status, String statusMessage, DeliveryFeeResponse response,
+                             String eTag, LocalDateTime weatherObservedAt) {
+
+    public static FeeQuoteResult ok(DeliveryFeeResponse response) {
+        return new FeeQuoteResult(FeeQuoteStatus.OK, response.getStatusMessage(), response, null, null);
+    }
+
+    public static FeeQuoteResult forbidden(String statusMessage) {
+        return new FeeQuoteResult(FeeQuoteStatus.FORBIDDEN, statusMessage, null, null, null);
+    }
+
+    public static FeeQuoteResult noBaseFee(String statusMessage) {
+        return new FeeQuoteResult(FeeQuoteStatus.NO_BASE_FEE, statusMessage, null, null, null);
+    }
+
+    /**
+     * @return A copy of this result identified by the given entity tag.
+     */
+    public FeeQuoteResult withETag(String eTag) {
+        return new FeeQuoteResult(status, statusMessage, response, eTag, weatherObservedAt);
+    }
+
+    /**
+     * @return A copy of this result computed from the weather observed at the given time.
+     */
+    public FeeQuoteResult withWeatherObservedAt(LocalDateTime weatherObservedAt) {
+        return new FeeQuoteResult(status, statusMessage, response, eTag, weatherObservedAt);
+    }
+
+    public boolean isOk() {
+        return status == FeeQuoteStatus.OK;
+    }
+}
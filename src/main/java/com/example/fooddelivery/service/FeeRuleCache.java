@@ -0,0 +1,75 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.repository.BaseFeeRepository;
+import com.example.fooddelivery.repository.ExtraFeeRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+/**
+ * Holds the current {@link FeeRuleSnapshot} and swaps it atomically whenever the fee rules change.
+ */
+@Service
+public class FeeRuleCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeeRuleCache.class);
+
+    private final BaseFeeRepository baseFeeRepository;
+    private final ExtraFeeRepository extraFeeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile FeeRuleSnapshot snapshot = FeeRuleSnapshot.EMPTY;
+
+    public FeeRuleCache(BaseFeeRepository baseFeeRepository, ExtraFeeRepository extraFeeRepository,
+                        ApplicationEventPublisher eventPublisher) {
+        this.baseFeeRepository = baseFeeRepository;
+        this.extraFeeRepository = extraFeeRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Returns the snapshot currently in use. The returned object never changes, so a caller that reads it once
+     * sees a consistent set of rules even if a refresh happens concurrently.
+     *
+     * @return The current rule snapshot.
+     */
+    public FeeRuleSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the entity tag of the current fee rules. It changes whenever the rules change, so rule listings can be
+     * revalidated without reading the rule tables, and it is derived from the rules alone, so every instance sharing
+     * the database answers with the same tag.
+     *
+     * @return The quoted entity tag.
+     */
+    public String getETag() {
+        return "\"rules-" + snapshot.getContentHash() + "\"";
+    }
+
+    /**
+     * Reloads the rules after this instance changed them, and announces the change to the other instances with a
+     * {@link ConfigurationChangedEvent}.
+     */
+    public void refresh() {
+        reload();
+        eventPublisher.publishEvent(new ConfigurationChangedEvent());
+    }
+
+    /**
+     * Reloads all base fee and extra fee rules from the database, publishes them as a new snapshot
+     * and announces the change with a {@link FeeRulesRefreshedEvent}.
+     */
+    @PostConstruct
+    synchronized void reload() {
+        FeeRuleSnapshot refreshed = FeeRuleSnapshot.of(snapshot.getVersion() + 1,
+                baseFeeRepository.findAll(), extraFeeRepository.findAll());
+        snapshot = refreshed;
+
+        logger.info("Loaded fee rule snapshot version {}", refreshed.getVersion());
+        eventPublisher.publishEvent(new FeeRulesRefreshedEvent(refreshed.getVersion()));
+    }
+}
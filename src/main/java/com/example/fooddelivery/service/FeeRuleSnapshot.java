@@ -0,0 +1,348 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.BaseFee;
+import com.example.fooddelivery.entity.ExtraFee;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable, in-memory view of the {@code base_fee} and {@code extra_fee} tables.
+ * <p>
+ * Cities, vehicle types, condition types and weather phenomena are interned to small integer ids when the
+ * snapshot is compiled, and fees are stored in primitive arrays indexed by those ids. Resolving a fee therefore
+ * needs no rule queries, no string comparisons and no boxing.
+ */
+public final class FeeRuleSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeeRuleSnapshot.class);
+
+    public static final FeeRuleSnapshot EMPTY = of(0L, List.of(), List.of());
+
+    private final long version;
+
+    /**
+     * Digest of the rule rows, equal on every instance that loaded the same rules.
+     */
+    private final String contentHash;
+
+    private final SymbolTable cities;
+    private final SymbolTable vehicleTypes;
+    private final SymbolTable phenomena;
+
+    /**
+     * Base fee per {@code cityId * vehicleTypes.size() + vehicleTypeId}, NaN where no rule exists.
+     */
+    private final double[] baseFees;
+
+    private final FeeBandIndex[] airTemperatureBands;
+    private final FeeBandIndex[] windSpeedBands;
+
+    /**
+     * Fee of the first matching weather phenomenon rule per {@code vehicleTypeId * phenomena.size() + phenomenonId}.
+     */
+    private final double[] phenomenonFees;
+
+    /**
+     * Whether any weather phenomenon rule forbids the vehicle type, indexed like {@link #phenomenonFees}.
+     */
+    private final boolean[] phenomenonForbidden;
+
+    private FeeRuleSnapshot(long version, String contentHash, SymbolTable cities, SymbolTable vehicleTypes,
+                            SymbolTable phenomena, double[] baseFees, FeeBandIndex[] airTemperatureBands,
+                            FeeBandIndex[] windSpeedBands, double[] phenomenonFees, boolean[] phenomenonForbidden) {
+        this.version = version;
+        this.contentHash = contentHash;
+        this.cities = cities;
+        this.vehicleTypes = vehicleTypes;
+        this.phenomena = phenomena;
+        this.baseFees = baseFees;
+        this.airTemperatureBands = airTemperatureBands;
+        this.windSpeedBands = windSpeedBands;
+        this.phenomenonFees = phenomenonFees;
+        this.phenomenonForbidden = phenomenonForbidden;
+    }
+
+    /**
+     * Compiles a snapshot from the given rule rows.
+     * <p>
+     * Weather phenomena are matched ignoring surrounding whitespace and case. Where several rules match the same
+     * phenomenon, the first one supplied determines the fee and any forbidding rule forbids the vehicle type.
+     *
+     * @param version   The version number assigned to this snapshot.
+     * @param baseFees  All base fee rows.
+     * @param extraFees All extra fee rows.
+     * @return A new immutable snapshot.
+     */
+    public static FeeRuleSnapshot of(long version, List<BaseFee> baseFees, List<ExtraFee> extraFees) {
+        Set<String> citySymbols = new TreeSet<>();
+        Set<String> vehicleTypeSymbols = new TreeSet<>();
+        Set<String> phenomenonSymbols = new LinkedHashSet<>();
+        for (BaseFee baseFee : baseFees) {
+            citySymbols.add(baseFee.getCity());
+            vehicleTypeSymbols.add(baseFee.getVehicleType());
+        }
+        for (ExtraFee extraFee : extraFees) {
+            vehicleTypeSymbols.add(extraFee.getVehicleType());
+            if (ConditionType.fromCode(extraFee.getConditionType()) == ConditionType.WEATHER_PHENOMENON
+                    && extraFee.getWeatherPhenomenon() != null) {
+                phenomenonSymbols.add(normalizePhenomenon(extraFee.getWeatherPhenomenon()));
+            }
+        }
+
+        SymbolTable cities = new SymbolTable(new ArrayList<>(citySymbols));
+        SymbolTable vehicleTypes = new SymbolTable(new ArrayList<>(vehicleTypeSymbols));
+        SymbolTable phenomena = new SymbolTable(new ArrayList<>(phenomenonSymbols));
+
+        double[] baseFeeTable = new double[cities.size() * vehicleTypes.size()];
+        Arrays.fill(baseFeeTable, Double.NaN);
+        for (BaseFee baseFee : baseFees) {
+            int slot = cities.idOf(baseFee.getCity()) * vehicleTypes.size()
+                    + vehicleTypes.idOf(baseFee.getVehicleType());
+            if (!Double.isNaN(baseFeeTable[slot])) {
+                logger.warn("Duplicate base fee for city: {} and vehicle type: {}, keeping the first one",
+                        baseFee.getCity(), baseFee.getVehicleType());
+                continue;
+            }
+            baseFeeTable[slot] = baseFee.getFee();
+        }
+
+        List<List<ExtraFeeRule>> airTemperatureRules = emptyRuleLists(vehicleTypes.size());
+        List<List<ExtraFeeRule>> windSpeedRules = emptyRuleLists(vehicleTypes.size());
+        double[] phenomenonFees = new double[vehicleTypes.size() * phenomena.size()];
+        boolean[] phenomenonForbidden = new boolean[phenomenonFees.length];
+        boolean[] phenomenonMatched = new boolean[phenomenonFees.length];
+
+        for (ExtraFee extraFee : extraFees) {
+            int vehicleTypeId = vehicleTypes.idOf(extraFee.getVehicleType());
+            ExtraFeeRule rule = new ExtraFeeRule(extraFee.getWeatherPhenomenon(), extraFee.getFee(),
+                    extraFee.getMinValue(), extraFee.getMaxValue(), Boolean.TRUE.equals(extraFee.getIsForbidden()));
+
+            ConditionType conditionType = ConditionType.fromCode(extraFee.getConditionType());
+            if (conditionType == null) {
+                logger.warn("Ignoring extra fee with unknown condition type: {}", extraFee.getConditionType());
+            } else if (conditionType == ConditionType.AIR_TEMPERATURE) {
+                airTemperatureRules.get(vehicleTypeId).add(rule);
+            } else if (conditionType == ConditionType.WIND_SPEED) {
+                windSpeedRules.get(vehicleTypeId).add(rule);
+            } else if (rule.weatherPhenomenon() != null) {
+                int slot = vehicleTypeId * phenomena.size()
+                        + phenomena.idOf(normalizePhenomenon(rule.weatherPhenomenon()));
+                if (!phenomenonMatched[slot]) {
+                    phenomenonMatched[slot] = true;
+                    phenomenonFees[slot] = rule.fee() != null ? rule.fee() : 0.0;
+                }
+                phenomenonForbidden[slot] |= rule.forbidden();
+            }
+        }
+
+        return new FeeRuleSnapshot(version, contentHash(baseFees, extraFees), cities, vehicleTypes, phenomena,
+                baseFeeTable, toBandIndexes(airTemperatureRules), toBandIndexes(windSpeedRules), phenomenonFees,
+                phenomenonForbidden);
+    }
+
+    /**
+     * Digests the rule rows independently of their order, so that instances reading the same tables agree on it.
+     */
+    private static String contentHash(List<BaseFee> baseFees, List<ExtraFee> extraFees) {
+        List<String> rows = new ArrayList<>(baseFees.size() + extraFees.size());
+        for (BaseFee baseFee : baseFees) {
+            rows.add("base|" + baseFee.getId() + "|" + baseFee.getCity() + "|" + baseFee.getVehicleType() + "|"
+                    + baseFee.getFee());
+        }
+        for (ExtraFee extraFee : extraFees) {
+            rows.add("extra|" + extraFee.getId() + "|" + extraFee.getConditionType() + "|"
+                    + extraFee.getVehicleType() + "|" + extraFee.getWeatherPhenomenon() + "|" + extraFee.getFee()
+                    + "|" + extraFee.getMinValue() + "|" + extraFee.getMaxValue() + "|" + extraFee.getIsForbidden());
+        }
+        Collections.sort(rows);
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        for (String row : rows) {
+            digest.update(row.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 12);
+    }
+
+    /**
+     * @return The number of this snapshot on this instance, which restarts on every startup.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return A digest of the rules, which differs between snapshots of different rules but not between instances.
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * @return The distinct cities that have at least one base fee rule, in natural order. The position of a city
+     * in this list is its id.
+     */
+    public List<String> getCities() {
+        return cities.symbols();
+    }
+
+    /**
+     * @return The distinct vehicle types that appear in any fee rule, in natural order. The position of a vehicle
+     * type in this list is its id.
+     */
+    public List<String> getVehicleTypes() {
+        return vehicleTypes.symbols();
+    }
+
+    SymbolTable cityTable() {
+        return cities;
+    }
+
+    SymbolTable vehicleTypeTable() {
+        return vehicleTypes;
+    }
+
+    /**
+     * @return The id of the city, or -1 if it has no base fee rule.
+     */
+    public int cityId(String city) {
+        return cities.idOf(city);
+    }
+
+    /**
+     * @return The id of the vehicle type, or -1 if no rule mentions it.
+     */
+    public int vehicleTypeId(String vehicleType) {
+        return vehicleTypes.idOf(vehicleType);
+    }
+
+    /**
+     * Interns an observed weather phenomenon, ignoring surrounding whitespace and case.
+     *
+     * @param weatherPhenomenon The observed weather phenomenon, may be null.
+     * @return The id of the phenomenon, or -1 if no rule mentions it.
+     */
+    public int phenomenonId(String weatherPhenomenon) {
+        return weatherPhenomenon == null ? -1 : phenomena.idOf(normalizePhenomenon(weatherPhenomenon));
+    }
+
+    /**
+     * Looks up the base fee for a given city and vehicle type.
+     *
+     * @param city        The city for delivery.
+     * @param vehicleType The type of vehicle.
+     * @return The base fee, or empty if no rule exists.
+     */
+    public Optional<Double> findBaseFee(String city, String vehicleType) {
+        double baseFee = baseFee(cityId(city), vehicleTypeId(vehicleType));
+        return Double.isNaN(baseFee) ? Optional.empty() : Optional.of(baseFee);
+    }
+
+    /**
+     * @return The base fee of an interned city and vehicle type, or NaN if no rule exists.
+     */
+    public double baseFee(int cityId, int vehicleTypeId) {
+        if (cityId < 0 || vehicleTypeId < 0) {
+            return Double.NaN;
+        }
+        return baseFees[cityId * vehicleTypes.size() + vehicleTypeId];
+    }
+
+    FeeBandIndex airTemperatureBands(int vehicleTypeId) {
+        return vehicleTypeId < 0 ? FeeBandIndex.EMPTY : airTemperatureBands[vehicleTypeId];
+    }
+
+    FeeBandIndex windSpeedBands(int vehicleTypeId) {
+        return vehicleTypeId < 0 ? FeeBandIndex.EMPTY : windSpeedBands[vehicleTypeId];
+    }
+
+    /**
+     * @return The extra fee of an interned vehicle type under a weather phenomenon, or 0.0 if no rule matches.
+     */
+    public double phenomenonFee(int vehicleTypeId, int phenomenonId) {
+        if (vehicleTypeId < 0 || phenomenonId < 0) {
+            return 0.0;
+        }
+        return phenomenonFees[vehicleTypeId * phenomena.size() + phenomenonId];
+    }
+
+    /**
+     * @return true if a rule forbids the interned vehicle type under the weather phenomenon.
+     */
+    public boolean isPhenomenonForbidden(int vehicleTypeId, int phenomenonId) {
+        if (vehicleTypeId < 0 || phenomenonId < 0) {
+            return false;
+        }
+        return phenomenonForbidden[vehicleTypeId * phenomena.size() + phenomenonId];
+    }
+
+    private static String normalizePhenomenon(String weatherPhenomenon) {
+        return weatherPhenomenon.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<List<ExtraFeeRule>> emptyRuleLists(int size) {
+        List<List<ExtraFeeRule>> lists = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            lists.add(new ArrayList<>());
+        }
+        return lists;
+    }
+
+    private static FeeBandIndex[] toBandIndexes(List<List<ExtraFeeRule>> rulesPerVehicleType) {
+        FeeBandIndex[] indexes = new FeeBandIndex[rulesPerVehicleType.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = FeeBandIndex.of(rulesPerVehicleType.get(i));
+        }
+        return indexes;
+    }
+
+    /**
+     * Condition types an extra fee rule can have, keyed by their {@code conditionType} column value.
+     */
+    enum ConditionType {
+        AIR_TEMPERATURE("air_temperature"),
+        WIND_SPEED("wind_speed"),
+        WEATHER_PHENOMENON("weather_phenomenon");
+
+        private final String code;
+
+        ConditionType(String code) {
+            this.code = code;
+        }
+
+        static ConditionType fromCode(String code) {
+            for (ConditionType conditionType : values()) {
+                if (conditionType.code.equals(code)) {
+                    return conditionType;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Immutable copy of a single {@code extra_fee} row, used while compiling a snapshot.
+     */
+    public record ExtraFeeRule(String weatherPhenomenon, Double fee, Double minValue, Double maxValue,
+                               boolean forbidden) {
+    }
+}
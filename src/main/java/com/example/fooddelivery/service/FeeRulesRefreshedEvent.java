@@ -0,0 +1,9 @@
+package com.example.fooddelivery.service;
+
+/**
+ * Published by {@link FeeRuleCache} after a new rule snapshot has been swapped in.
+ *
+ * @param version The version of the new snapshot.
+ */
+public record FeeRulesRefreshedEvent(long version) {
+}
@@ -0,0 +1,19 @@
+package com.example.fooddelivery.service;
+
+/**
+ * Whether a fetched weather feed needs to be imported.
+ */
+public enum FeedStatus {
+    /**
+     * The feed differs from the last imported one.
+     */
+    CHANGED,
+    /**
+     * The server answered 304 Not Modified.
+     */
+    NOT_MODIFIED,
+    /**
+     * The server sent the feed, but its body is the same as that of the last imported feed.
+     */
+    UNCHANGED
+}
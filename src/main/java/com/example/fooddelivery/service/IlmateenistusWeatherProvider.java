@@ -0,0 +1,69 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.service.ObservationsFeedParser.ParsedObservations;
+import com.example.fooddelivery.service.WeatherFeedClient.WeatherFeedResponse;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Provides the observations of the Estonian Environment Agency (ilmateenistus.ee) feed, fetched conditionally by a
+ * {@link WeatherFeedClient} and parsed by {@link ObservationsFeedParser}.
+ */
+public class IlmateenistusWeatherProvider implements WeatherProvider {
+
+    private final String name;
+    private final WeatherFeedClient weatherFeedClient;
+    private final List<String> stations;
+    private final Duration timeout;
+
+    public IlmateenistusWeatherProvider(String name, WeatherFeedClient weatherFeedClient, List<String> stations,
+                                        Duration timeout) {
+        this.name = name;
+        this.weatherFeedClient = weatherFeedClient;
+        this.stations = List.copyOf(stations);
+        this.timeout = timeout;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Collection<String> getStations() {
+        return stations;
+    }
+
+    @Override
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public WeatherFetch fetch() throws IOException {
+        WeatherFeedResponse feed = weatherFeedClient.fetch();
+        if (feed.status() != FeedStatus.CHANGED) {
+            return WeatherFetch.unchanged(feed.status());
+        }
+
+        try {
+            ParsedObservations parsed = ObservationsFeedParser.parse(new ByteArrayInputStream(feed.body()),
+                    stations, LocalDateTime.now());
+            return new WeatherFetch(FeedStatus.CHANGED, parsed.observations(), parsed.targetStationCount(),
+                    () -> weatherFeedClient.markImported(feed));
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed weather feed from " + weatherFeedClient.getUrl(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + weatherFeedClient.getUrl() + ")";
+    }
+}
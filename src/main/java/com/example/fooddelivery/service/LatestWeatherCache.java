@@ -0,0 +1,123 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.WeatherData;
+import com.example.fooddelivery.entity.WeatherStation;
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Holds the latest weather observation of every station and swaps the whole set atomically after each import, so
+ * current weather is read without querying the database.
+ * <p>
+ * Loaded from the database on startup and updated with the observations each import stores. A city is served by
+ * the stations mapped to it in {@link WeatherStationCache}, or, if it has none, by the stations whose names contain
+ * it; there are only a handful of stations, so such cities are resolved by scanning.
+ */
+@Service
+public class LatestWeatherCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatestWeatherCache.class);
+
+    private final WeatherDataRepository weatherDataRepository;
+    private final WeatherStationCache weatherStationCache;
+
+    /**
+     * The latest observation per station name. Never modified once published.
+     */
+    private volatile Map<String, WeatherData> latestByStation = Map.of();
+
+    public LatestWeatherCache(WeatherDataRepository weatherDataRepository, WeatherStationCache weatherStationCache) {
+        this.weatherDataRepository = weatherDataRepository;
+        this.weatherStationCache = weatherStationCache;
+    }
+
+    /**
+     * Reloads the latest observation of every station from the database.
+     */
+    @PostConstruct
+    public synchronized void refresh() {
+        Map<String, WeatherData> loaded = new HashMap<>();
+        for (WeatherData observation : weatherDataRepository.findLatestOfEachStation()) {
+            loaded.merge(observation.getStationName(), observation, LatestWeatherCache::newer);
+        }
+        latestByStation = Map.copyOf(loaded);
+
+        logger.info("Loaded the latest weather of {} stations", loaded.size());
+    }
+
+    /**
+     * Publishes newly stored observations. Observations older than the one already held for their station are
+     * ignored.
+     *
+     * @param observations The stored observations.
+     */
+    public synchronized void update(Collection<WeatherData> observations) {
+        if (observations.isEmpty()) {
+            return;
+        }
+        Map<String, WeatherData> updated = new HashMap<>(latestByStation);
+        for (WeatherData observation : observations) {
+            updated.merge(observation.getStationName(), observation, LatestWeatherCache::newer);
+        }
+        latestByStation = Map.copyOf(updated);
+    }
+
+    /**
+     * @return The latest observation per station name.
+     */
+    public Map<String, WeatherData> getLatestByStation() {
+        return latestByStation;
+    }
+
+    /**
+     * Finds the latest observation of the stations serving a city.
+     *
+     * @param city The city for delivery.
+     * @return The newest observation of the stations mapped to the city, or if it has none, of the stations whose
+     * names contain the city, ignoring case. Null if there is none.
+     */
+    public WeatherData findLatest(String city) {
+        Map<String, WeatherData> latestByStation = this.latestByStation;
+        WeatherData latest = null;
+        List<WeatherStation> mapped = weatherStationCache.findStations(city);
+        if (!mapped.isEmpty()) {
+            for (WeatherStation station : mapped) {
+                WeatherData observation = latestByStation.get(station.getStationName());
+                if (observation != null) {
+                    latest = latest == null ? observation : newer(latest, observation);
+                }
+            }
+            return latest;
+        }
+
+        String needle = city.toLowerCase(Locale.ROOT);
+        for (WeatherData observation : latestByStation.values()) {
+            if (observation.getStationName().toLowerCase(Locale.ROOT).contains(needle)) {
+                latest = latest == null ? observation : newer(latest, observation);
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * @return The later of two observations, the first one if their timestamps are equal or unknown.
+     */
+    private static WeatherData newer(WeatherData first, WeatherData second) {
+        LocalDateTime firstTimestamp = first.getTimestamp();
+        LocalDateTime secondTimestamp = second.getTimestamp();
+        if (secondTimestamp == null || (firstTimestamp != null && !secondTimestamp.isAfter(firstTimestamp))) {
+            return first;
+        }
+        return second;
+    }
+}
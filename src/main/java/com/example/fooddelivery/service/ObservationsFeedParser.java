@@ -0,0 +1,204 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.WeatherData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Streaming parser for the observations feed of the Estonian Environment Agency.
+ * <p>
+ * The feed lists every station in the country, while only a few are imported. Stations are read with a StAX pull
+ * parser: the name of each station, which the feed lists as its first field, is read first and the rest of a
+ * non-target station is skipped without building any objects for it, while the values of target stations are read
+ * straight into {@link WeatherData}.
+ * <p>
+ * Observations are stamped with the time the feed says they were made, the epoch seconds in the {@code timestamp}
+ * attribute of its root element, so that the same observation fetched twice has the same key.
+ */
+final class ObservationsFeedParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(ObservationsFeedParser.class);
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    private ObservationsFeedParser() {
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Parses the observations of the target stations from a feed.
+     *
+     * @param feed              The feed XML. The encoding is taken from the XML declaration.
+     * @param targetStations    The names of the stations to read.
+     * @param fallbackTimestamp The timestamp to give the observations if the feed has no valid timestamp.
+     * @return The observations of the target stations, and how many target stations the feed listed.
+     * @throws XMLStreamException If the feed is not well-formed XML.
+     */
+    static ParsedObservations parse(InputStream feed, Collection<String> targetStations,
+                                    LocalDateTime fallbackTimestamp) throws XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(feed);
+        try {
+            List<WeatherData> observations = new ArrayList<>(targetStations.size());
+            int targetStationCount = 0;
+            LocalDateTime timestamp = fallbackTimestamp;
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                if (reader.getLocalName().equals("observations")) {
+                    timestamp = parseTimestamp(reader.getAttributeValue(null, "timestamp"), fallbackTimestamp);
+                } else if (reader.getLocalName().equals("station")) {
+                    WeatherData observation = readStation(reader, targetStations);
+                    if (observation == null) {
+                        continue;
+                    }
+                    targetStationCount++;
+                    if (observation.getWmoCode() == null) {
+                        logger.warn("Skipping station {} due to missing WMO code", observation.getStationName());
+                        continue;
+                    }
+                    observation.setTimestamp(timestamp);
+                    observations.add(observation);
+                }
+            }
+            return new ParsedObservations(observations, targetStationCount);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads one station, leaving the reader on its end tag.
+     *
+     * @return The station's observation, or null if it is not a target station.
+     */
+    private static WeatherData readStation(XMLStreamReader reader, Collection<String> targetStations)
+            throws XMLStreamException {
+        WeatherData observation = null;
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String field = reader.getLocalName();
+            if (observation == null) {
+                String stationName = field.equals("name") ? readText(reader) : null;
+                if (stationName == null || !targetStations.contains(stationName)) {
+                    skipToEndOfStation(reader, field.equals("name") ? 1 : 2);
+                    return null;
+                }
+                observation = new WeatherData();
+                observation.setStationName(stationName);
+                continue;
+            }
+
+            switch (field) {
+                case "wmocode" -> observation.setWmoCode(parseInteger(field, readText(reader)));
+                case "airtemperature" -> observation.setAirTemperature(parseDouble(field, readText(reader)));
+                case "windspeed" -> observation.setWindSpeed(parseDouble(field, readText(reader)));
+                case "phenomenon" -> observation.setWeatherPhenomenon(readText(reader));
+                default -> skipElement(reader);
+            }
+        }
+        return observation;
+    }
+
+    /**
+     * Reads the text of a simple element and moves to its end tag.
+     *
+     * @return The trimmed text, or null if blank.
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        String text = reader.getElementText().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Skips the rest of a station.
+     *
+     * @param depth How many elements are open inside the station, counting the station itself.
+     */
+    private static void skipToEndOfStation(XMLStreamReader reader, int depth) throws XMLStreamException {
+        if (depth > 1) {
+            skipElement(reader);
+        }
+        skipElement(reader);
+    }
+
+    /**
+     * Converts the feed's epoch seconds to local time, the time zone every other timestamp of the application is in.
+     */
+    private static LocalDateTime parseTimestamp(String epochSeconds, LocalDateTime fallbackTimestamp) {
+        if (epochSeconds == null || epochSeconds.isBlank()) {
+            logger.warn("Weather feed has no timestamp, using {}", fallbackTimestamp);
+            return fallbackTimestamp;
+        }
+        try {
+            return LocalDateTime.ofInstant(Instant.ofEpochSecond(Long.parseLong(epochSeconds.trim())),
+                    ZoneId.systemDefault());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid weather feed timestamp {}, using {}", epochSeconds, fallbackTimestamp);
+            return fallbackTimestamp;
+        }
+    }
+
+    private static Integer parseInteger(String field, String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid integer format for {}: {}", field, text);
+            return null;
+        }
+    }
+
+    private static Double parseDouble(String field, String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid number format for {}: {}", field, text);
+            return null;
+        }
+    }
+
+    /**
+     * The result of parsing a feed.
+     *
+     * @param observations       The parsed observations of the target stations that have a WMO code.
+     * @param targetStationCount How many target stations the feed listed, including those without a WMO code.
+     */
+    record ParsedObservations(List<WeatherData> observations, int targetStationCount) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.dto.QuoteThroughputStats;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates how many quotes each delivery fee endpoint served and how long it spent doing so,
+ * so the single, batch and streaming endpoints can be compared.
+ */
+@Service
+public class QuoteThroughputTracker {
+
+    public enum Endpoint {
+        SINGLE,
+        BATCH,
+        STREAM
+    }
+
+    private final Map<Endpoint, Counters> counters = new EnumMap<>(Endpoint.class);
+
+    public QuoteThroughputTracker() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            counters.put(endpoint, new Counters());
+        }
+    }
+
+    /**
+     * Records one served HTTP request.
+     *
+     * @param endpoint     The endpoint that served the request.
+     * @param quotes       The number of quotes in the request.
+     * @param elapsedNanos The time spent serving the request.
+     */
+    public void record(Endpoint endpoint, long quotes, long elapsedNanos) {
+        Counters endpointCounters = counters.get(endpoint);
+        endpointCounters.requests.increment();
+        endpointCounters.quotes.add(quotes);
+        endpointCounters.elapsedNanos.add(elapsedNanos);
+    }
+
+    /**
+     * @return The accumulated throughput of every endpoint since startup.
+     */
+    public List<QuoteThroughputStats> getStats() {
+        List<QuoteThroughputStats> stats = new ArrayList<>();
+        counters.forEach((endpoint, endpointCounters) -> {
+            long quotes = endpointCounters.quotes.sum();
+            long elapsedNanos = endpointCounters.elapsedNanos.sum();
+            double quotesPerSecond = elapsedNanos > 0 ? quotes * 1_000_000_000.0 / elapsedNanos : 0.0;
+
+            stats.add(new QuoteThroughputStats(endpoint.name(), endpointCounters.requests.sum(), quotes,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), quotesPerSecond));
+        });
+        return stats;
+    }
+
+    private static final class Counters {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder quotes = new LongAdder();
+        private final LongAdder elapsedNanos = new LongAdder();
+    }
+}
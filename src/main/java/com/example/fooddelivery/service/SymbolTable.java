@@ -0,0 +1,54 @@
+package com.example.fooddelivery.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable mapping between strings and small, dense integer ids ({@code 0..size-1}).
+ * Rule keys such as cities and vehicle types are interned once when rules are loaded, so the quote path can
+ * work with array indexes instead of string comparisons.
+ */
+final class SymbolTable {
+
+    static final SymbolTable EMPTY = new SymbolTable(List.of());
+
+    private final List<String> symbols;
+    private final Map<String, Integer> ids;
+
+    SymbolTable(List<String> symbols) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < symbols.size(); i++) {
+            if (index.putIfAbsent(symbols.get(i), i) != null) {
+                throw new IllegalArgumentException("Duplicate symbol: " + symbols.get(i));
+            }
+        }
+
+        this.symbols = List.copyOf(symbols);
+        this.ids = Map.copyOf(index);
+    }
+
+    /**
+     * @param symbol The string to look up, may be null.
+     * @return The id of the symbol, or -1 if it is not part of the table.
+     */
+    int idOf(String symbol) {
+        if (symbol == null) {
+            return -1;
+        }
+        Integer id = ids.get(symbol);
+        return id != null ? id : -1;
+    }
+
+    String symbolOf(int id) {
+        return symbols.get(id);
+    }
+
+    int size() {
+        return symbols.size();
+    }
+
+    List<String> symbols() {
+        return symbols;
+    }
+}
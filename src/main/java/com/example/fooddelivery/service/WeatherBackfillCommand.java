@@ -0,0 +1,58 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.service.WeatherBackfillService.BackfillReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Runs a {@link WeatherBackfillService backfill} instead of serving requests when the application is started with
+ * {@code --weather.backfill.directory=<dir>}, then exits: with status 0 if every file was imported, 1 otherwise.
+ */
+@Component
+@ConditionalOnProperty("weather.backfill.directory")
+public class WeatherBackfillCommand implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherBackfillCommand.class);
+
+    private final WeatherBackfillService weatherBackfillService;
+    private final ConfigurableApplicationContext context;
+    private final Path directory;
+    private final List<String> stations;
+
+    public WeatherBackfillCommand(WeatherBackfillService weatherBackfillService,
+                                  ConfigurableApplicationContext context,
+                                  @Value("${weather.backfill.directory}") Path directory,
+                                  @Value("${weather.backfill.stations:${weather.target.stations}}")
+                                  List<String> stations) {
+        this.weatherBackfillService = weatherBackfillService;
+        this.context = context;
+        this.directory = directory;
+        this.stations = stations;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int exitCode;
+        try {
+            BackfillReport report = weatherBackfillService.backfill(directory, stations);
+            exitCode = report.failedFiles() == 0 ? 0 : 1;
+        } catch (IOException e) {
+            logger.error("Weather backfill from {} failed", directory, e);
+            exitCode = 1;
+        }
+
+        int status = exitCode;
+        System.exit(SpringApplication.exit(context, () -> status));
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.dto.ObservationKey;
+import com.example.fooddelivery.entity.WeatherData;
+import com.example.fooddelivery.entity.WeatherHourlyRollup;
+import com.example.fooddelivery.repository.WeatherHourlyRollupRepository;
+import com.example.fooddelivery.service.ObservationsFeedParser.ParsedObservations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports a directory of archived observation feeds, such as after an outage or when onboarding a new region.
+ * <p>
+ * Files are memory-mapped and parsed in parallel with {@link ObservationsFeedParser}, while the calling thread
+ * stores the parsed observations through {@link WeatherObservationStore} in large batches, so parsing and writing
+ * overlap. At most twice as many files as there are parser threads are in flight, which bounds memory however large
+ * the archive is. Observations that are already stored, or whose hour has already been compacted into an hourly
+ * rollup, are skipped, so a backfill can be rerun safely.
+ */
+@Service
+public class WeatherBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherBackfillService.class);
+
+    /**
+     * Observations per call to the store; the store splits them into its own chunks.
+     */
+    static final int WRITE_BATCH_SIZE = 5_000;
+
+    private static final long PROGRESS_INTERVAL_NANOS = Duration.ofSeconds(10).toNanos();
+
+    private final WeatherObservationStore weatherObservationStore;
+    private final WeatherHourlyRollupRepository weatherHourlyRollupRepository;
+    private final LatestWeatherCache latestWeatherCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration rawRetention;
+    private final int parallelism;
+
+    public WeatherBackfillService(WeatherObservationStore weatherObservationStore,
+                                  WeatherHourlyRollupRepository weatherHourlyRollupRepository,
+                                  LatestWeatherCache latestWeatherCache, ApplicationEventPublisher eventPublisher,
+                                  @Value("${weather.retention.raw-window:30d}") Duration rawRetention,
+                                  @Value("${weather.backfill.parallelism:0}") int parallelism) {
+        this.weatherObservationStore = weatherObservationStore;
+        this.weatherHourlyRollupRepository = weatherHourlyRollupRepository;
+        this.latestWeatherCache = latestWeatherCache;
+        this.eventPublisher = eventPublisher;
+        this.rawRetention = rawRetention;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Imports the observations of the given stations from every {@code .xml} file in a directory. Files that cannot
+     * be read or parsed are logged and skipped.
+     * <p>
+     * Observations are stamped with the timestamp in their file, or the file's modification time if it has none.
+     * Publishes a {@link WeatherDataImportedEvent} if at least one new record was stored.
+     *
+     * @param directory The directory of archived feeds.
+     * @param stations  The names of the stations to import.
+     * @return What the backfill read and stored.
+     * @throws IOException If the directory cannot be listed or the backfill is interrupted.
+     */
+    public BackfillReport backfill(Path directory, Collection<String> stations) throws IOException {
+        List<Path> files = listArchiveFiles(directory);
+        Set<String> targetStations = Set.copyOf(stations);
+        logger.info("Backfilling weather observations of {} stations from {} files in {} with {} parser threads",
+                stations.size(), files.size(), directory, parallelism);
+
+        Progress progress = new Progress(files.size());
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "weather-backfill-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            CompletionService<List<WeatherData>> parsing = new ExecutorCompletionService<>(executor);
+            int submitted = 0;
+            List<WeatherData> pending = new ArrayList<>();
+            for (int completed = 0; completed < files.size(); completed++) {
+                while (submitted < files.size() && submitted - completed < 2 * parallelism) {
+                    Path file = files.get(submitted++);
+                    parsing.submit(() -> parseFile(file, targetStations));
+                }
+
+                List<WeatherData> observations = parsing.take().get();
+                if (observations == null) {
+                    progress.failedFiles++;
+                } else {
+                    progress.parsedRecords += observations.size();
+                    pending.addAll(observations);
+                }
+                progress.files++;
+
+                if (pending.size() >= WRITE_BATCH_SIZE) {
+                    store(pending, progress);
+                    pending = new ArrayList<>();
+                }
+                progress.logPeriodically();
+            }
+            store(pending, progress);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Weather backfill from " + directory + " was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Weather backfill from " + directory + " failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (progress.savedRecords > 0) {
+            eventPublisher.publishEvent(new WeatherDataImportedEvent(progress.savedRecords));
+        }
+        BackfillReport report = progress.report();
+        logger.info("Backfilled {} weather records from {} files ({} unreadable) in {}, {} records/s",
+                report.savedRecords(), report.files(), report.failedFiles(), report.elapsed(),
+                Math.round(report.recordsPerSecond()));
+        return report;
+    }
+
+    private static List<Path> listArchiveFiles(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.xml")) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    /**
+     * Parses one archived feed from a memory-mapped view of the file.
+     *
+     * @return The observations of the stations, or null if the file could not be read or parsed.
+     */
+    private static List<WeatherData> parseFile(Path file, Collection<String> stations) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            LocalDateTime modified = LocalDateTime.ofInstant(Files.getLastModifiedTime(file).toInstant(),
+                    ZoneId.systemDefault());
+            ParsedObservations parsed = ObservationsFeedParser.parse(new ByteBufferInputStream(mapped), stations,
+                    modified);
+            return parsed.observations();
+        } catch (IOException | XMLStreamException e) {
+            logger.warn("Skipping archived weather file {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(List<WeatherData> observations, Progress progress) {
+        List<WeatherData> storable = withoutCompactedHours(observations);
+        progress.skippedRecords += observations.size() - storable.size();
+        if (storable.isEmpty()) {
+            return;
+        }
+        List<WeatherData> saved = weatherObservationStore.saveNew(storable);
+        progress.savedRecords += saved.size();
+        progress.skippedRecords += storable.size() - saved.size();
+        latestWeatherCache.update(saved);
+    }
+
+    /**
+     * Drops observations older than the raw retention window whose station and hour already have a rollup: their raw
+     * rows were imported and compacted before, and storing them again would count them twice.
+     */
+    private List<WeatherData> withoutCompactedHours(List<WeatherData> observations) {
+        LocalDateTime retainedFrom = LocalDateTime.now().minus(rawRetention);
+        LocalDateTime firstHour = null;
+        LocalDateTime lastHour = null;
+        for (WeatherData observation : observations) {
+            if (observation.getTimestamp().isBefore(retainedFrom)) {
+                LocalDateTime hour = observation.getTimestamp().truncatedTo(ChronoUnit.HOURS);
+                firstHour = firstHour == null || hour.isBefore(firstHour) ? hour : firstHour;
+                lastHour = lastHour == null || hour.isAfter(lastHour) ? hour : lastHour;
+            }
+        }
+        if (firstHour == null) {
+            return observations;
+        }
+
+        Set<ObservationKey> compacted = new HashSet<>();
+        for (WeatherHourlyRollup rollup : weatherHourlyRollupRepository.findByHourStartBetween(firstHour, lastHour)) {
+            compacted.add(new ObservationKey(rollup.getWmoCode(), rollup.getHourStart()));
+        }
+        if (compacted.isEmpty()) {
+            return observations;
+        }
+        List<WeatherData> storable = new ArrayList<>(observations.size());
+        for (WeatherData observation : observations) {
+            ObservationKey hourKey = new ObservationKey(observation.getWmoCode(),
+                    observation.getTimestamp().truncatedTo(ChronoUnit.HOURS));
+            if (!compacted.contains(hourKey)) {
+                storable.add(observation);
+            }
+        }
+        return storable;
+    }
+
+    /**
+     * The outcome of a backfill.
+     *
+     * @param files          The archive files read.
+     * @param failedFiles    The files skipped because they could not be read or parsed.
+     * @param parsedRecords  The observations of the requested stations found in the files.
+     * @param savedRecords   The observations stored.
+     * @param skippedRecords The observations already stored or compacted.
+     * @param elapsed        The duration of the backfill.
+     */
+    public record BackfillReport(int files, int failedFiles, int parsedRecords, int savedRecords, int skippedRecords,
+                                 Duration elapsed) {
+
+        public double recordsPerSecond() {
+            double seconds = elapsed.toNanos() / 1e9;
+            return seconds > 0 ? parsedRecords / seconds : 0.0;
+        }
+    }
+
+    /**
+     * Running totals of a backfill, only touched by the thread storing the observations.
+     */
+    private static final class Progress {
+        private final int totalFiles;
+        private final long started = System.nanoTime();
+        private long lastLogged = started;
+        private int files;
+        private int failedFiles;
+        private int parsedRecords;
+        private int savedRecords;
+        private int skippedRecords;
+
+        Progress(int totalFiles) {
+            this.totalFiles = totalFiles;
+        }
+
+        void logPeriodically() {
+            long now = System.nanoTime();
+            if (now - lastLogged < PROGRESS_INTERVAL_NANOS) {
+                return;
+            }
+            lastLogged = now;
+            double seconds = (now - started) / 1e9;
+            logger.info("Backfill progress: {}/{} files, {} records parsed, {} stored, {} files/s",
+                    files, totalFiles, parsedRecords, savedRecords, Math.round(files / seconds));
+        }
+
+        BackfillReport report() {
+            return new BackfillReport(files, failedFiles, parsedRecords, savedRecords, skippedRecords,
+                    Duration.ofNanos(System.nanoTime() - started));
+        }
+    }
+
+    /**
+     * Reads a buffer, such as a memory-mapped file, without copying it to the heap first.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
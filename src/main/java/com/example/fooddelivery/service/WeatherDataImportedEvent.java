@@ -0,0 +1,9 @@
+package com.example.fooddelivery.service;
+
+/**
+ * Published by {@link WeatherDataService} after an import stored at least one new weather record.
+ *
+ * @param savedRecords The number of records stored by the import.
+ */
+public record WeatherDataImportedEvent(int savedRecords) {
+}
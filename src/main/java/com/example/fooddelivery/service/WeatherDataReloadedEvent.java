@@ -0,0 +1,10 @@
+package com.example.fooddelivery.service;
+
+/**
+ * Published by {@link WeatherImportCoordinator} after it reloaded the latest weather data imported by another
+ * instance.
+ *
+ * @param dataVersion The version of the stored weather data that was loaded.
+ */
+public record WeatherDataReloadedEvent(long dataVersion) {
+}
@@ -0,0 +1,55 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Moves the {@code weather_data_seq} sequence past the ids already stored, for databases whose {@code weather_data}
+ * table was filled by an identity column before the sequence existed. Such a sequence starts at 1, and the batched
+ * inserts would collide with the stored rows.
+ * <p>
+ * Hibernate's pooled optimizer hands out the {@link #ALLOCATION_SIZE} ids up to and including the value it draws from
+ * the sequence, so the sequence is restarted at the highest stored id plus the allocation size, which makes the next
+ * block start right after that id.
+ */
+@Service
+public class WeatherDataSequenceMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherDataSequenceMigration.class);
+
+    /**
+     * The allocation size of the sequence generator on {@link com.example.fooddelivery.entity.WeatherData#getId()}.
+     */
+    static final long ALLOCATION_SIZE = 50;
+
+    private final WeatherDataRepository weatherDataRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public WeatherDataSequenceMigration(WeatherDataRepository weatherDataRepository, JdbcTemplate jdbcTemplate) {
+        this.weatherDataRepository = weatherDataRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Restarts the sequence above the stored ids unless its next block already lies above them. Drawing the value to
+     * compare uses up one block, which is harmless; a sequence another instance has moved on is never moved back.
+     */
+    @PostConstruct
+    void restartSequenceAboveStoredIds() {
+        long maxId = weatherDataRepository.findMaxId();
+        if (maxId == 0) {
+            return;
+        }
+        Long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR weather_data_seq", Long.class);
+        if (next != null && next - ALLOCATION_SIZE + 1 > maxId) {
+            return;
+        }
+        long restartWith = maxId + ALLOCATION_SIZE;
+        jdbcTemplate.execute("ALTER SEQUENCE weather_data_seq RESTART WITH " + restartWith);
+        logger.info("Restarted weather_data_seq at {}, above the stored weather observation ids", restartWith);
+    }
+}
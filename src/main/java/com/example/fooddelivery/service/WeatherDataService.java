@@ -1,163 +1,289 @@
 package com.example.fooddelivery.service;
 
 import com.example.fooddelivery.entity.WeatherData;
-import com.example.fooddelivery.repository.WeatherDataRepository;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class WeatherDataService {
     private static final Logger logger = LoggerFactory.getLogger(WeatherDataService.class);
 
-    @Value("${weather.api.url}")
-    private String apiUrl;
+    private final List<WeatherProvider> weatherProviders;
+    private final WeatherObservationStore weatherObservationStore;
+    private final LatestWeatherCache latestWeatherCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
 
-    @Value("${weather.target.stations}")
-    private List<String> targetStations;
+    private final Timer successfulImportTimer;
+    private final Timer failedImportTimer;
+    private final Counter parsedRecords;
+    private final Counter savedRecordsCounter;
+    private final Counter skippedRecords;
 
-    private final WeatherDataRepository weatherDataRepository;
-
-    public WeatherDataService(WeatherDataRepository weatherDataRepository) {
-        this.weatherDataRepository = weatherDataRepository;
-    }
+    /**
+     * Runs provider fetches, one thread per concurrent fetch, so a slow provider never holds up another.
+     */
+    private final ExecutorService providerExecutor;
 
     /**
-     * Fetches weather data from the external API, parses it, and stores new records in the database.
+     * The circuit breaker of every provider, never modified after construction.
      */
-    public void fetchAndStoreWeatherData() {
-        try {
-            logger.info("Fetching weather data from {}", apiUrl);
-            Document document = Jsoup.connect(apiUrl).timeout(10_000).get();
-            Elements stations = document.select("station");
-
-            List<WeatherData> weatherDataList = stations.stream()
-                    .filter(station -> targetStations.contains(getTextOrNull(station, "name")))
-                    .map(this::parseWeatherData)
-                    .filter(Objects::nonNull)
-                    .toList();
-
-            if (weatherDataList.isEmpty()) {
-                logger.warn("No weather data found from API. Possible issue with {}", apiUrl);
-            } else {
-                logger.info("Parsed {} weather records", weatherDataList.size());
-            }
+    private final Map<WeatherProvider, WeatherProviderCircuitBreaker> circuitBreakers = new IdentityHashMap<>();
 
-            for (WeatherData weatherData : weatherDataList) {
-                if (Boolean.FALSE.equals(weatherDataRepository.existsByWmoCodeAndTimestamp(
-                        weatherData.getWmoCode(), weatherData.getTimestamp()))) {
-                    weatherDataRepository.save(weatherData);
-                    logger.info("Saved weather data for {} at {}",
-                            weatherData.getStationName(), weatherData.getTimestamp());
-                } else {
-                    logger.debug("Skipping duplicate weather data for {} at {}",
-                            weatherData.getStationName(), weatherData.getTimestamp());
-                }
-            }
-        } catch (IOException e) {
-            logger.error("Failed to fetch weather data from {}: {}", apiUrl, e.getMessage(), e);
-        } catch (Exception e) {
-            logger.error("Unexpected error during weather data fetching", e);
+    public WeatherDataService(List<WeatherProvider> weatherProviders, WeatherObservationStore weatherObservationStore,
+                              LatestWeatherCache latestWeatherCache, ApplicationEventPublisher eventPublisher,
+                              MeterRegistry meterRegistry,
+                              @Value("${weather.provider.circuit-breaker.failure-threshold:3}") int failureThreshold,
+                              @Value("${weather.provider.circuit-breaker.open-duration:5m}") Duration openDuration) {
+        this.weatherProviders = List.copyOf(weatherProviders);
+        this.weatherObservationStore = weatherObservationStore;
+        this.latestWeatherCache = latestWeatherCache;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+
+        this.successfulImportTimer = importTimer("success");
+        this.failedImportTimer = importTimer("failure");
+        this.parsedRecords = recordCounter("parsed", "Weather records parsed from the feed for the target stations");
+        this.savedRecordsCounter = recordCounter("saved", "Weather records stored in the database");
+        this.skippedRecords = recordCounter("skipped",
+                "Target station records that were already stored or could not be parsed");
+
+        for (WeatherProvider provider : this.weatherProviders) {
+            circuitBreakers.put(provider,
+                    new WeatherProviderCircuitBreaker(failureThreshold, openDuration, System::nanoTime));
         }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.providerExecutor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "weather-provider-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
-    /**
-     * Scheduled method to periodically import weather data based on a cron expression.
-     */
-    @Scheduled(cron = "${weather.cron.expression}")
-    public void scheduledWeatherDataImport() {
-        logger.info("Running scheduled weather data import...");
-        fetchAndStoreWeatherData();
+    @PreDestroy
+    void shutdownProviderExecutor() {
+        providerExecutor.shutdownNow();
+    }
+
+    private Timer importTimer(String outcome) {
+        return Timer.builder("weather.import.duration")
+                .description("Duration of a weather import, from fetching the providers to storing the records")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter recordCounter(String result, String description) {
+        return Counter.builder("weather.import.records")
+                .description(description)
+                .tag("result", result)
+                .register(meterRegistry);
     }
 
     /**
-     * Parses weather data from an HTML element.
-     *
-     * @param station The HTML element containing weather data.
-     * @return A WeatherData object, or null if parsing fails.
+     * Registers a gauge with the age of the latest stored observation of every station of every provider, and one
+     * with the circuit breaker state of every provider.
      */
-    private WeatherData parseWeatherData(Element station) {
-        String stationName = getTextOrNull(station, "name");
-        Integer wmoCode = getOptionalInteger(station);
-        Double temperature = getDoubleOrNull(station, "airtemperature");
-        Double windSpeed = getDoubleOrNull(station, "windspeed");
-        String weatherPhenomenon = getTextOrNull(station, "phenomenon");
-
-        if (wmoCode == null) {
-            logger.warn("Skipping station {} due to missing WMO code", stationName);
-            return null;
-        }
+    @PostConstruct
+    void registerGauges() {
+        circuitBreakers.forEach((provider, circuitBreaker) ->
+                Gauge.builder("weather.provider.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                        .description("Circuit breaker state of the provider: 0 closed, 1 half-open, 2 open")
+                        .tag("provider", provider.getName())
+                        .register(meterRegistry));
 
-        WeatherData weatherData = new WeatherData();
-        weatherData.setStationName(stationName);
-        weatherData.setWmoCode(wmoCode);
-        weatherData.setAirTemperature(temperature);
-        weatherData.setWindSpeed(windSpeed);
-        weatherData.setWeatherPhenomenon(weatherPhenomenon);
-        weatherData.setTimestamp(LocalDateTime.now());
-
-        return weatherData;
+        for (String station : weatherProviders.stream().flatMap(provider -> provider.getStations().stream())
+                .distinct().toList()) {
+            Gauge.builder("weather.observation.age", this, service -> service.observationAgeSeconds(station))
+                    .description("Seconds since the latest stored observation of the station")
+                    .tag("station", station)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
     }
 
     /**
-     * Retrieves the text content of a given tag or returns null if absent or blank.
-     *
-     * @param element The parent HTML element.
-     * @param tag     The child tag to extract text from.
-     * @return The trimmed text content, or null if not found or blank.
+     * @return The seconds since the latest stored observation of a station, or NaN if there is none.
      */
-    private String getTextOrNull(Element element, String tag) {
-        Element selected = element.selectFirst(tag);
-        return (selected != null && !selected.text().isBlank()) ? selected.text().trim() : null;
+    double observationAgeSeconds(String station) {
+        WeatherData latest = latestWeatherCache.getLatestByStation().get(station);
+        return latest == null || latest.getTimestamp() == null
+                ? Double.NaN
+                : Duration.between(latest.getTimestamp(), LocalDateTime.now()).toSeconds();
     }
 
     /**
-     * Parses a double value from a given tag or returns null if not present or invalid.
+     * Fetches the observations of every {@link WeatherProvider} concurrently and stores the new ones in bulk with
+     * {@link WeatherObservationStore}. Each provider is given its own timeout; a provider that fails or times out is
+     * left out of this import without delaying the others, so an import takes as long as its slowest provider.
+     * Providers whose data has not changed since their last import are skipped before parsing.
+     * Publishes a {@link WeatherDataImportedEvent} if at least one new record was stored.
      *
-     * @param element The parent HTML element.
-     * @param tag     The child tag containing the double value.
-     * @return The parsed double value, or null if invalid.
+     * @return True if every provider was fetched and the new records were stored, false if anything failed.
      */
-    private Double getDoubleOrNull(Element element, String tag) {
-        String textValue = getTextOrNull(element, tag);
-        if (textValue == null) {
-            return null;
-        }
+    public boolean fetchAndStoreWeatherData() {
+        long started = System.nanoTime();
+        boolean succeeded = false;
         try {
-            return Double.parseDouble(textValue);
-        } catch (NumberFormatException e) {
-            logger.warn("Invalid number format for {}: {}", tag, textValue);
-            return null;
+            List<CompletableFuture<WeatherFetch>> pending = new ArrayList<>(weatherProviders.size());
+            for (WeatherProvider provider : weatherProviders) {
+                pending.add(fetchAsync(provider));
+            }
+
+            List<WeatherFetch> changed = new ArrayList<>();
+            List<WeatherData> weatherDataList = new ArrayList<>();
+            int targetStationCount = 0;
+            int failedProviders = 0;
+            for (CompletableFuture<WeatherFetch> fetch : pending) {
+                WeatherFetch result = fetch.join();
+                if (result == null) {
+                    failedProviders++;
+                } else if (result.status() == FeedStatus.CHANGED) {
+                    changed.add(result);
+                    weatherDataList.addAll(result.observations());
+                    targetStationCount += result.targetStationCount();
+                }
+            }
+
+            if (changed.isEmpty()) {
+                logger.info("No weather provider has new data since the last import, skipping");
+                succeeded = failedProviders == 0;
+                return succeeded;
+            }
+
+            parsedRecords.increment(weatherDataList.size());
+            skippedRecords.increment(targetStationCount - weatherDataList.size());
+            logger.info("Parsed {} weather records from {} providers", weatherDataList.size(), changed.size());
+
+            List<WeatherData> saved = weatherObservationStore.saveNew(weatherDataList);
+            int savedRecords = saved.size();
+            for (WeatherData weatherData : saved) {
+                logger.info("Saved weather data for {} at {}",
+                        weatherData.getStationName(), weatherData.getTimestamp());
+            }
+            skippedRecords.increment(weatherDataList.size() - savedRecords);
+            if (savedRecords < weatherDataList.size()) {
+                logger.debug("Skipped {} duplicate weather records", weatherDataList.size() - savedRecords);
+            }
+
+            savedRecordsCounter.increment(savedRecords);
+
+            latestWeatherCache.update(saved);
+            changed.forEach(fetch -> fetch.onImported().run());
+
+            if (savedRecords > 0) {
+                eventPublisher.publishEvent(new WeatherDataImportedEvent(savedRecords));
+            }
+            succeeded = failedProviders == 0;
+        } catch (Exception e) {
+            logger.error("Unexpected error during weather data fetching", e);
+        } finally {
+            (succeeded ? successfulImportTimer : failedImportTimer).record(System.nanoTime() - started,
+                    TimeUnit.NANOSECONDS);
         }
+        return succeeded;
     }
 
     /**
-     * Parses an integer value from the "wmocode" tag or returns null if not present or invalid.
+     * Fetches a provider on the provider executor, bounded by the provider's timeout. A fetch that times out is not
+     * interrupted, only no longer waited for; providers are expected to bound their own I/O by the same timeout.
+     * A provider whose circuit breaker is open is not fetched at all.
      *
-     * @param element The parent HTML element.
-     * @return The parsed integer value, or null if invalid.
+     * @return The fetch, completing with null if the provider failed, timed out or was skipped.
      */
-    private Integer getOptionalInteger(Element element) {
-        String textValue = getTextOrNull(element, "wmocode");
-        if (textValue == null) {
-            return null;
+    private CompletableFuture<WeatherFetch> fetchAsync(WeatherProvider provider) {
+        WeatherProviderCircuitBreaker circuitBreaker = circuitBreakers.get(provider);
+        if (!circuitBreaker.tryAcquire()) {
+            countProviderFetch(provider, "circuit_open");
+            logger.info("Skipping weather provider {}, its circuit is open", provider.getName());
+            return CompletableFuture.completedFuture(null);
         }
-        try {
-            return Integer.parseInt(textValue);
-        } catch (NumberFormatException e) {
-            logger.warn("Invalid integer format for {}: {}", "wmocode", textValue);
-            return null;
+        if (circuitBreaker.getState() == WeatherProviderCircuitBreaker.State.HALF_OPEN) {
+            logger.info("Probing weather provider {} after {} consecutive failures",
+                    provider.getName(), circuitBreaker.getConsecutiveFailures());
         }
+
+        long started = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return provider.fetch();
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, providerExecutor)
+                .orTimeout(provider.getTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .handle((fetch, error) -> {
+                    long elapsedNanos = System.nanoTime() - started;
+                    if (error == null) {
+                        circuitBreaker.recordSuccess();
+                        recordProviderFetch(provider, fetch.status().name(), elapsedNanos);
+                        if (fetch.status() == FeedStatus.CHANGED && fetch.observations().isEmpty()) {
+                            logger.warn("No weather data found from provider {}", provider.getName());
+                        }
+                        return fetch;
+                    }
+
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+                    if (cause instanceof TimeoutException) {
+                        recordProviderFetch(provider, "timed_out", elapsedNanos);
+                        logger.warn("Weather provider {} timed out after {}",
+                                provider.getName(), provider.getTimeout());
+                    } else {
+                        recordProviderFetch(provider, "failed", elapsedNanos);
+                        logger.error("Failed to fetch weather data from {}: {}",
+                                provider.getName(), cause.getMessage(), cause);
+                    }
+                    if (circuitBreaker.recordFailure()) {
+                        logger.warn("Opened the circuit of weather provider {} after {} consecutive failures",
+                                provider.getName(), circuitBreaker.getConsecutiveFailures());
+                    }
+                    return null;
+                });
+    }
+
+    private void recordProviderFetch(WeatherProvider provider, String status, long elapsedNanos) {
+        countProviderFetch(provider, status);
+        Timer.builder("weather.provider.fetch.duration")
+                .description("Duration of fetching and parsing the data of one weather provider")
+                .tag("provider", provider.getName())
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void countProviderFetch(WeatherProvider provider, String status) {
+        Counter.builder("weather.import.fetches")
+                .description("Weather provider fetches, by whether the data changed since the last import")
+                .tag("provider", provider.getName())
+                .tag("status", status.toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .increment();
     }
 }
@@ -0,0 +1,122 @@
+package com.example.fooddelivery.service;
+
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Fetches the weather observations feed, skipping feeds that have already been imported.
+ * <p>
+ * The validators of the last imported feed are sent as {@code If-None-Match} and {@code If-Modified-Since}, so an
+ * unchanged feed costs a 304 without a body. Servers that ignore them are caught by comparing the SHA-256 hash of
+ * the body with that of the last imported feed. A feed only counts as imported once
+ * {@link #markImported(WeatherFeedResponse)} is called, so a failed import is retried with the next fetch.
+ */
+public class WeatherFeedClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherFeedClient.class);
+
+    private final String apiUrl;
+    private final Duration timeout;
+
+    /**
+     * The version of the last imported feed, or null before the first import.
+     */
+    private volatile FeedVersion importedVersion;
+
+    public WeatherFeedClient(String apiUrl, Duration timeout) {
+        this.apiUrl = apiUrl;
+        this.timeout = timeout;
+    }
+
+    public String getUrl() {
+        return apiUrl;
+    }
+
+    /**
+     * Fetches the feed, conditionally on it having changed since the last import.
+     *
+     * @return The feed, with a body only if it is {@link FeedStatus#CHANGED}.
+     * @throws IOException If the feed could not be fetched or the server answered with an error.
+     */
+    public WeatherFeedResponse fetch() throws IOException {
+        FeedVersion imported = importedVersion;
+        Connection connection = Jsoup.connect(apiUrl)
+                .timeout(Math.toIntExact(timeout.toMillis()))
+                .maxBodySize(0)
+                .ignoreContentType(true)
+                .ignoreHttpErrors(true);
+        if (imported != null && imported.eTag() != null) {
+            connection.header(HttpHeaders.IF_NONE_MATCH, imported.eTag());
+        }
+        if (imported != null && imported.lastModified() != null) {
+            connection.header(HttpHeaders.IF_MODIFIED_SINCE, imported.lastModified());
+        }
+
+        Connection.Response response = connection.execute();
+        if (response.statusCode() == HttpStatus.NOT_MODIFIED.value()) {
+            logger.debug("Weather feed not modified since the last import");
+            return new WeatherFeedResponse(FeedStatus.NOT_MODIFIED, null, imported);
+        }
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            throw new HttpStatusException("Weather feed request failed", response.statusCode(), apiUrl);
+        }
+
+        byte[] body = response.bodyAsBytes();
+        FeedVersion version = new FeedVersion(response.header(HttpHeaders.ETAG),
+                response.header(HttpHeaders.LAST_MODIFIED), sha256(body));
+        if (imported != null && imported.bodyHash().equals(version.bodyHash())) {
+            logger.debug("Weather feed body unchanged since the last import");
+            importedVersion = version;
+            return new WeatherFeedResponse(FeedStatus.UNCHANGED, null, version);
+        }
+        return new WeatherFeedResponse(FeedStatus.CHANGED, body, version);
+    }
+
+    /**
+     * Records a fetched feed as imported, so that later fetches of the same feed are skipped.
+     *
+     * @param response A response of {@link #fetch()}.
+     */
+    public void markImported(WeatherFeedResponse response) {
+        importedVersion = response.version();
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Identifies a version of the feed.
+     *
+     * @param eTag         The {@code ETag} the server sent, may be null.
+     * @param lastModified The {@code Last-Modified} date the server sent, may be null.
+     * @param bodyHash     The hex SHA-256 hash of the body.
+     */
+    public record FeedVersion(String eTag, String lastModified, String bodyHash) {
+    }
+
+    /**
+     * A fetched feed.
+     *
+     * @param status  Whether the feed needs to be imported.
+     * @param body    The feed XML if the feed changed, otherwise null.
+     * @param version The version of the feed, or null if nothing was imported yet.
+     */
+    public record WeatherFeedResponse(FeedStatus status, byte[] body, FeedVersion version) {
+    }
+}
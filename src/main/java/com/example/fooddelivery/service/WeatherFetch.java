@@ -0,0 +1,26 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.WeatherData;
+
+import java.util.List;
+
+/**
+ * The outcome of fetching a {@link WeatherProvider}.
+ *
+ * @param status             Whether the provider's data changed since its last import.
+ * @param observations       The parsed observations if the data changed, otherwise empty.
+ * @param targetStationCount How many target stations the data listed, including those that could not be parsed.
+ * @param onImported         Marks the fetched data as imported, so that the provider can skip it from now on.
+ */
+public record WeatherFetch(FeedStatus status, List<WeatherData> observations, int targetStationCount,
+                           Runnable onImported) {
+
+    /**
+     * @param status Why there is nothing to import, {@link FeedStatus#NOT_MODIFIED} or {@link FeedStatus#UNCHANGED}.
+     * @return A fetch without data.
+     */
+    public static WeatherFetch unchanged(FeedStatus status) {
+        return new WeatherFetch(status, List.of(), 0, () -> {
+        });
+    }
+}
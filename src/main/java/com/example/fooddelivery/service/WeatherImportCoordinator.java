@@ -0,0 +1,262 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.WeatherImportLease;
+import com.example.fooddelivery.repository.WeatherImportLeaseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Lets several instances of the application share one database without each of them importing the weather.
+ * <p>
+ * Before every import, an instance takes or renews a lease in the {@link WeatherImportLease} row. The lease is held
+ * for {@code weather.import.lease.duration}, which must be longer than the import interval, so the importing instance
+ * keeps renewing it and the others skip their imports. If that instance stops, its lease expires and the next
+ * instance to try takes over. An import that stored new data increments the data version in the same row, and every
+ * instance polls that version to reload the latest weather once another instance has imported it.
+ * <p>
+ * Changes of the fee rules and the station-to-city mapping are announced the same way, through the data version of a
+ * second row, so that every instance reloads them after a change made through another instance. A third row leases
+ * the hourly compaction of expired observations to one instance per run.
+ */
+@Service
+public class WeatherImportCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherImportCoordinator.class);
+
+    static final String LEASE_NAME = "weather-import";
+
+    /**
+     * The row whose data version counts the changes of the fee rules and the station mapping; it is never leased.
+     */
+    static final String CONFIGURATION_NAME = "configuration";
+
+    static final String RETENTION_LEASE_NAME = "weather-retention";
+
+    private final WeatherImportLeaseRepository weatherImportLeaseRepository;
+    private final LatestWeatherCache latestWeatherCache;
+    private final FeeRuleCache feeRuleCache;
+    private final WeatherStationCache weatherStationCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration leaseDuration;
+    private final Duration pollInterval;
+    private final String instanceId;
+
+    /**
+     * Whether this instance held the lease at its last attempt, to log only changes of the importing instance.
+     */
+    private volatile boolean leaseHolder;
+
+    /**
+     * When another instance last took or renewed the lease, as of the last poll; null if no other instance holds it.
+     */
+    private volatile LocalDateTime otherImporterRenewedAt;
+
+    /**
+     * The data version the latest weather in memory reflects, -1 until the first poll; guarded by this.
+     */
+    private long loadedDataVersion = -1L;
+
+    /**
+     * The configuration version the fee rules and station mapping in memory reflect, -1 until the first poll; guarded
+     * by this.
+     */
+    private long loadedConfigurationVersion = -1L;
+
+    public WeatherImportCoordinator(WeatherImportLeaseRepository weatherImportLeaseRepository,
+                                    LatestWeatherCache latestWeatherCache, FeeRuleCache feeRuleCache,
+                                    WeatherStationCache weatherStationCache, ApplicationEventPublisher eventPublisher,
+                                    @Value("${weather.import.lease.duration:20m}") Duration leaseDuration,
+                                    @Value("${weather.import.version-poll-interval:PT30S}") Duration pollInterval,
+                                    @Value("${weather.import.instance-id:}") String instanceId) {
+        this.weatherImportLeaseRepository = weatherImportLeaseRepository;
+        this.latestWeatherCache = latestWeatherCache;
+        this.feeRuleCache = feeRuleCache;
+        this.weatherStationCache = weatherStationCache;
+        this.eventPublisher = eventPublisher;
+        this.leaseDuration = leaseDuration;
+        this.pollInterval = pollInterval;
+        this.instanceId = instanceId == null || instanceId.isBlank() ? defaultInstanceId() : instanceId;
+    }
+
+    private static String defaultInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+
+    /**
+     * Creates the lease and configuration rows unless they exist or another instance creates them at the same time.
+     */
+    @PostConstruct
+    void createLeaseIfAbsent() {
+        createRowIfAbsent(LEASE_NAME);
+        createRowIfAbsent(CONFIGURATION_NAME);
+        createRowIfAbsent(RETENTION_LEASE_NAME);
+    }
+
+    private void createRowIfAbsent(String name) {
+        if (weatherImportLeaseRepository.existsById(name)) {
+            return;
+        }
+        try {
+            weatherImportLeaseRepository.saveAndFlush(new WeatherImportLease(name));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Weather import lease row {} was created by another instance", name);
+        }
+    }
+
+    /**
+     * Frees the lease on shutdown, so another instance can take over the imports without waiting for it to expire.
+     */
+    @PreDestroy
+    void releaseLease() {
+        try {
+            if (weatherImportLeaseRepository.release(LEASE_NAME, instanceId) > 0) {
+                logger.info("Released the weather import lease of instance {}", instanceId);
+            }
+            weatherImportLeaseRepository.release(RETENTION_LEASE_NAME, instanceId);
+        } catch (RuntimeException e) {
+            logger.warn("Could not release the weather import lease: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Takes the import lease if it is free or expired, or renews it if this instance holds it.
+     *
+     * @return True if this instance may import now, false if another instance holds the lease.
+     */
+    public boolean tryAcquireLease() {
+        boolean acquired = tryAcquire(LEASE_NAME, leaseDuration);
+        if (acquired != leaseHolder) {
+            logger.info(acquired
+                    ? "Instance {} took the weather import lease"
+                    : "Instance {} lost the weather import lease to another instance", instanceId);
+            leaseHolder = acquired;
+        }
+        return acquired;
+    }
+
+    /**
+     * Takes the retention lease if it is free or expired, or renews it if this instance holds it. Compactions of
+     * several instances would otherwise race to insert the same hourly rollups.
+     *
+     * @param duration How long the lease is held; shorter than the interval between compactions, so any instance may
+     *                 take the next one.
+     * @return True if this instance may compact now, false if another instance holds the lease.
+     */
+    public boolean tryAcquireRetentionLease(Duration duration) {
+        return tryAcquire(RETENTION_LEASE_NAME, duration);
+    }
+
+    private boolean tryAcquire(String name, Duration duration) {
+        LocalDateTime now = LocalDateTime.now();
+        return weatherImportLeaseRepository.tryAcquire(name, instanceId, now, now.plus(duration)) > 0;
+    }
+
+    /**
+     * Announces new weather data, imported or backfilled by this instance, to the other instances.
+     */
+    @EventListener(WeatherDataImportedEvent.class)
+    public synchronized void announceNewData() {
+        weatherImportLeaseRepository.incrementDataVersion(LEASE_NAME);
+        long version = weatherImportLeaseRepository.findDataVersion(LEASE_NAME).orElse(0L);
+        // This instance already holds the new data, unless another instance announced data at the same time
+        if (version == loadedDataVersion + 1) {
+            loadedDataVersion = version;
+        }
+    }
+
+    /**
+     * Reloads the latest weather if another instance has stored new data since it was last loaded, and publishes a
+     * {@link WeatherDataReloadedEvent}. Also notes when another instance holding the lease last renewed it.
+     */
+    @Scheduled(fixedDelayString = "${weather.import.version-poll-interval:PT30S}")
+    public void pollDataVersion() {
+        WeatherImportLease lease = weatherImportLeaseRepository.findById(LEASE_NAME).orElse(null);
+        long version = lease != null ? lease.getDataVersion() : 0L;
+        otherImporterRenewedAt = lease != null && lease.getLeasedUntil() != null
+                && lease.getLeasedUntil().isAfter(LocalDateTime.now()) && !instanceId.equals(lease.getOwner())
+                ? lease.getLeasedUntil().minus(leaseDuration)
+                : null;
+        synchronized (this) {
+            if (version == loadedDataVersion) {
+                return;
+            }
+        }
+
+        latestWeatherCache.refresh();
+        synchronized (this) {
+            loadedDataVersion = Math.max(loadedDataVersion, version);
+        }
+        logger.info("Reloaded the latest weather at data version {}", version);
+        eventPublisher.publishEvent(new WeatherDataReloadedEvent(version));
+    }
+
+    /**
+     * Announces a change of the fee rules or the station mapping, made through this instance, to the other instances.
+     */
+    @EventListener(ConfigurationChangedEvent.class)
+    public synchronized void announceConfigurationChange() {
+        weatherImportLeaseRepository.incrementDataVersion(CONFIGURATION_NAME);
+        long version = weatherImportLeaseRepository.findDataVersion(CONFIGURATION_NAME).orElse(0L);
+        // This instance already holds the change, unless another instance changed the configuration at the same time
+        if (version == loadedConfigurationVersion + 1) {
+            loadedConfigurationVersion = version;
+        }
+    }
+
+    /**
+     * Reloads the station mapping and the fee rules if another instance has changed them since they were last loaded.
+     * The caches announce the reload with their usual events, which rebuild the fee matrix.
+     */
+    @Scheduled(fixedDelayString = "${weather.import.version-poll-interval:PT30S}")
+    public void pollConfigurationVersion() {
+        long version = weatherImportLeaseRepository.findDataVersion(CONFIGURATION_NAME).orElse(0L);
+        synchronized (this) {
+            if (version == loadedConfigurationVersion) {
+                return;
+            }
+        }
+
+        weatherStationCache.reload();
+        feeRuleCache.reload();
+        synchronized (this) {
+            loadedConfigurationVersion = Math.max(loadedConfigurationVersion, version);
+        }
+        logger.info("Reloaded the fee rules and weather stations at configuration version {}", version);
+    }
+
+    /**
+     * Estimates when the latest weather on this instance changes next if another instance imports it: one import
+     * interval after that instance last renewed the lease, when it imports again, plus the poll interval within which
+     * this instance reloads the new data.
+     *
+     * @param importInterval The interval between imports.
+     * @return The estimated time, or null if no other instance holds the lease.
+     */
+    public LocalDateTime estimateReloadByOtherImporter(Duration importInterval) {
+        LocalDateTime renewedAt = otherImporterRenewedAt;
+        return renewedAt != null ? renewedAt.plus(importInterval).plus(pollInterval) : null;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.dto.WeatherImportLeaseStatus;
+import com.example.fooddelivery.dto.WeatherImportResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the weather imports and answers when the next one runs, so that responses depending on the latest weather can
+ * be cached exactly until they may change.
+ * <p>
+ * At most one import runs at a time: an import requested while another is in progress joins it instead of fetching
+ * the feeds again. The next import is planned once the previous one has finished, after the configured interval plus
+ * a random jitter, so slow feeds never cause overlapping runs and instances started together drift apart. After a
+ * failed import the delay is the backoff instead, doubling with every consecutive failure up to its maximum.
+ * <p>
+ * When several instances share the database, only the instance holding the {@link WeatherImportCoordinator} lease
+ * imports; the others skip their runs, and expect the next change of the weather from the lease holder's schedule.
+ */
+@Service
+public class WeatherImportSchedule {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherImportSchedule.class);
+
+    private final WeatherDataService weatherDataService;
+    private final WeatherImportCoordinator weatherImportCoordinator;
+    private final boolean enabled;
+    private final Duration interval;
+    private final Duration jitter;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    /**
+     * Runs the imports and the timer planning them, on a single thread.
+     */
+    private final ScheduledExecutorService executor;
+
+    /**
+     * The import in progress, or null; guarded by this, like the planned run and the failure count.
+     */
+    private CompletableFuture<WeatherImportResult> inProgress;
+    private ScheduledFuture<?> plannedImport;
+    private int consecutiveFailures;
+
+    /**
+     * When the planned import runs, or null if none is planned.
+     */
+    private volatile LocalDateTime nextImportAt;
+
+    public WeatherImportSchedule(WeatherDataService weatherDataService,
+                                 WeatherImportCoordinator weatherImportCoordinator,
+                                 @Value("${weather.import.enabled:true}") boolean enabled,
+                                 @Value("${weather.import.interval:15m}") Duration interval,
+                                 @Value("${weather.import.jitter:30s}") Duration jitter,
+                                 @Value("${weather.import.backoff.initial:1m}") Duration initialBackoff,
+                                 @Value("${weather.import.backoff.max:1h}") Duration maxBackoff) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("weather.import.interval must be positive: " + interval);
+        }
+        if (jitter.isNegative()) {
+            throw new IllegalArgumentException("weather.import.jitter must not be negative: " + jitter);
+        }
+        if (initialBackoff.isNegative() || initialBackoff.isZero() || maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException("weather.import.backoff.initial must be positive and at most "
+                    + "weather.import.backoff.max: " + initialBackoff + ", " + maxBackoff);
+        }
+        this.weatherDataService = weatherDataService;
+        this.weatherImportCoordinator = weatherImportCoordinator;
+        this.enabled = enabled;
+        this.interval = interval;
+        this.jitter = jitter;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "weather-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Plans the first import one interval after startup, unless scheduled imports are disabled.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled) {
+            logger.info("Scheduled weather imports are disabled");
+            return;
+        }
+        planNextImport();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts a weather import, or joins the one in progress.
+     *
+     * @return The outcome of the import, completing once it has finished.
+     */
+    public synchronized CompletableFuture<WeatherImportResult> trigger() {
+        if (inProgress != null) {
+            logger.info("Weather import already in progress, joining it");
+            return inProgress;
+        }
+        CompletableFuture<WeatherImportResult> run = new CompletableFuture<>();
+        executor.execute(() -> runImport(run));
+        inProgress = run;
+        return run;
+    }
+
+    private void runImport(CompletableFuture<WeatherImportResult> run) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        WeatherImportLeaseStatus leaseStatus = WeatherImportLeaseStatus.UNAVAILABLE;
+        boolean succeeded = false;
+        try {
+            if (weatherImportCoordinator.tryAcquireLease()) {
+                logger.info("Running weather data import...");
+                leaseStatus = WeatherImportLeaseStatus.ACQUIRED;
+                succeeded = weatherDataService.fetchAndStoreWeatherData();
+            } else {
+                logger.debug("Another instance holds the weather import lease, skipping the import");
+                leaseStatus = WeatherImportLeaseStatus.HELD_ELSEWHERE;
+                succeeded = true;
+            }
+        } catch (RuntimeException e) {
+            logger.error("Unexpected error during weather data import", e);
+        } catch (Error e) {
+            logger.error("Fatal error during weather data import", e);
+            throw e;
+        } finally {
+            // Also reached on errors, so the run completes and a later trigger starts a new import.
+            WeatherImportResult result;
+            synchronized (this) {
+                consecutiveFailures = succeeded ? 0 : consecutiveFailures + 1;
+                if (enabled) {
+                    planNextImport();
+                }
+                inProgress = null;
+                result = new WeatherImportResult(succeeded, leaseStatus, startedAt, LocalDateTime.now(),
+                        consecutiveFailures, nextImportAt);
+            }
+            run.complete(result);
+        }
+    }
+
+    /**
+     * Replaces the planned import with one after the delay for the current failure count. Must hold the lock.
+     */
+    private void planNextImport() {
+        if (plannedImport != null) {
+            plannedImport.cancel(false);
+        }
+        Duration delay = nextDelay(consecutiveFailures);
+        if (consecutiveFailures > 0) {
+            logger.warn("Weather import failed {} times in a row, retrying in {}", consecutiveFailures, delay);
+        }
+        nextImportAt = LocalDateTime.now().plus(delay);
+        plannedImport = executor.schedule(this::trigger, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param consecutiveFailures The number of imports that failed in a row, 0 after a successful import.
+     * @return The interval after a successful import, the backoff after a failed one, plus a random jitter.
+     */
+    Duration nextDelay(int consecutiveFailures) {
+        Duration delay = consecutiveFailures == 0 ? interval : backoff(consecutiveFailures);
+        long jitterMillis = jitter.isZero() ? 0 : ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1);
+        return delay.plusMillis(jitterMillis);
+    }
+
+    /**
+     * @return The initial backoff doubled for every failure after the first, at most the maximum backoff.
+     */
+    Duration backoff(int consecutiveFailures) {
+        int doublings = Math.min(consecutiveFailures - 1, 20);
+        Duration backoff = initialBackoff.multipliedBy(1L << doublings);
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    /**
+     * @return The whole seconds from now until the next scheduled weather import.
+     */
+    public long secondsUntilNextImport() {
+        return secondsUntilNextImport(LocalDateTime.now());
+    }
+
+    /**
+     * Calculates the whole seconds from the given time until the next scheduled weather import. While another
+     * instance holds the import lease, that is the time this instance is expected to reload the weather it imports.
+     *
+     * @param now The current time.
+     * @return The seconds until the next import, or 0 if imports are disabled or none is planned yet.
+     */
+    long secondsUntilNextImport(LocalDateTime now) {
+        LocalDateTime reloadAt = weatherImportCoordinator.estimateReloadByOtherImporter(interval);
+        LocalDateTime next = reloadAt != null ? reloadAt : nextImportAt;
+        if (next == null) {
+            return 0L;
+        }
+        return Math.max(0L, Duration.between(now, next).getSeconds());
+    }
+}
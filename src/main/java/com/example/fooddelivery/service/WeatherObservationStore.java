@@ -0,0 +1,100 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.dto.ObservationKey;
+import com.example.fooddelivery.entity.WeatherData;
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stores weather observations that are not stored yet, in bulk.
+ * <p>
+ * Observations are handled in chunks: the keys of a chunk are checked against the database with one query and the
+ * new observations are inserted as JDBC batches, all in one transaction. The persistence context is cleared after
+ * every chunk, so a backfill of any size runs in bounded memory. New observations are linked to their mapped
+ * station, if any, as they are stored.
+ */
+@Service
+public class WeatherObservationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherObservationStore.class);
+
+    /**
+     * Observations per key lookup, which bounds the size of the lookup's IN lists.
+     */
+    static final int CHUNK_SIZE = 500;
+
+    private final WeatherDataRepository weatherDataRepository;
+    private final WeatherStationCache weatherStationCache;
+    private final EntityManager entityManager;
+
+    public WeatherObservationStore(WeatherDataRepository weatherDataRepository,
+                                   WeatherStationCache weatherStationCache, EntityManager entityManager) {
+        this.weatherDataRepository = weatherDataRepository;
+        this.weatherStationCache = weatherStationCache;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Stores the observations whose WMO code and timestamp are not stored yet. Of several observations with the same
+     * key, only the first is stored.
+     *
+     * @param observations The observations to store.
+     * @return The observations that were stored, in input order.
+     */
+    @Transactional
+    public List<WeatherData> saveNew(Collection<WeatherData> observations) {
+        List<WeatherData> saved = new ArrayList<>();
+        Set<ObservationKey> seen = new HashSet<>();
+        List<WeatherData> chunk = new ArrayList<>(Math.min(observations.size(), CHUNK_SIZE));
+        for (WeatherData observation : observations) {
+            chunk.add(observation);
+            if (chunk.size() == CHUNK_SIZE) {
+                saveNewInChunk(chunk, seen, saved);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saveNewInChunk(chunk, seen, saved);
+        }
+
+        logger.debug("Stored {} of {} weather observations", saved.size(), observations.size());
+        return saved;
+    }
+
+    private void saveNewInChunk(List<WeatherData> chunk, Set<ObservationKey> seen, List<WeatherData> saved) {
+        Set<Integer> wmoCodes = new HashSet<>();
+        Set<LocalDateTime> timestamps = new HashSet<>();
+        for (WeatherData observation : chunk) {
+            wmoCodes.add(observation.getWmoCode());
+            timestamps.add(observation.getTimestamp());
+        }
+        // The lookup matches every combination of the codes and timestamps; the key set filters the surplus out
+        seen.addAll(weatherDataRepository.findKeysByWmoCodeInAndTimestampIn(wmoCodes, timestamps));
+
+        List<WeatherData> newObservations = new ArrayList<>(chunk.size());
+        for (WeatherData observation : chunk) {
+            if (seen.add(new ObservationKey(observation.getWmoCode(), observation.getTimestamp()))) {
+                observation.setStationId(weatherStationCache.findStationId(observation.getStationName()));
+                newObservations.add(observation);
+            }
+        }
+        if (newObservations.isEmpty()) {
+            return;
+        }
+
+        saved.addAll(weatherDataRepository.saveAll(newObservations));
+        weatherDataRepository.flush();
+        entityManager.clear();
+    }
+}
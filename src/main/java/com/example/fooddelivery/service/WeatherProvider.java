@@ -0,0 +1,37 @@
+package com.example.fooddelivery.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * A source of current weather observations, such as the national observations feed of one country.
+ * <p>
+ * Every provider bean is fetched by {@link WeatherDataService} on each import, concurrently with the others, and
+ * the observations of all providers are stored together.
+ */
+public interface WeatherProvider {
+
+    /**
+     * @return A short name identifying the provider in logs and metrics.
+     */
+    String getName();
+
+    /**
+     * @return The names of the stations whose observations the provider returns.
+     */
+    Collection<String> getStations();
+
+    /**
+     * @return How long a fetch may take before the import continues without this provider.
+     */
+    Duration getTimeout();
+
+    /**
+     * Fetches the provider's current observations of its stations. Called from a worker thread.
+     *
+     * @return The observations, or an empty fetch if nothing changed since the last import.
+     * @throws IOException If the observations could not be fetched or read.
+     */
+    WeatherFetch fetch() throws IOException;
+}
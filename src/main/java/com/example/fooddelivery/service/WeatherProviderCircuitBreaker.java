@@ -0,0 +1,92 @@
+package com.example.fooddelivery.service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops fetching a weather provider that keeps failing, so an unhealthy feed is not waited on at every import.
+ * <p>
+ * The circuit opens after a number of consecutive failed or timed out fetches. While it is open, fetches are skipped
+ * without contacting the provider. Once the open duration has passed, the circuit turns half-open and lets a single
+ * probe fetch through: if the probe succeeds the circuit closes, otherwise it opens again for another open duration.
+ */
+final class WeatherProviderCircuitBreaker {
+
+    enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final LongSupplier nanoClock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    /**
+     * @param failureThreshold The consecutive failures that open the circuit.
+     * @param openDuration     How long the circuit stays open before a probe is let through.
+     * @param nanoClock        The source of {@link System#nanoTime()}-like readings.
+     */
+    WeatherProviderCircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("Circuit breaker failure threshold must be positive: "
+                    + failureThreshold);
+        }
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Asks whether the provider may be fetched now. Turns an open circuit half-open once the open duration has
+     * passed, admitting the caller as the probe.
+     *
+     * @return True if the fetch may go ahead, false if it must be skipped.
+     */
+    synchronized boolean tryAcquire() {
+        return switch (state) {
+            case CLOSED -> true;
+            case HALF_OPEN -> false;
+            case OPEN -> {
+                if (nanoClock.getAsLong() - openedAt < openDurationNanos) {
+                    yield false;
+                }
+                state = State.HALF_OPEN;
+                yield true;
+            }
+        };
+    }
+
+    /**
+     * Records a fetch that went through, closing the circuit.
+     */
+    synchronized void recordSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * Records a failed or timed out fetch, opening the circuit if it was a probe or the failure threshold is reached.
+     *
+     * @return True if this failure opened the circuit.
+     */
+    synchronized boolean recordFailure() {
+        consecutiveFailures++;
+        if (state == State.OPEN || (state == State.CLOSED && consecutiveFailures < failureThreshold)) {
+            return false;
+        }
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+        return true;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.WeatherData;
+import com.example.fooddelivery.entity.WeatherHourlyRollup;
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import com.example.fooddelivery.repository.WeatherHourlyRollupRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the raw weather table bounded: observations older than the retention window are compacted into hourly
+ * per-station {@link WeatherHourlyRollup} rows and then deleted.
+ * <p>
+ * Expired rows are handled oldest first in batches, each in its own transaction, so a run holds locks and memory for
+ * one batch at a time however far behind it is. A batch never splits an hour unless the hour alone fills the batch.
+ * <p>
+ * When several instances share the database, only the instance taking the {@link WeatherImportCoordinator} retention
+ * lease compacts in a scheduled run.
+ */
+@Service
+public class WeatherRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherRetentionService.class);
+
+    private final WeatherDataRepository weatherDataRepository;
+    private final WeatherHourlyRollupRepository weatherHourlyRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final WeatherImportCoordinator weatherImportCoordinator;
+    private final Duration rawRetention;
+    private final int batchSize;
+    private final Duration leaseDuration;
+
+    private final Counter compactedRecords;
+    private final Timer compactionTimer;
+
+    public WeatherRetentionService(WeatherDataRepository weatherDataRepository,
+                                   WeatherHourlyRollupRepository weatherHourlyRollupRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   WeatherImportCoordinator weatherImportCoordinator,
+                                   @Value("${weather.retention.raw-window:30d}") Duration rawRetention,
+                                   @Value("${weather.retention.batch-size:1000}") int batchSize,
+                                   @Value("${weather.retention.lease-duration:30m}") Duration leaseDuration,
+                                   MeterRegistry meterRegistry) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("weather.retention.batch-size must be positive: " + batchSize);
+        }
+        this.weatherDataRepository = weatherDataRepository;
+        this.weatherHourlyRollupRepository = weatherHourlyRollupRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.weatherImportCoordinator = weatherImportCoordinator;
+        this.rawRetention = rawRetention;
+        this.batchSize = batchSize;
+        this.leaseDuration = leaseDuration;
+
+        this.compactedRecords = Counter.builder("weather.retention.compacted")
+                .description("Raw weather records compacted into hourly rollups and deleted")
+                .register(meterRegistry);
+        this.compactionTimer = Timer.builder("weather.retention.duration")
+                .description("Duration of a weather retention run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Scheduled method to periodically compact the weather observations past the retention window, on the one
+     * instance that takes the retention lease.
+     */
+    @Scheduled(cron = "${weather.retention.cron:0 30 * * * *}")
+    public void scheduledCompaction() {
+        if (!weatherImportCoordinator.tryAcquireRetentionLease(leaseDuration)) {
+            logger.debug("Another instance holds the weather retention lease, skipping the compaction");
+            return;
+        }
+        compactExpired(LocalDateTime.now());
+    }
+
+    /**
+     * Compacts and deletes every raw observation before the start of the hour the retention window ends in.
+     *
+     * @param now The current time.
+     * @return The number of raw observations compacted.
+     */
+    public int compactExpired(LocalDateTime now) {
+        LocalDateTime cutoff = now.minus(rawRetention).truncatedTo(ChronoUnit.HOURS);
+        return compactionTimer.record(() -> {
+            int total = 0;
+            int compacted;
+            do {
+                compacted = Objects.requireNonNull(transactionTemplate.execute(status -> compactBatch(cutoff)));
+                total += compacted;
+            } while (compacted > 0);
+
+            if (total > 0) {
+                logger.info("Compacted {} weather observations before {} into hourly rollups", total, cutoff);
+            }
+            return total;
+        });
+    }
+
+    /**
+     * Compacts the oldest batch of observations before the cutoff.
+     *
+     * @return The number of observations compacted, 0 once none are left.
+     */
+    private int compactBatch(LocalDateTime cutoff) {
+        List<WeatherData> expired = weatherDataRepository
+                .findByTimestampBeforeOrderByTimestampAscIdAsc(cutoff, PageRequest.of(0, batchSize));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        if (expired.size() == batchSize) {
+            expired = withoutLastHour(expired);
+        }
+
+        Map<RollupKey, List<WeatherData>> byHour = new LinkedHashMap<>();
+        for (WeatherData observation : expired) {
+            byHour.computeIfAbsent(new RollupKey(observation.getStationName(), hourOf(observation)),
+                    key -> new ArrayList<>()).add(observation);
+        }
+
+        Map<RollupKey, WeatherHourlyRollup> existing = new HashMap<>();
+        for (WeatherHourlyRollup rollup : weatherHourlyRollupRepository.findByHourStartBetween(
+                hourOf(expired.get(0)), hourOf(expired.get(expired.size() - 1)))) {
+            existing.put(new RollupKey(rollup.getStationName(), rollup.getHourStart()), rollup);
+        }
+
+        List<WeatherHourlyRollup> rollups = new ArrayList<>(byHour.size());
+        byHour.forEach((key, observations) -> rollups.add(rollUp(key, observations, existing.get(key))));
+        weatherHourlyRollupRepository.saveAll(rollups);
+
+        List<Long> ids = new ArrayList<>(expired.size());
+        for (WeatherData observation : expired) {
+            ids.add(observation.getId());
+        }
+        weatherDataRepository.deleteAllByIdInBatch(ids);
+
+        compactedRecords.increment(expired.size());
+        return expired.size();
+    }
+
+    /**
+     * Drops the observations of the last hour of a full batch, which may continue past the batch, so that the next
+     * batch compacts the hour whole. A batch covering a single hour is kept as it is.
+     */
+    private static List<WeatherData> withoutLastHour(List<WeatherData> batch) {
+        LocalDateTime lastHour = hourOf(batch.get(batch.size() - 1));
+        int end = batch.size();
+        while (end > 0 && hourOf(batch.get(end - 1)).equals(lastHour)) {
+            end--;
+        }
+        return end == 0 ? batch : batch.subList(0, end);
+    }
+
+    /**
+     * Rolls the observations of one station and hour up, merging them into the hour's existing rollup if there is
+     * one. Observations stored after their hour was compacted are merged weighted by observation count, and only
+     * replace the dominant phenomenon if they outnumber the hour's earlier observations.
+     */
+    private static WeatherHourlyRollup rollUp(RollupKey key, List<WeatherData> observations,
+                                              WeatherHourlyRollup existing) {
+        Stats temperature = new Stats();
+        Stats windSpeed = new Stats();
+        Map<String, Integer> phenomenonCounts = new HashMap<>();
+        String dominantPhenomenon = null;
+        int dominantCount = 0;
+        for (WeatherData observation : observations) {
+            temperature.add(observation.getAirTemperature());
+            windSpeed.add(observation.getWindSpeed());
+            String phenomenon = observation.getWeatherPhenomenon();
+            if (phenomenon != null && !phenomenon.isBlank()) {
+                int count = phenomenonCounts.merge(phenomenon, 1, Integer::sum);
+                if (count >= dominantCount) {
+                    dominantPhenomenon = phenomenon;
+                    dominantCount = count;
+                }
+            }
+        }
+
+        WeatherHourlyRollup rollup = existing != null ? existing : new WeatherHourlyRollup();
+        if (existing == null) {
+            rollup.setStationName(key.stationName());
+            rollup.setWmoCode(observations.get(0).getWmoCode());
+            rollup.setHourStart(key.hourStart());
+            rollup.setObservationCount(0);
+        } else {
+            temperature.merge(existing.getMinAirTemperature(), existing.getMaxAirTemperature(),
+                    existing.getAvgAirTemperature(), existing.getObservationCount());
+            windSpeed.merge(existing.getMinWindSpeed(), existing.getMaxWindSpeed(),
+                    existing.getAvgWindSpeed(), existing.getObservationCount());
+            if (existing.getDominantPhenomenon() != null && dominantCount <= existing.getObservationCount()) {
+                dominantPhenomenon = existing.getDominantPhenomenon();
+            }
+        }
+
+        rollup.setObservationCount(rollup.getObservationCount() + observations.size());
+        rollup.setMinAirTemperature(temperature.min);
+        rollup.setMaxAirTemperature(temperature.max);
+        rollup.setAvgAirTemperature(temperature.average());
+        rollup.setMinWindSpeed(windSpeed.min);
+        rollup.setMaxWindSpeed(windSpeed.max);
+        rollup.setAvgWindSpeed(windSpeed.average());
+        rollup.setDominantPhenomenon(dominantPhenomenon);
+        return rollup;
+    }
+
+    private static LocalDateTime hourOf(WeatherData observation) {
+        return observation.getTimestamp().truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private record RollupKey(String stationName, LocalDateTime hourStart) {
+    }
+
+    /**
+     * Minimum, maximum and mean of a measurement, ignoring missing values.
+     */
+    private static final class Stats {
+        private Double min;
+        private Double max;
+        private double sum;
+        private long count;
+
+        void add(Double value) {
+            merge(value, value, value, 1);
+        }
+
+        void merge(Double otherMin, Double otherMax, Double otherAverage, long otherCount) {
+            if (otherAverage == null) {
+                return;
+            }
+            min = min == null ? otherMin : Math.min(min, otherMin);
+            max = max == null ? otherMax : Math.max(max, otherMax);
+            sum += otherAverage * otherCount;
+            count += otherCount;
+        }
+
+        Double average() {
+            return count == 0 ? null : sum / count;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.WeatherStation;
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import com.example.fooddelivery.repository.WeatherStationRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the station-to-city mapping, so that the stations serving a city are resolved by an exact lookup instead of
+ * matching station names against the city.
+ * <p>
+ * Cities without mapped stations keep being served by the stations whose names contain the city. A database without
+ * any mapping is seeded with the configured target stations, each mapped to the city its name starts with.
+ */
+@Service
+public class WeatherStationCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherStationCache.class);
+
+    private final WeatherStationRepository weatherStationRepository;
+    private final WeatherDataRepository weatherDataRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final List<String> targetStations;
+
+    /**
+     * The mapped stations per city and the station id per station name. Never modified once published.
+     */
+    private volatile Map<String, List<WeatherStation>> stationsByCity = Map.of();
+    private volatile Map<String, Long> stationIdsByName = Map.of();
+
+    public WeatherStationCache(WeatherStationRepository weatherStationRepository,
+                               WeatherDataRepository weatherDataRepository,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${weather.target.stations}") List<String> targetStations) {
+        this.weatherStationRepository = weatherStationRepository;
+        this.weatherDataRepository = weatherDataRepository;
+        this.eventPublisher = eventPublisher;
+        this.targetStations = targetStations;
+    }
+
+    /**
+     * Seeds the mapping unless stations are mapped already, and loads it.
+     */
+    @PostConstruct
+    void initialize() {
+        seedTargetStationsIfEmpty();
+        reload();
+    }
+
+    /**
+     * Maps every target station to the city its name starts with, e.g. "Tartu-Tõravere" to "Tartu", unless any
+     * station is mapped already or another instance seeds the mapping at the same time.
+     */
+    private void seedTargetStationsIfEmpty() {
+        if (targetStations.isEmpty() || weatherStationRepository.count() > 0) {
+            return;
+        }
+        List<WeatherStation> seeds = targetStations.stream()
+                .map(String::trim)
+                .filter(stationName -> !stationName.isEmpty())
+                .map(stationName -> new WeatherStation(stationName, cityOf(stationName)))
+                .toList();
+        try {
+            weatherStationRepository.saveAll(seeds);
+            logger.info("Mapped the {} target weather stations to their cities", seeds.size());
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Target weather stations were mapped by another instance");
+        }
+    }
+
+    /**
+     * @return The part of the station name before the first hyphen, or the whole name if it has none.
+     */
+    static String cityOf(String stationName) {
+        int hyphen = stationName.indexOf('-');
+        return hyphen > 0 ? stationName.substring(0, hyphen) : stationName;
+    }
+
+    /**
+     * Reloads the mapping after this instance changed it, and announces the change to the other instances with a
+     * {@link ConfigurationChangedEvent}.
+     */
+    public void refresh() {
+        reload();
+        eventPublisher.publishEvent(new ConfigurationChangedEvent());
+    }
+
+    /**
+     * Links stored observations of newly mapped stations to their station, reloads the mapping and announces the
+     * change with a {@link WeatherStationsRefreshedEvent}.
+     */
+    synchronized void reload() {
+        int linked = weatherDataRepository.assignUnresolvedStationIds();
+        if (linked > 0) {
+            logger.info("Linked {} stored weather observations to their mapped station", linked);
+        }
+
+        Map<String, List<WeatherStation>> byCity = new HashMap<>();
+        Map<String, Long> idsByName = new HashMap<>();
+        List<WeatherStation> stations = weatherStationRepository.findAll();
+        for (WeatherStation station : stations) {
+            byCity.computeIfAbsent(station.getCity(), city -> new ArrayList<>()).add(station);
+            idsByName.put(station.getStationName(), station.getId());
+        }
+        byCity.replaceAll((city, cityStations) -> List.copyOf(cityStations));
+        stationsByCity = Map.copyOf(byCity);
+        stationIdsByName = Map.copyOf(idsByName);
+
+        logger.info("Loaded {} weather stations mapped to {} cities", stations.size(), byCity.size());
+        eventPublisher.publishEvent(new WeatherStationsRefreshedEvent(stations.size()));
+    }
+
+    /**
+     * @param city The city for delivery, as named in the fee rules.
+     * @return The stations mapped to the city, empty if the city has none.
+     */
+    public List<WeatherStation> findStations(String city) {
+        return city == null ? List.of() : stationsByCity.getOrDefault(city, List.of());
+    }
+
+    /**
+     * @param stationName The station name in the observations feed.
+     * @return The id of the mapped station, or null if the station is not mapped.
+     */
+    public Long findStationId(String stationName) {
+        return stationIdsByName.get(stationName);
+    }
+}
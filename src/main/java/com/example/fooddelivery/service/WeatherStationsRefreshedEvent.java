@@ -0,0 +1,9 @@
+package com.example.fooddelivery.service;
+
+/**
+ * Published by {@link WeatherStationCache} after the station-to-city mapping has been reloaded.
+ *
+ * @param mappedStations The number of mapped stations.
+ */
+public record WeatherStationsRefreshedEvent(int mappedStations) {
+}
@@ -0,0 +1,68 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.WeatherData;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Weather observations of a city ordered by time, used to resolve the observation in effect at many past instants
+ * with a binary search instead of one query each.
+ */
+final class WeatherTimeline {
+
+    private final WeatherData[] observations;
+    private final LocalDateTime[] timestamps;
+
+    /**
+     * @param observations Observations from any of the city's stations, in any order. Rows without a timestamp
+     *                     are ignored.
+     */
+    WeatherTimeline(List<WeatherData> observations) {
+        List<WeatherData> sorted = new ArrayList<>(observations.size());
+        for (WeatherData observation : observations) {
+            if (observation.getTimestamp() != null) {
+                sorted.add(observation);
+            }
+        }
+        sorted.sort(Comparator.comparing(WeatherData::getTimestamp));
+
+        this.observations = sorted.toArray(new WeatherData[0]);
+        this.timestamps = new LocalDateTime[this.observations.length];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = this.observations[i].getTimestamp();
+        }
+    }
+
+    /**
+     * Finds the latest observation at or before the given time.
+     *
+     * @param time The point in time.
+     * @return The index of the observation, or -1 if there was none yet.
+     */
+    int indexAt(LocalDateTime time) {
+        int low = 0;
+        int high = timestamps.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid].isAfter(time)) {
+                high = mid - 1;
+            } else {
+                found = mid;
+                low = mid + 1;
+            }
+        }
+        return found;
+    }
+
+    WeatherData observation(int index) {
+        return index < 0 ? null : observations[index];
+    }
+
+    int size() {
+        return observations.length;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.fooddelivery.config;
+
+import org.junit.jupiter.api.function.ThrowingSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Asserts that a unit of work stays within a budget of SQL statements, so that N+1 queries and other regressions
+ * in database access fail tests instead of surfacing as latency.
+ */
+public final class SqlStatementBudget {
+
+    private SqlStatementBudget() {
+    }
+
+    /**
+     * Runs the work on the current thread and fails if it issued more SQL statements than the budget allows.
+     *
+     * @param counter     The application's statement counter.
+     * @param budget      The maximum number of statements.
+     * @param description What the work is, for the failure message.
+     * @param work        The work to run.
+     * @return The result of the work.
+     */
+    public static <T> T assertAtMost(SqlStatementCounter counter, int budget, String description,
+                                     ThrowingSupplier<T> work) {
+        T result;
+        int statements;
+        try (SqlStatementCounter.Recording recording = counter.startRecording()) {
+            try {
+                result = work.get();
+            } catch (Throwable ex) {
+                return fail(description + " failed", ex);
+            }
+            statements = recording.getCount();
+        }
+
+        assertTrue(statements <= budget,
+                description + " issued " + statements + " SQL statements, budget is " + budget);
+        return result;
+    }
+}
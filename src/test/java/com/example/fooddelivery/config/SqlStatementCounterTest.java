@@ -0,0 +1,66 @@
+package com.example.fooddelivery.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatementCounterTest {
+
+    private final SqlStatementCounter counter = new SqlStatementCounter();
+
+    @Test
+    void testInspect_ReturnsStatementUnchanged() {
+        assertEquals("select 1", counter.inspect("select 1"));
+    }
+
+    @Test
+    void testRecording_CountsOnlyWhileOpen() {
+        counter.inspect("select 1");
+
+        SqlStatementCounter.Recording recording = counter.startRecording();
+        counter.inspect("select 1");
+        counter.inspect("select 2");
+        recording.close();
+        counter.inspect("select 3");
+
+        assertEquals(2, recording.getCount());
+    }
+
+    @Test
+    void testRecording_NestedRecordingsBothCount() {
+        try (SqlStatementCounter.Recording outer = counter.startRecording()) {
+            counter.inspect("select 1");
+            try (SqlStatementCounter.Recording inner = counter.startRecording()) {
+                counter.inspect("select 2");
+                assertEquals(1, inner.getCount());
+            }
+            counter.inspect("select 3");
+
+            assertEquals(3, outer.getCount());
+        }
+    }
+
+    @Test
+    void testRecording_IgnoresOtherThreads() {
+        try (SqlStatementCounter.Recording recording = counter.startRecording()) {
+            CompletableFuture.runAsync(() -> counter.inspect("select 1")).join();
+
+            assertEquals(0, recording.getCount());
+        }
+    }
+
+    @Test
+    void testAssertAtMost_FailsOverBudget() {
+        assertEquals("ok", SqlStatementBudget.assertAtMost(counter, 1, "one statement", () -> {
+            counter.inspect("select 1");
+            return "ok";
+        }));
+
+        assertThrows(AssertionError.class, () -> SqlStatementBudget.assertAtMost(counter, 1, "two statements", () -> {
+            counter.inspect("select 1");
+            return counter.inspect("select 2");
+        }));
+    }
+}
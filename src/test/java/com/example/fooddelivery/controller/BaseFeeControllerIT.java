@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
@@ -52,6 +53,26 @@ class BaseFeeControllerIT {
                 .andExpect(jsonPath("$[0].fee", is(5.0)));
     }
 
+    @Test
+    void testGetAllBaseFees_ETagChangesWithRules() throws Exception {
+        String eTag = mockMvc.perform(get("/api/base-fee"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/base-fee").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/api/base-fee")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BaseFee("Tartu", "Bike", 3.5))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/base-fee").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+    }
+
     @Test
     void testCreateBaseFee_ShouldReturnCreated() throws Exception {
         BaseFee newBaseFee = new BaseFee("Tartu", "Bike", 3.5);
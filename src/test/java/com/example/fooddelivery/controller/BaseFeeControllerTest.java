@@ -4,6 +4,7 @@ import com.example.fooddelivery.entity.BaseFee;
 import com.example.fooddelivery.exception.BaseFeeDeletionException;
 import com.example.fooddelivery.exception.ResourceNotFoundException;
 import com.example.fooddelivery.repository.BaseFeeRepository;
+import com.example.fooddelivery.service.FeeRuleCache;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -27,11 +28,14 @@ class BaseFeeControllerTest {
     @Mock
     private BaseFeeRepository baseFeeRepository;
 
+    @Mock
+    private FeeRuleCache feeRuleCache;
+
     private BaseFeeController baseFeeController;
 
     @BeforeEach
     void setUp() {
-        baseFeeController = new BaseFeeController(baseFeeRepository);
+        baseFeeController = new BaseFeeController(baseFeeRepository, feeRuleCache);
     }
 
     @Test
@@ -39,13 +43,36 @@ class BaseFeeControllerTest {
         List<BaseFee> mockFees = List.of(new BaseFee("Tallinn", "Car", 5.0));
         when(baseFeeRepository.findAll()).thenReturn(mockFees);
 
-        ResponseEntity<List<BaseFee>> response = baseFeeController.getAllBaseFees();
+        ResponseEntity<List<BaseFee>> response = baseFeeController.getAllBaseFees(null);
 
         assertEquals(200, response.getStatusCode().value());
         assertEquals(1, Objects.requireNonNull(response.getBody()).size());
         verify(baseFeeRepository, times(1)).findAll();
     }
 
+    @Test
+    void testGetAllBaseFees_ShouldCarryRulesETag() {
+        when(feeRuleCache.getETag()).thenReturn("\"rules-1\"");
+        when(baseFeeRepository.findAll()).thenReturn(List.of(new BaseFee("Tallinn", "Car", 5.0)));
+
+        ResponseEntity<List<BaseFee>> response = baseFeeController.getAllBaseFees(null);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("\"rules-1\"", response.getHeaders().getETag());
+        assertEquals("no-cache", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    void testGetAllBaseFees_MatchingETag_ShouldReturnNotModifiedWithoutQuery() {
+        when(feeRuleCache.getETag()).thenReturn("\"rules-1\"");
+
+        ResponseEntity<List<BaseFee>> response = baseFeeController.getAllBaseFees("\"rules-0\", W/\"rules-1\"");
+
+        assertEquals(304, response.getStatusCode().value());
+        assertNull(response.getBody());
+        verify(baseFeeRepository, never()).findAll();
+    }
+
     @Test
     void testCreateBaseFee() {
         BaseFee newBaseFee = new BaseFee("Tartu", "Bike", 3.5);
@@ -56,6 +83,7 @@ class BaseFeeControllerTest {
         assertEquals(201, response.getStatusCode().value());
         assertEquals("Tartu", Objects.requireNonNull(response.getBody()).getCity());
         verify(baseFeeRepository, times(1)).save(any(BaseFee.class));
+        verify(feeRuleCache, times(1)).refresh();
     }
 
     @Test
@@ -106,6 +134,7 @@ class BaseFeeControllerTest {
 
         assertEquals(204, response.getStatusCode().value());
         verify(baseFeeRepository, times(1)).deleteById(1L);
+        verify(feeRuleCache, times(1)).refresh();
     }
 
     @Test
@@ -121,6 +150,7 @@ class BaseFeeControllerTest {
         doThrow(new RuntimeException("DB Error")).when(baseFeeRepository).deleteById(1L);
 
         assertThrows(BaseFeeDeletionException.class, () -> baseFeeController.deleteBaseFee(1L));
+        verify(feeRuleCache, never()).refresh();
     }
 
     @Test
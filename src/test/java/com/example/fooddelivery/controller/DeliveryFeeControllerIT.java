@@ -1,9 +1,13 @@
 package com.example.fooddelivery.controller;
 
+import com.example.fooddelivery.dto.DeliveryFeeBatchResult;
 import com.example.fooddelivery.dto.DeliveryFeeRequest;
 import com.example.fooddelivery.dto.DeliveryFeeResponse;
+import com.example.fooddelivery.dto.FeeQuoteStatus;
+import com.example.fooddelivery.dto.PreEncodedDeliveryFeeResponse;
 import com.example.fooddelivery.exception.DeliveryFeeCalculationException;
 import com.example.fooddelivery.service.DeliveryFeeService;
+import com.example.fooddelivery.service.FeeQuoteResult;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,10 +15,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -41,7 +50,8 @@ class DeliveryFeeControllerIT {
     @Test
     void testCalculateDeliveryFee_ValidRequest_ShouldReturnFee() throws Exception {
         DeliveryFeeResponse response = new DeliveryFeeResponse("Success", 5.0);
-        when(deliveryFeeService.calculateDeliveryFee(any(DeliveryFeeRequest.class))).thenReturn(response);
+        when(deliveryFeeService.calculateDeliveryFee(any(DeliveryFeeRequest.class)))
+                .thenReturn(FeeQuoteResult.ok(response));
 
         mockMvc.perform(post("/api/delivery-fee")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -83,6 +93,61 @@ class DeliveryFeeControllerIT {
         verify(deliveryFeeService, times(1)).calculateDeliveryFee(any(DeliveryFeeRequest.class));
     }
 
+    @Test
+    void testCalculateDeliveryFee_PreEncodedResponse_ShouldBeWrittenAsIs() throws Exception {
+        byte[] json = objectMapper.writeValueAsBytes(new DeliveryFeeResponse("Total delivery fee: 5.00", 5.0));
+        PreEncodedDeliveryFeeResponse response = new PreEncodedDeliveryFeeResponse("Total delivery fee: 5.00", 5.0,
+                json);
+        when(deliveryFeeService.calculateDeliveryFee(any(DeliveryFeeRequest.class)))
+                .thenReturn(FeeQuoteResult.ok(response));
+
+        mockMvc.perform(post("/api/delivery-fee")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(content().bytes(json));
+    }
+
+    @Test
+    void testCalculateDeliveryFee_MatchingIfNoneMatch_ShouldReturnNotModified() throws Exception {
+        when(deliveryFeeService.calculateDeliveryFee(any(DeliveryFeeRequest.class)))
+                .thenReturn(FeeQuoteResult.ok(new DeliveryFeeResponse("Success", 5.0)).withETag("\"quote-1\""));
+
+        mockMvc.perform(post("/api/delivery-fee")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"quote-1\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, startsWith("max-age=")));
+
+        mockMvc.perform(post("/api/delivery-fee")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"quote-1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"quote-1\""))
+                .andExpect(header().string("X-Weather-Stale", "true"))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testCalculateDeliveryFee_ForbiddenVehicle_ShouldReturnCachedErrorBody() throws Exception {
+        when(deliveryFeeService.calculateDeliveryFee(any(DeliveryFeeRequest.class)))
+                .thenReturn(FeeQuoteResult.forbidden("Forbidden"));
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/delivery-fee")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(validRequest)))
+                    .andExpect(status().isInternalServerError())
+                    .andExpect(jsonPath("$.timestamp").isNotEmpty())
+                    .andExpect(jsonPath("$.message").value("Failed to calculate delivery fee"))
+                    .andExpect(jsonPath("$.details").value("Failed to calculate delivery fee"))
+                    .andExpect(jsonPath("$.statusCode").value(500));
+        }
+    }
+
     @Test
     void testCalculateDeliveryFee_MissingFields_ShouldReturnBadRequest() throws Exception {
         DeliveryFeeRequest missingFieldsRequest = new DeliveryFeeRequest(null, null);
@@ -124,4 +189,47 @@ class DeliveryFeeControllerIT {
 
         verify(deliveryFeeService, never()).calculateDeliveryFee(any(DeliveryFeeRequest.class));
     }
+
+    @Test
+    void testCalculateDeliveryFees_Batch_ShouldReturnResultPerItem() throws Exception {
+        when(deliveryFeeService.calculateDeliveryFees(anyList())).thenReturn(List.of(
+                new DeliveryFeeBatchResult("Tallinn", "Car", FeeQuoteStatus.OK, 5.0, "Total delivery fee: 5.00"),
+                new DeliveryFeeBatchResult("Tallinn", "Bike", FeeQuoteStatus.FORBIDDEN, null,
+                        "Usage of selected vehicle type is forbidden due to weather conditions")
+        ));
+
+        mockMvc.perform(post("/api/delivery-fee/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                validRequest, new DeliveryFeeRequest("Tallinn", "Bike")))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].status").value("OK"))
+                .andExpect(jsonPath("$[0].totalFee").value(5.0))
+                .andExpect(jsonPath("$[1].status").value("FORBIDDEN"))
+                .andExpect(jsonPath("$[1].city").value("Tallinn"));
+
+        verify(deliveryFeeService, times(1)).calculateDeliveryFees(anyList());
+    }
+
+    @Test
+    void testStreamDeliveryFees_ShouldReturnNdjson() throws Exception {
+        when(deliveryFeeService.calculateDeliveryFeeResult(any())).thenReturn(
+                new DeliveryFeeBatchResult("Tallinn", "Car", FeeQuoteStatus.OK, 5.0, "Total delivery fee: 5.00"));
+
+        String body = objectMapper.writeValueAsString(validRequest) + "\n"
+                + objectMapper.writeValueAsString(validRequest) + "\n";
+
+        mockMvc.perform(post("/api/delivery-fee/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+
+        verify(deliveryFeeService, times(2)).calculateDeliveryFeeResult(any());
+
+        mockMvc.perform(get("/api/delivery-fee/throughput"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.endpoint == 'STREAM')].quotes").isNotEmpty());
+    }
 }
@@ -1,19 +1,34 @@
 package com.example.fooddelivery.controller;
 
+import com.example.fooddelivery.dto.DeliveryFeeBatchResult;
 import com.example.fooddelivery.dto.DeliveryFeeRequest;
 import com.example.fooddelivery.dto.DeliveryFeeResponse;
+import com.example.fooddelivery.dto.ErrorResponse;
+import com.example.fooddelivery.dto.FeeQuoteStatus;
 import com.example.fooddelivery.exception.DeliveryFeeCalculationException;
 import com.example.fooddelivery.exception.InvalidDeliveryFeeRequestException;
+import com.example.fooddelivery.dto.QuoteThroughputStats;
 import com.example.fooddelivery.service.DeliveryFeeService;
+import com.example.fooddelivery.service.FeeQuoteEncoder;
+import com.example.fooddelivery.service.FeeQuoteResult;
+import com.example.fooddelivery.service.QuoteThroughputTracker;
+import com.example.fooddelivery.service.WeatherImportSchedule;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -24,34 +39,130 @@ class DeliveryFeeControllerTest {
     @Mock
     private DeliveryFeeService deliveryFeeService;
 
-    @InjectMocks
+    @Mock
+    private WeatherImportSchedule weatherImportSchedule;
+
+    private QuoteThroughputTracker quoteThroughputTracker;
+
     private DeliveryFeeController deliveryFeeController;
 
     private DeliveryFeeRequest request;
 
     @BeforeEach
     void setUp() {
+        quoteThroughputTracker = new QuoteThroughputTracker();
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        deliveryFeeController = new DeliveryFeeController(deliveryFeeService, quoteThroughputTracker,
+                new FeeQuoteEncoder(objectMapper), weatherImportSchedule, Duration.ofMinutes(90), objectMapper);
         request = new DeliveryFeeRequest("Tallinn", "Car");
     }
 
     @Test
     void testCalculateDeliveryFee_ValidRequest_ShouldReturnFee() {
         DeliveryFeeResponse response = new DeliveryFeeResponse("Success", 5.0);
-        when(deliveryFeeService.calculateDeliveryFee(request)).thenReturn(response);
+        when(deliveryFeeService.calculateDeliveryFee(request)).thenReturn(FeeQuoteResult.ok(response));
 
-        ResponseEntity<DeliveryFeeResponse> result = deliveryFeeController.calculateDeliveryFee(request);
+        ResponseEntity<?> result = deliveryFeeController.calculateDeliveryFee(request, null);
 
-        assertEquals(5.0, result.getBody().getTotalFee());
-        assertEquals("Success", result.getBody().getStatusMessage());
+        DeliveryFeeResponse body = assertInstanceOf(DeliveryFeeResponse.class, result.getBody());
+        assertEquals(5.0, body.getTotalFee());
+        assertEquals("Success", body.getStatusMessage());
         verify(deliveryFeeService, times(1)).calculateDeliveryFee(request);
     }
 
+    @Test
+    void testCalculateDeliveryFee_CurrentQuote_ShouldBeCacheableUntilNextImport() {
+        DeliveryFeeResponse response = new DeliveryFeeResponse("Success", 5.0);
+        when(deliveryFeeService.calculateDeliveryFee(request))
+                .thenReturn(FeeQuoteResult.ok(response).withETag("\"quote-1\""));
+        when(weatherImportSchedule.secondsUntilNextImport()).thenReturn(900L);
+
+        ResponseEntity<?> result = deliveryFeeController.calculateDeliveryFee(request, null);
+
+        assertEquals(200, result.getStatusCode().value());
+        assertSame(response, result.getBody());
+        assertEquals("\"quote-1\"", result.getHeaders().getETag());
+        assertEquals("max-age=900", result.getHeaders().getCacheControl());
+    }
+
+    @Test
+    void testCalculateDeliveryFee_RecentWeather_ShouldNotBeStale() {
+        LocalDateTime observedAt = LocalDateTime.now().minusMinutes(20);
+        when(deliveryFeeService.calculateDeliveryFee(request)).thenReturn(FeeQuoteResult.ok(
+                new DeliveryFeeResponse("Success", 5.0)).withETag("\"quote-1\"").withWeatherObservedAt(observedAt));
+
+        ResponseEntity<?> result = deliveryFeeController.calculateDeliveryFee(request, null);
+
+        assertEquals(observedAt.toString(), result.getHeaders().getFirst("X-Weather-Observed-At"));
+        assertEquals("false", result.getHeaders().getFirst("X-Weather-Stale"));
+    }
+
+    @Test
+    void testCalculateDeliveryFee_OldWeather_ShouldStillQuoteButBeStale() {
+        LocalDateTime observedAt = LocalDateTime.now().minusHours(3);
+        when(deliveryFeeService.calculateDeliveryFee(request)).thenReturn(FeeQuoteResult.ok(
+                new DeliveryFeeResponse("Success", 5.0)).withETag("\"quote-1\"").withWeatherObservedAt(observedAt));
+
+        ResponseEntity<?> result = deliveryFeeController.calculateDeliveryFee(request, null);
+
+        assertEquals(200, result.getStatusCode().value());
+        assertEquals(observedAt.toString(), result.getHeaders().getFirst("X-Weather-Observed-At"));
+        assertEquals("true", result.getHeaders().getFirst("X-Weather-Stale"));
+    }
+
+    @Test
+    void testCalculateDeliveryFee_NoWeather_ShouldBeStale() {
+        when(deliveryFeeService.calculateDeliveryFee(request))
+                .thenReturn(FeeQuoteResult.ok(new DeliveryFeeResponse("Success", 5.0)).withETag("\"quote-1\""));
+
+        ResponseEntity<?> result = deliveryFeeController.calculateDeliveryFee(request, null);
+
+        assertNull(result.getHeaders().getFirst("X-Weather-Observed-At"));
+        assertEquals("true", result.getHeaders().getFirst("X-Weather-Stale"));
+    }
+
+    @Test
+    void testCalculateDeliveryFee_MatchingETag_ShouldReturnNotModified() {
+        when(deliveryFeeService.calculateDeliveryFee(request))
+                .thenReturn(FeeQuoteResult.ok(new DeliveryFeeResponse("Success", 5.0)).withETag("\"quote-1\""));
+
+        ResponseEntity<?> result = deliveryFeeController.calculateDeliveryFee(request, "\"quote-1\"");
+
+        assertEquals(304, result.getStatusCode().value());
+        assertNull(result.getBody());
+        assertEquals("\"quote-1\"", result.getHeaders().getETag());
+    }
+
+    @Test
+    void testCalculateDeliveryFee_StaleETag_ShouldReturnFee() {
+        when(deliveryFeeService.calculateDeliveryFee(request))
+                .thenReturn(FeeQuoteResult.ok(new DeliveryFeeResponse("Success", 5.0)).withETag("\"quote-2\""));
+
+        ResponseEntity<?> result = deliveryFeeController.calculateDeliveryFee(request, "\"quote-1\"");
+
+        assertEquals(200, result.getStatusCode().value());
+        assertNotNull(result.getBody());
+    }
+
+    @Test
+    void testCalculateDeliveryFee_Forbidden_ShouldReturnErrorWithoutException() {
+        when(deliveryFeeService.calculateDeliveryFee(request)).thenReturn(FeeQuoteResult.forbidden("Forbidden"));
+
+        ResponseEntity<?> result = deliveryFeeController.calculateDeliveryFee(request, null);
+
+        assertEquals(500, result.getStatusCode().value());
+        ErrorResponse body = assertInstanceOf(ErrorResponse.class, result.getBody());
+        assertEquals("Failed to calculate delivery fee", body.getMessage());
+        assertEquals("Failed to calculate delivery fee", body.getDetails());
+        assertEquals(500, body.getStatusCode());
+    }
+
     @Test
     void testCalculateDeliveryFee_ServiceThrowsException_ShouldThrowCustomException() {
         when(deliveryFeeService.calculateDeliveryFee(request)).thenThrow(new RuntimeException("Service error"));
 
         DeliveryFeeCalculationException ex = assertThrows(DeliveryFeeCalculationException.class,
-                () -> deliveryFeeController.calculateDeliveryFee(request));
+                () -> deliveryFeeController.calculateDeliveryFee(request, null));
 
         assertEquals("Failed to calculate delivery fee", ex.getMessage());
         verify(deliveryFeeService, times(1)).calculateDeliveryFee(request);
@@ -73,9 +184,55 @@ class DeliveryFeeControllerTest {
         );
 
         InvalidDeliveryFeeRequestException ex = assertThrows(InvalidDeliveryFeeRequestException.class,
-                () -> deliveryFeeController.calculateDeliveryFee(invalidRequest));
+                () -> deliveryFeeController.calculateDeliveryFee(invalidRequest, null));
 
         assertEquals("Invalid request: city and vehicleType must not be empty", ex.getMessage());
         verify(deliveryFeeService, never()).calculateDeliveryFee(any());
     }
+
+    @Test
+    void testCalculateDeliveryFees_ShouldReturnResultPerRequest() {
+        List<DeliveryFeeRequest> requests = List.of(request, new DeliveryFeeRequest("Tartu", "Bike"));
+        List<DeliveryFeeBatchResult> results = List.of(
+                new DeliveryFeeBatchResult("Tallinn", "Car", FeeQuoteStatus.OK, 5.0, "Success"),
+                new DeliveryFeeBatchResult("Tartu", "Bike", FeeQuoteStatus.FORBIDDEN, null, "Forbidden")
+        );
+        when(deliveryFeeService.calculateDeliveryFees(requests)).thenReturn(results);
+
+        ResponseEntity<List<DeliveryFeeBatchResult>> response = deliveryFeeController.calculateDeliveryFees(requests);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(results, response.getBody());
+        verify(deliveryFeeService, times(1)).calculateDeliveryFees(requests);
+    }
+
+    @Test
+    void testStreamDeliveryFees_ShouldWriteOneLinePerRequest() throws Exception {
+        when(deliveryFeeService.calculateDeliveryFeeResult(request)).thenReturn(
+                new DeliveryFeeBatchResult("Tallinn", "Car", FeeQuoteStatus.OK, 5.0, "Total delivery fee: 5.00"));
+        when(deliveryFeeService.calculateDeliveryFeeResult(null)).thenReturn(
+                new DeliveryFeeBatchResult(null, null, FeeQuoteStatus.INVALID_REQUEST, null, "Invalid request"));
+
+        MockHttpServletRequest httpRequest = new MockHttpServletRequest();
+        httpRequest.setContent(("{\"city\":\"Tallinn\",\"vehicleType\":\"Car\"}\n"
+                + "\n"
+                + "not json\n"
+                + "{\"city\":\"Tallinn\",\"vehicleType\":\"Car\"}").getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse httpResponse = new MockHttpServletResponse();
+
+        deliveryFeeController.streamDeliveryFees(httpRequest, httpResponse);
+
+        String[] lines = httpResponse.getContentAsString().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("\"status\":\"OK\""));
+        assertTrue(lines[1].contains("\"status\":\"INVALID_REQUEST\""));
+        assertTrue(lines[2].contains("\"totalFee\":5.0"));
+
+        QuoteThroughputStats streamStats = quoteThroughputTracker.getStats().stream()
+                .filter(stats -> stats.getEndpoint().equals("STREAM"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(1, streamStats.getRequests());
+        assertEquals(3, streamStats.getQuotes());
+    }
 }
@@ -4,6 +4,7 @@ import com.example.fooddelivery.entity.ExtraFee;
 import com.example.fooddelivery.exception.ExtraFeeDeletionException;
 import com.example.fooddelivery.exception.ResourceNotFoundException;
 import com.example.fooddelivery.repository.ExtraFeeRepository;
+import com.example.fooddelivery.service.FeeRuleCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -23,6 +24,9 @@ class ExtraFeeControllerTest {
     @Mock
     private ExtraFeeRepository extraFeeRepository;
 
+    @Mock
+    private FeeRuleCache feeRuleCache;
+
     @InjectMocks
     private ExtraFeeController extraFeeController;
 
@@ -46,7 +50,7 @@ class ExtraFeeControllerTest {
         List<ExtraFee> feeList = Collections.singletonList(extraFee);
         when(extraFeeRepository.findAll()).thenReturn(feeList);
 
-        ResponseEntity<List<ExtraFee>> response = extraFeeController.getAllExtraFees();
+        ResponseEntity<List<ExtraFee>> response = extraFeeController.getAllExtraFees(null);
 
         assertEquals(1, Objects.requireNonNull(response.getBody()).size());
         assertEquals("air_temperature", response.getBody().get(0).getConditionType());
@@ -90,6 +94,7 @@ class ExtraFeeControllerTest {
         assertEquals(3.0, response.getBody().getFee());
         verify(extraFeeRepository, times(1)).findById(1L);
         verify(extraFeeRepository, times(1)).save(extraFee);
+        verify(feeRuleCache, times(1)).refresh();
     }
 
     @Test
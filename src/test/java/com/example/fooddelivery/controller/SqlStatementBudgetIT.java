@@ -0,0 +1,169 @@
+package com.example.fooddelivery.controller;
+
+import com.example.fooddelivery.config.SqlStatementCounter;
+import com.example.fooddelivery.config.SqlStatementCountingFilter;
+import com.example.fooddelivery.dto.DeliveryFeeRequest;
+import com.example.fooddelivery.entity.BaseFee;
+import com.example.fooddelivery.entity.ExtraFee;
+import com.example.fooddelivery.entity.WeatherData;
+import com.example.fooddelivery.repository.BaseFeeRepository;
+import com.example.fooddelivery.repository.ExtraFeeRepository;
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import com.example.fooddelivery.service.FeeRuleCache;
+import com.example.fooddelivery.service.LatestWeatherCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.fooddelivery.config.SqlStatementBudget.assertAtMost;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Query budgets per endpoint. Quotes are served from the fee matrix and must not touch the database at all;
+ * rule writes pay for the write itself and one query per rule table to refresh the rule cache, while the fee matrix
+ * is rebuilt from the weather held in memory.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "sql.statements.debug-header=true")
+@AutoConfigureMockMvc
+class SqlStatementBudgetIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private BaseFeeRepository baseFeeRepository;
+
+    @Autowired
+    private ExtraFeeRepository extraFeeRepository;
+
+    @Autowired
+    private WeatherDataRepository weatherDataRepository;
+
+    @Autowired
+    private LatestWeatherCache latestWeatherCache;
+
+    @Autowired
+    private FeeRuleCache feeRuleCache;
+
+    private BaseFee baseFee;
+    private ExtraFee extraFee;
+
+    @BeforeEach
+    void setUp() {
+        baseFeeRepository.deleteAll();
+        extraFeeRepository.deleteAll();
+        weatherDataRepository.deleteAll();
+
+        baseFee = baseFeeRepository.save(new BaseFee("Tallinn", "Car", 4.0));
+        baseFeeRepository.save(new BaseFee("Tallinn", "Bike", 3.0));
+        extraFee = extraFeeRepository.save(new ExtraFee("Bike", "air_temperature", 0.5, -10.0, 0.0));
+        weatherDataRepository.save(new WeatherData("Tallinn-Harku", 26038, -2.1, 4.7, "Light snow shower"));
+        latestWeatherCache.refresh();
+        feeRuleCache.refresh();
+    }
+
+    @Test
+    void testResponsesCarryStatementCount() throws Exception {
+        mockMvc.perform(get("/api/base-fee"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(SqlStatementCountingFilter.HEADER));
+    }
+
+    @Test
+    void testBaseFeeEndpoints() throws Exception {
+        String eTag = perform(1, "GET base fees", get("/api/base-fee"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        perform(0, "GET base fees, not modified", get("/api/base-fee").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        perform(3, "POST base fee", json(post("/api/base-fee"), new BaseFee("Tartu", "Car", 3.5)))
+                .andExpect(status().isCreated());
+        perform(4, "POST base fee batch", json(post("/api/base-fee/batch"),
+                List.of(new BaseFee("Pärnu", "Car", 3.0), new BaseFee("Narva", "Car", 3.0))))
+                .andExpect(status().isCreated());
+        perform(4, "PUT base fee", json(put("/api/base-fee/" + baseFee.getId()), new BaseFee("Tallinn", "Car", 4.5)))
+                .andExpect(status().isOk());
+        perform(5, "DELETE base fee", delete("/api/base-fee/" + baseFee.getId()))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void testExtraFeeEndpoints() throws Exception {
+        perform(1, "GET extra fees", get("/api/extra-fee"))
+                .andExpect(status().isOk());
+
+        perform(3, "POST extra fee",
+                json(post("/api/extra-fee"), new ExtraFee("Bike", "wind_speed", 0.5, 10.0, 20.0)))
+                .andExpect(status().isCreated());
+        perform(4, "POST extra fee batch", json(post("/api/extra-fee/batch"), List.of(
+                new ExtraFee("weather_phenomenon", "Bike", "Light snow shower", 1.0, false),
+                new ExtraFee("weather_phenomenon", "Bike", "Glaze", true))))
+                .andExpect(status().isCreated());
+        perform(4, "PUT extra fee", json(put("/api/extra-fee/" + extraFee.getId()),
+                new ExtraFee("Bike", "air_temperature", 1.0, -10.0, 0.0)))
+                .andExpect(status().isOk());
+        perform(5, "DELETE extra fee", delete("/api/extra-fee/" + extraFee.getId()))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void testCurrentQuotesDoNotQueryTheDatabase() throws Exception {
+        perform(0, "POST quote", json(post("/api/delivery-fee"), new DeliveryFeeRequest("Tallinn", "Bike")))
+                .andExpect(status().isOk());
+        perform(0, "POST quote batch", json(post("/api/delivery-fee/batch"), List.of(
+                new DeliveryFeeRequest("Tallinn", "Car"),
+                new DeliveryFeeRequest("Tallinn", "Bike"),
+                new DeliveryFeeRequest("Tartu", "Car"))))
+                .andExpect(status().isOk());
+        perform(0, "POST quote stream", post("/api/delivery-fee/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(objectMapper.writeValueAsString(new DeliveryFeeRequest("Tallinn", "Car")) + "\n"
+                        + objectMapper.writeValueAsString(new DeliveryFeeRequest("Tallinn", "Bike")) + "\n"))
+                .andExpect(status().isOk());
+        perform(0, "GET quote throughput", get("/api/delivery-fee/throughput"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testHistoricalQuotes() throws Exception {
+        LocalDateTime orderTime = LocalDateTime.now();
+
+        perform(2, "POST historical quote",
+                json(post("/api/delivery-fee"), new DeliveryFeeRequest("Tallinn", "Bike", orderTime)))
+                .andExpect(status().isOk());
+        perform(3, "POST historical quote batch", json(post("/api/delivery-fee/batch"), List.of(
+                new DeliveryFeeRequest("Tallinn", "Car", orderTime),
+                new DeliveryFeeRequest("Tallinn", "Bike", orderTime.minusMinutes(1)),
+                new DeliveryFeeRequest("Tallinn", "Bike", orderTime))))
+                .andExpect(status().isOk());
+    }
+
+    private ResultActions perform(int budget, String description, RequestBuilder request) {
+        return assertAtMost(sqlStatementCounter, budget, description, () -> mockMvc.perform(request));
+    }
+
+    private RequestBuilder json(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        return request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+    }
+}
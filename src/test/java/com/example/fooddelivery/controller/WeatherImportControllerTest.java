@@ -0,0 +1,79 @@
+package com.example.fooddelivery.controller;
+
+import com.example.fooddelivery.dto.WeatherImportLeaseStatus;
+import com.example.fooddelivery.dto.WeatherImportResult;
+import com.example.fooddelivery.service.WeatherImportSchedule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherImportControllerTest {
+
+    private static final LocalDateTime STARTED = LocalDateTime.of(2025, 1, 15, 12, 15);
+
+    @Mock
+    private WeatherImportSchedule weatherImportSchedule;
+
+    private WeatherImportController weatherImportController;
+
+    @BeforeEach
+    void setUp() {
+        weatherImportController = new WeatherImportController(weatherImportSchedule);
+    }
+
+    @Test
+    void testTriggerImport_Succeeded() {
+        WeatherImportResult result = new WeatherImportResult(true, WeatherImportLeaseStatus.ACQUIRED, STARTED,
+                STARTED.plusSeconds(2), 0, STARTED.plusMinutes(15));
+        when(weatherImportSchedule.trigger()).thenReturn(CompletableFuture.completedFuture(result));
+
+        ResponseEntity<WeatherImportResult> response = weatherImportController.triggerImport().join();
+
+        assertEquals(200, response.getStatusCode().value());
+        assertSame(result, response.getBody());
+    }
+
+    @Test
+    void testTriggerImport_FailedImportIsBadGateway() {
+        WeatherImportResult result = new WeatherImportResult(false, WeatherImportLeaseStatus.ACQUIRED, STARTED,
+                STARTED.plusSeconds(10), 3, STARTED.plusMinutes(4));
+        when(weatherImportSchedule.trigger()).thenReturn(CompletableFuture.completedFuture(result));
+
+        ResponseEntity<WeatherImportResult> response = weatherImportController.triggerImport().join();
+
+        assertEquals(502, response.getStatusCode().value());
+        assertEquals(3, response.getBody().getConsecutiveFailures());
+    }
+
+    @Test
+    void testTriggerImport_OtherInstanceHoldsLeaseIsConflict() {
+        WeatherImportResult result = new WeatherImportResult(true, WeatherImportLeaseStatus.HELD_ELSEWHERE, STARTED,
+                STARTED, 0, STARTED.plusMinutes(15));
+        when(weatherImportSchedule.trigger()).thenReturn(CompletableFuture.completedFuture(result));
+
+        ResponseEntity<WeatherImportResult> response = weatherImportController.triggerImport().join();
+
+        assertEquals(409, response.getStatusCode().value());
+    }
+
+    @Test
+    void testTriggerImport_LeaseNotCheckedIsServiceUnavailable() {
+        WeatherImportResult result = new WeatherImportResult(false, WeatherImportLeaseStatus.UNAVAILABLE, STARTED,
+                STARTED, 1, STARTED.plusMinutes(1));
+        when(weatherImportSchedule.trigger()).thenReturn(CompletableFuture.completedFuture(result));
+
+        ResponseEntity<WeatherImportResult> response = weatherImportController.triggerImport().join();
+
+        assertEquals(503, response.getStatusCode().value());
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.fooddelivery.controller;
+
+import com.example.fooddelivery.entity.WeatherStation;
+import com.example.fooddelivery.exception.ResourceNotFoundException;
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import com.example.fooddelivery.repository.WeatherStationRepository;
+import com.example.fooddelivery.service.WeatherStationCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherStationControllerTest {
+
+    @Mock
+    private WeatherStationRepository weatherStationRepository;
+
+    @Mock
+    private WeatherDataRepository weatherDataRepository;
+
+    @Mock
+    private WeatherStationCache weatherStationCache;
+
+    private WeatherStationController weatherStationController;
+
+    @BeforeEach
+    void setUp() {
+        weatherStationController = new WeatherStationController(weatherStationRepository, weatherDataRepository,
+                weatherStationCache);
+    }
+
+    @Test
+    void testCreateWeatherStation() {
+        WeatherStation station = new WeatherStation("Tõravere", "Tartu");
+        when(weatherStationRepository.findByStationName("Tõravere")).thenReturn(Optional.empty());
+        when(weatherStationRepository.save(station)).thenReturn(station);
+
+        ResponseEntity<WeatherStation> response = weatherStationController.createWeatherStation(station);
+
+        assertEquals(201, response.getStatusCode().value());
+        assertEquals(station, response.getBody());
+        verify(weatherStationCache, times(1)).refresh();
+    }
+
+    @Test
+    void testCreateWeatherStation_AlreadyMapped() {
+        when(weatherStationRepository.findByStationName("Tõravere"))
+                .thenReturn(Optional.of(station(1L, "Tõravere", "Tartu")));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> weatherStationController.createWeatherStation(new WeatherStation("Tõravere", "Elva")));
+        verify(weatherStationRepository, never()).save(any());
+        verify(weatherStationCache, never()).refresh();
+    }
+
+    @Test
+    void testCreateWeatherStation_BlankCity() {
+        assertThrows(IllegalArgumentException.class,
+                () -> weatherStationController.createWeatherStation(new WeatherStation("Tõravere", " ")));
+        verify(weatherStationRepository, never()).save(any());
+    }
+
+    @Test
+    void testUpdateWeatherStation_RenamedStationIsUnlinked() {
+        WeatherStation existing = station(1L, "Tartu-Tõravere", "Tartu");
+        when(weatherStationRepository.findByStationName("Tõravere")).thenReturn(Optional.empty());
+        when(weatherStationRepository.findById(1L)).thenReturn(Optional.of(existing));
+        when(weatherStationRepository.save(existing)).thenReturn(existing);
+
+        ResponseEntity<WeatherStation> response =
+                weatherStationController.updateWeatherStation(1L, new WeatherStation("Tõravere", "Tartu"));
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("Tõravere", existing.getStationName());
+        verify(weatherDataRepository, times(1)).clearStationId(1L);
+        verify(weatherStationCache, times(1)).refresh();
+    }
+
+    @Test
+    void testUpdateWeatherStation_SameStationKeepsLinks() {
+        WeatherStation existing = station(1L, "Tõravere", "Tartu");
+        when(weatherStationRepository.findByStationName("Tõravere")).thenReturn(Optional.of(existing));
+        when(weatherStationRepository.findById(1L)).thenReturn(Optional.of(existing));
+        when(weatherStationRepository.save(existing)).thenReturn(existing);
+
+        weatherStationController.updateWeatherStation(1L, new WeatherStation("Tõravere", "Elva"));
+
+        assertEquals("Elva", existing.getCity());
+        verify(weatherDataRepository, never()).clearStationId(any());
+    }
+
+    @Test
+    void testDeleteWeatherStation() {
+        when(weatherStationRepository.existsById(1L)).thenReturn(true);
+
+        ResponseEntity<Void> response = weatherStationController.deleteWeatherStation(1L);
+
+        assertEquals(204, response.getStatusCode().value());
+        verify(weatherDataRepository, times(1)).clearStationId(1L);
+        verify(weatherStationRepository, times(1)).deleteById(1L);
+        verify(weatherStationCache, times(1)).refresh();
+    }
+
+    @Test
+    void testDeleteWeatherStation_NotFound() {
+        when(weatherStationRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> weatherStationController.deleteWeatherStation(1L));
+        verify(weatherStationRepository, never()).deleteById(any());
+    }
+
+    private static WeatherStation station(Long id, String stationName, String city) {
+        WeatherStation station = new WeatherStation(stationName, city);
+        station.setId(id);
+        return station;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.fooddelivery.repository;
+
+import com.example.fooddelivery.entity.WeatherImportLease;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "weather.import.enabled=false")
+@Transactional
+class WeatherImportLeaseRepositoryIT {
+
+    private static final String LEASE = "it-lease";
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 15, 12, 15);
+
+    @Autowired
+    private WeatherImportLeaseRepository weatherImportLeaseRepository;
+
+    @BeforeEach
+    void setUp() {
+        weatherImportLeaseRepository.saveAndFlush(new WeatherImportLease(LEASE));
+    }
+
+    @Test
+    void testTryAcquire_OnlyOneInstanceHoldsLease() {
+        assertEquals(1, weatherImportLeaseRepository.tryAcquire(LEASE, "node-a", NOW, NOW.plusMinutes(20)));
+        assertEquals(0, weatherImportLeaseRepository.tryAcquire(LEASE, "node-b", NOW.plusMinutes(1),
+                NOW.plusMinutes(21)));
+        assertEquals(1, weatherImportLeaseRepository.tryAcquire(LEASE, "node-a", NOW.plusMinutes(15),
+                NOW.plusMinutes(35)));
+        assertEquals(0, weatherImportLeaseRepository.tryAcquire(LEASE, "node-b", NOW.plusMinutes(30),
+                NOW.plusMinutes(50)));
+    }
+
+    @Test
+    void testTryAcquire_ExpiredLeaseIsTakenOver() {
+        weatherImportLeaseRepository.tryAcquire(LEASE, "node-a", NOW, NOW.plusMinutes(20));
+
+        assertEquals(1, weatherImportLeaseRepository.tryAcquire(LEASE, "node-b", NOW.plusMinutes(21),
+                NOW.plusMinutes(41)));
+        assertEquals(0, weatherImportLeaseRepository.tryAcquire(LEASE, "node-a", NOW.plusMinutes(22),
+                NOW.plusMinutes(42)));
+    }
+
+    @Test
+    void testRelease_FreesLeaseForOtherInstances() {
+        weatherImportLeaseRepository.tryAcquire(LEASE, "node-a", NOW, NOW.plusMinutes(20));
+
+        assertEquals(0, weatherImportLeaseRepository.release(LEASE, "node-b"));
+        assertEquals(1, weatherImportLeaseRepository.release(LEASE, "node-a"));
+        assertEquals(1, weatherImportLeaseRepository.tryAcquire(LEASE, "node-b", NOW.plusMinutes(1),
+                NOW.plusMinutes(21)));
+    }
+
+    @Test
+    void testIncrementDataVersion() {
+        assertEquals(Optional.of(0L), weatherImportLeaseRepository.findDataVersion(LEASE));
+
+        weatherImportLeaseRepository.incrementDataVersion(LEASE);
+        weatherImportLeaseRepository.incrementDataVersion(LEASE);
+
+        assertEquals(Optional.of(2L), weatherImportLeaseRepository.findDataVersion(LEASE));
+        assertEquals(Optional.empty(), weatherImportLeaseRepository.findDataVersion("missing"));
+    }
+}
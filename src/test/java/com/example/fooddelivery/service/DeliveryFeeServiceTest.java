@@ -1,20 +1,32 @@
 package com.example.fooddelivery.service;
 
+import com.example.fooddelivery.dto.DeliveryFeeBatchResult;
 import com.example.fooddelivery.dto.DeliveryFeeRequest;
 import com.example.fooddelivery.dto.DeliveryFeeResponse;
+import com.example.fooddelivery.dto.FeeQuoteStatus;
+import com.example.fooddelivery.dto.PreEncodedDeliveryFeeResponse;
 import com.example.fooddelivery.entity.BaseFee;
 import com.example.fooddelivery.entity.ExtraFee;
 import com.example.fooddelivery.entity.WeatherData;
+import com.example.fooddelivery.entity.WeatherHourlyRollup;
+import com.example.fooddelivery.entity.WeatherStation;
 import com.example.fooddelivery.exception.BaseFeeNotFoundException;
 import com.example.fooddelivery.exception.InvalidVehicleException;
 import com.example.fooddelivery.repository.BaseFeeRepository;
 import com.example.fooddelivery.repository.ExtraFeeRepository;
 import com.example.fooddelivery.repository.WeatherDataRepository;
+import com.example.fooddelivery.repository.WeatherHourlyRollupRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +38,11 @@ class DeliveryFeeServiceTest {
     private BaseFeeRepository baseFeeRepository;
     private ExtraFeeRepository extraFeeRepository;
     private WeatherDataRepository weatherDataRepository;
+    private WeatherHourlyRollupRepository weatherHourlyRollupRepository;
+    private WeatherStationCache weatherStationCache;
+    private FeeRuleCache feeRuleCache;
+    private LatestWeatherCache latestWeatherCache;
+    private SimpleMeterRegistry meterRegistry;
     private DeliveryFeeService deliveryFeeService;
 
     @BeforeEach
@@ -33,18 +50,23 @@ class DeliveryFeeServiceTest {
         baseFeeRepository = mock(BaseFeeRepository.class);
         extraFeeRepository = mock(ExtraFeeRepository.class);
         weatherDataRepository = mock(WeatherDataRepository.class);
-        deliveryFeeService = new DeliveryFeeService(baseFeeRepository, extraFeeRepository, weatherDataRepository);
-
-        when(baseFeeRepository.findByCityAndVehicleType("Tallinn", "Car"))
-                .thenReturn(Optional.of(new BaseFee("Tallinn", "Car", 4.0)));
-
-        when(weatherDataRepository.findByStationNameContaining("Tallinn"))
-                .thenReturn(Optional.of(
+        weatherHourlyRollupRepository = mock(WeatherHourlyRollupRepository.class);
+        weatherStationCache = mock(WeatherStationCache.class);
+        DeliveryFeeFixture fixture = new DeliveryFeeFixture(baseFeeRepository, extraFeeRepository,
+                weatherDataRepository, weatherHourlyRollupRepository, weatherStationCache);
+        feeRuleCache = fixture.getFeeRuleCache();
+        latestWeatherCache = fixture.getLatestWeatherCache();
+        meterRegistry = fixture.getMeterRegistry();
+        deliveryFeeService = fixture.getDeliveryFeeService();
+
+        givenRules(List.of(new BaseFee("Tallinn", "Car", 4.0)), List.of());
+
+        givenWeather(
                         new WeatherData(
                                 "Tallinn", 23503, -12.0, 5.0,
                                 "clear"
                         )
-                ));
+                );
     }
 
     @ParameterizedTest
@@ -54,17 +76,13 @@ class DeliveryFeeServiceTest {
             "Parnu, Bike, 2.5"
     })
     void testGetBaseFee_ValidCases(String city, String vehicleType, double expectedFee) {
-        when(baseFeeRepository.findByCityAndVehicleType(city, vehicleType))
-                .thenReturn(Optional.of(new BaseFee(city, vehicleType, expectedFee)));
+        givenRules(List.of(new BaseFee(city, vehicleType, expectedFee)), List.of());
 
         assertEquals(expectedFee, deliveryFeeService.getBaseFee(city, vehicleType));
     }
 
     @Test
     void testGetBaseFee_NotFound_ThrowsException() {
-        when(baseFeeRepository.findByCityAndVehicleType("UnknownCity", "Car"))
-                .thenReturn(Optional.empty());
-
         assertThrows(BaseFeeNotFoundException.class, () ->
                 deliveryFeeService.getBaseFee("UnknownCity", "Car"));
     }
@@ -77,15 +95,14 @@ class DeliveryFeeServiceTest {
             "Bike, 2.0, 0.0"
     })
     void testGetAirTemperatureFee(String vehicleType, double airTemperature, double expectedFee) {
-        when(extraFeeRepository.findByConditionTypeAndVehicleType("air_temperature", vehicleType))
-                .thenReturn(List.of(
-                        new ExtraFee(
-                                "air_temperature", vehicleType, 1.0, -100.0, -10.0
-                        ),
-                        new ExtraFee(
-                                "air_temperature", vehicleType, 0.5, -10.0, 0.0
-                        )
-                ));
+        givenRules(List.of(), List.of(
+                new ExtraFee(
+                        vehicleType, "air_temperature", 1.0, -100.0, -10.0
+                ),
+                new ExtraFee(
+                        vehicleType, "air_temperature", 0.5, -10.0, 0.0
+                )
+        ));
 
         assertEquals(expectedFee, deliveryFeeService.getAirTemperatureFee(vehicleType, airTemperature));
     }
@@ -96,10 +113,9 @@ class DeliveryFeeServiceTest {
             "Bike, 25.0, 0.0"
     })
     void testGetWindSpeedFee(String vehicleType, double windSpeed, double expectedFee) {
-        when(extraFeeRepository.findByConditionTypeAndVehicleType("wind_speed", vehicleType))
-                .thenReturn(List.of(
-                        new ExtraFee("wind_speed", vehicleType, 0.5, 10.0, 20.0)
-                ));
+        givenRules(List.of(), List.of(
+                new ExtraFee(vehicleType, "wind_speed", 0.5, 10.0, 20.0)
+        ));
 
         if (windSpeed > 20) {
             assertThrows(InvalidVehicleException.class,
@@ -116,19 +132,18 @@ class DeliveryFeeServiceTest {
             "Scooter, hail, 0.0"
     })
     void testGetWeatherPhenomenonFee(String vehicleType, String phenomenon, double expectedFee) {
-        when(extraFeeRepository.findByConditionTypeAndVehicleType("weather_phenomenon", vehicleType))
-                .thenReturn(List.of(
-                        new ExtraFee(
-                                "weather_phenomenon", vehicleType, "snow", 1.0,
-                                false
-                        ),
-                        new ExtraFee("weather_phenomenon", vehicleType, "rain", 0.5,
-                                false
-                        ),
-                        new ExtraFee("weather_phenomenon", vehicleType, "hail",
-                                true
-                        )
-                ));
+        givenRules(List.of(), List.of(
+                new ExtraFee(
+                        "weather_phenomenon", vehicleType, "snow", 1.0,
+                        false
+                ),
+                new ExtraFee("weather_phenomenon", vehicleType, "rain", 0.5,
+                        false
+                ),
+                new ExtraFee("weather_phenomenon", vehicleType, "hail",
+                        true
+                )
+        ));
 
         if (phenomenon.equals("hail")) {
             assertThrows(InvalidVehicleException.class,
@@ -142,49 +157,35 @@ class DeliveryFeeServiceTest {
     void testCalculateDeliveryFee_Success() {
         DeliveryFeeRequest request = new DeliveryFeeRequest("Tallinn", "Car");
 
-        when(baseFeeRepository.findByCityAndVehicleType("Tallinn", "Car"))
-                .thenReturn(Optional.of(new BaseFee("Tallinn", "Car", 4.0)));
-
-        when(extraFeeRepository.findByConditionTypeAndVehicleType(any(), any()))
-                .thenReturn(List.of());
-
-        DeliveryFeeResponse response = deliveryFeeService.calculateDeliveryFee(request);
-        assertEquals(4.0, response.getTotalFee());
+        deliveryFeeService.rebuildFeeMatrix();
+        FeeQuoteResult result = deliveryFeeService.calculateDeliveryFee(request);
+        assertEquals(FeeQuoteStatus.OK, result.status());
+        assertEquals(4.0, result.response().getTotalFee());
     }
 
     @Test
     void testCalculateDeliveryFee_WithExtraFees() {
         DeliveryFeeRequest request = new DeliveryFeeRequest("Tallinn", "Scooter");
 
-        when(baseFeeRepository.findByCityAndVehicleType("Tallinn", "Scooter"))
-                .thenReturn(Optional.of(new BaseFee("Tallinn", "Scooter", 3.0)));
-
-        when(weatherDataRepository.findByStationNameContaining("Tallinn"))
-                .thenReturn(Optional.of(
+        givenRules(List.of(new BaseFee("Tallinn", "Scooter", 3.0)), List.of(
+                new ExtraFee(
+                        "Scooter", "air_temperature", 1.0, -100.0,
+                        -10.0
+                ),
+                new ExtraFee("weather_phenomenon", "Scooter", "snow",
+                        1.0, false
+                )
+        ));
+
+        givenWeather(
                         new WeatherData(
                                 "Tallinn", 23503, -12.0, 5.0,
                                 "snow"
                         )
-                ));
-
-        when(extraFeeRepository.findByConditionTypeAndVehicleType("air_temperature", "Scooter"))
-                .thenReturn(List.of(
-                        new ExtraFee(
-                                "air_temperature", "Scooter", 1.0, -100.0,
-                                -10.0
-                        )
-                ));
+                );
 
-        when(extraFeeRepository.findByConditionTypeAndVehicleType(
-                "weather_phenomenon", "Scooter"
-        ))
-                .thenReturn(List.of(
-                        new ExtraFee("weather_phenomenon", "Scooter", "snow",
-                                1.0, false
-                        )
-                ));
-
-        DeliveryFeeResponse response = deliveryFeeService.calculateDeliveryFee(request);
+        deliveryFeeService.rebuildFeeMatrix();
+        DeliveryFeeResponse response = deliveryFeeService.calculateDeliveryFee(request).response();
         assertEquals(5.0, response.getTotalFee()); // 3.0 (base) + 1.0 (temperature) + 1.0 (snow)
     }
 
@@ -192,20 +193,421 @@ class DeliveryFeeServiceTest {
     void testCalculateDeliveryFee_ForbiddenVehicle() {
         DeliveryFeeRequest request = new DeliveryFeeRequest("Tallinn", "Bike");
 
-        when(baseFeeRepository.findByCityAndVehicleType("Tallinn", "Bike"))
-                .thenReturn(Optional.of(new BaseFee("Tallinn", "Bike", 3.0)));
+        givenRules(List.of(new BaseFee("Tallinn", "Bike", 3.0)), List.of(new ExtraFee(
+                "Bike", "wind_speed", 0.5, 10.0, 20.0
+        )));
 
-        when(weatherDataRepository.findByStationNameContaining("Tallinn"))
-                .thenReturn(Optional.of(new WeatherData(
+        givenWeather(new WeatherData(
                         "Tallinn", 23503, 5.0, 25.0,
                         "clear"
-                )));
+                ));
+
+        deliveryFeeService.rebuildFeeMatrix();
+        FeeQuoteResult result = deliveryFeeService.calculateDeliveryFee(request);
+
+        assertEquals(FeeQuoteStatus.FORBIDDEN, result.status());
+        assertNull(result.response());
+        assertEquals("Usage of selected vehicle type is forbidden due to weather conditions", result.statusMessage());
+    }
+
+    @Test
+    void testCalculateDeliveryFee_ReturnsPreEncodedResponse() throws Exception {
+        deliveryFeeService.rebuildFeeMatrix();
+        DeliveryFeeRequest request = new DeliveryFeeRequest("Tallinn", "Car");
+        DeliveryFeeResponse response = deliveryFeeService.calculateDeliveryFee(request).response();
+
+        PreEncodedDeliveryFeeResponse preEncoded = assertInstanceOf(PreEncodedDeliveryFeeResponse.class, response);
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        preEncoded.writeJson(json);
+
+        assertEquals(new ObjectMapper().writeValueAsString(new DeliveryFeeResponse("Total delivery fee: 4.00", 4.0)),
+                json.toString(StandardCharsets.UTF_8));
+        assertSame(response, deliveryFeeService.calculateDeliveryFee(request).response());
+        assertThrows(UnsupportedOperationException.class, () -> preEncoded.setTotalFee(1.0));
+        assertThrows(UnsupportedOperationException.class, () -> preEncoded.setStatusMessage("Changed"));
+    }
+
+    @Test
+    void testCalculateDeliveryFee_WeatherChangeReplacesPreEncodedResponse() {
+        givenRules(List.of(new BaseFee("Tallinn", "Scooter", 3.0)),
+                List.of(new ExtraFee("Scooter", "air_temperature", 1.0, -100.0, -10.0)));
+        DeliveryFeeRequest request = new DeliveryFeeRequest("Tallinn", "Scooter");
+        deliveryFeeService.rebuildFeeMatrix();
+        DeliveryFeeResponse cold = deliveryFeeService.calculateDeliveryFee(request).response();
+
+        givenWeather(new WeatherData("Tallinn", 23503, 5.0, 5.0, "clear"));
+        deliveryFeeService.rebuildFeeMatrix();
+        DeliveryFeeResponse mild = deliveryFeeService.calculateDeliveryFee(request).response();
+
+        assertEquals(4.0, cold.getTotalFee());
+        assertEquals(3.0, mild.getTotalFee());
+        assertEquals("Total delivery fee: 3.00", mild.getStatusMessage());
+    }
+
+    @Test
+    void testCalculateDeliveryFee_ETagFollowsRulesAndWeather() {
+        WeatherData morning = new WeatherData("Tallinn", 23503, -12.0, 5.0, "clear");
+        morning.setTimestamp(LocalDateTime.of(2025, 1, 15, 9, 15));
+        WeatherData noon = new WeatherData("Tallinn", 23503, -12.0, 5.0, "clear");
+        noon.setTimestamp(LocalDateTime.of(2025, 1, 15, 12, 15));
+        givenWeather(morning);
+        DeliveryFeeRequest request = new DeliveryFeeRequest("Tallinn", "Car");
+
+        deliveryFeeService.rebuildFeeMatrix();
+        String first = deliveryFeeService.calculateDeliveryFee(request).eTag();
+        deliveryFeeService.rebuildFeeMatrix();
+        String rebuilt = deliveryFeeService.calculateDeliveryFee(request).eTag();
+
+        givenWeather(noon);
+        deliveryFeeService.rebuildFeeMatrix();
+        String newWeather = deliveryFeeService.calculateDeliveryFee(request).eTag();
+
+        givenRules(List.of(new BaseFee("Tallinn", "Car", 4.0)), List.of());
+        deliveryFeeService.rebuildFeeMatrix();
+        String reloadedRules = deliveryFeeService.calculateDeliveryFee(request).eTag();
+
+        givenRules(List.of(new BaseFee("Tallinn", "Car", 4.5)), List.of());
+        deliveryFeeService.rebuildFeeMatrix();
+        String newRules = deliveryFeeService.calculateDeliveryFee(request).eTag();
+
+        assertNotNull(first);
+        assertTrue(first.startsWith("\"") && first.endsWith("\""));
+        assertEquals(first, rebuilt);
+        assertNotEquals(first, newWeather);
+        assertEquals(newWeather, reloadedRules);
+        assertNotEquals(newWeather, newRules);
+        assertEquals(noon.getTimestamp(), deliveryFeeService.calculateDeliveryFee(request).weatherObservedAt());
+    }
+
+    @Test
+    void testCalculateDeliveryFee_ETagIsSameOnEveryInstance() {
+        DeliveryFeeRequest request = new DeliveryFeeRequest("Tallinn", "Car");
+        feeRuleCache.refresh();
+        deliveryFeeService.rebuildFeeMatrix();
+
+        DeliveryFeeFixture otherInstance = new DeliveryFeeFixture(baseFeeRepository, extraFeeRepository,
+                weatherDataRepository, weatherHourlyRollupRepository, weatherStationCache).refresh();
+
+        FeeRuleCache otherFeeRuleCache = otherInstance.getFeeRuleCache();
+        assertNotEquals(feeRuleCache.getSnapshot().getVersion(), otherFeeRuleCache.getSnapshot().getVersion());
+        assertEquals(feeRuleCache.getETag(), otherFeeRuleCache.getETag());
+        assertEquals(deliveryFeeService.calculateDeliveryFee(request).eTag(),
+                otherInstance.getDeliveryFeeService().calculateDeliveryFee(request).eTag());
+    }
+
+    @Test
+    void testCalculateDeliveryFee_RecordsOutcomesAndPhases() {
+        deliveryFeeService.rebuildFeeMatrix();
+
+        deliveryFeeService.calculateDeliveryFee(new DeliveryFeeRequest("Tallinn", "Car"));
+        deliveryFeeService.calculateDeliveryFee(new DeliveryFeeRequest("Tallinn", "Car"));
+        deliveryFeeService.calculateDeliveryFee(new DeliveryFeeRequest("UnknownCity", "Car"));
+
+        assertEquals(2.0, meterRegistry.get("delivery.fee.quotes").tag("outcome", "ok").counter().count());
+        assertEquals(1.0, meterRegistry.get("delivery.fee.quotes").tag("outcome", "not_found").counter().count());
+        assertEquals(0.0, meterRegistry.get("delivery.fee.quotes").tag("outcome", "forbidden").counter().count());
+        assertEquals(3L, meterRegistry.get("delivery.fee.phase").tag("phase", "rule_lookup").timer().count());
+        assertEquals(1L, meterRegistry.get("delivery.fee.phase").tag("phase", "weather_lookup").timer().count());
+        assertEquals(1L, meterRegistry.get("delivery.fee.phase").tag("phase", "fee_evaluation").timer().count());
+        assertEquals(1L, meterRegistry.get("delivery.fee.phase").tag("phase", "serialization").timer().count());
+    }
+
+    @Test
+    void testCalculateDeliveryFee_UnknownCity_ReturnsNoBaseFee() {
+        DeliveryFeeRequest request = new DeliveryFeeRequest("UnknownCity", "Car");
+
+        deliveryFeeService.rebuildFeeMatrix();
+        FeeQuoteResult result = deliveryFeeService.calculateDeliveryFee(request);
+
+        assertEquals(FeeQuoteStatus.NO_BASE_FEE, result.status());
+        assertNull(result.response());
+        assertEquals("No base fee found for city: UnknownCity and vehicle type: Car", result.statusMessage());
+    }
+
+    @Test
+    void testCalculateDeliveryFee_IssuesNoQueries() {
+        deliveryFeeService.rebuildFeeMatrix();
+        clearInvocations(baseFeeRepository, extraFeeRepository, weatherDataRepository);
 
-        when(extraFeeRepository.findByConditionTypeAndVehicleType("wind_speed", "Bike"))
-                .thenReturn(List.of(new ExtraFee(
-                        "wind_speed", "Bike", 0.5, 10.0, 20.0
-                )));
+        for (int i = 0; i < 10; i++) {
+            deliveryFeeService.calculateDeliveryFee(new DeliveryFeeRequest("Tallinn", "Car"));
+        }
+
+        verifyNoInteractions(baseFeeRepository, extraFeeRepository, weatherDataRepository);
+    }
+
+    @Test
+    void testRebuildFeeMatrix_TracksVersionAndWeatherTimestamp() {
+        LocalDateTime observedAt = LocalDateTime.of(2025, 1, 15, 12, 0);
+        WeatherData weatherData = new WeatherData("Tallinn-Harku", 26038, -12.0, 5.0, "clear");
+        weatherData.setTimestamp(observedAt);
+        givenWeather(weatherData);
+
+        deliveryFeeService.rebuildFeeMatrix();
+        FeeMatrix first = deliveryFeeService.getFeeMatrix();
+        deliveryFeeService.rebuildFeeMatrix();
+        FeeMatrix second = deliveryFeeService.getFeeMatrix();
+
+        assertEquals(observedAt, second.getWeatherTimestamp());
+        assertEquals(feeRuleCache.getSnapshot().getVersion(), second.getRuleVersion());
+        assertTrue(second.getVersion() > first.getVersion());
+        assertEquals(1, second.size());
+    }
+
+    @Test
+    void testRebuildFeeMatrix_PicksUpRuleChanges() {
+        deliveryFeeService.rebuildFeeMatrix();
+        assertEquals(4.0, deliveryFeeService.calculateDeliveryFee(new DeliveryFeeRequest("Tallinn", "Car"))
+                .response().getTotalFee());
+
+        givenRules(List.of(new BaseFee("Tallinn", "Car", 6.0)), List.of());
+        deliveryFeeService.rebuildFeeMatrix();
+
+        assertEquals(6.0, deliveryFeeService.calculateDeliveryFee(new DeliveryFeeRequest("Tallinn", "Car"))
+                .response().getTotalFee());
+    }
+
+    @Test
+    void testRefresh_SwapsSnapshot() {
+        FeeRuleSnapshot before = feeRuleCache.getSnapshot();
+
+        givenRules(List.of(new BaseFee("Tallinn", "Car", 6.0)), List.of());
+
+        assertEquals(4.0, before.findBaseFee("Tallinn", "Car").orElseThrow());
+        assertEquals(6.0, deliveryFeeService.getBaseFee("Tallinn", "Car"));
+        assertTrue(feeRuleCache.getSnapshot().getVersion() > before.getVersion());
+    }
+
+    private void givenRules(List<BaseFee> baseFees, List<ExtraFee> extraFees) {
+        when(baseFeeRepository.findAll()).thenReturn(baseFees);
+        when(extraFeeRepository.findAll()).thenReturn(extraFees);
+        feeRuleCache.refresh();
+    }
+
+    private void givenWeather(WeatherData weatherData) {
+        when(weatherDataRepository.findLatestOfEachStation()).thenReturn(List.of(weatherData));
+        latestWeatherCache.refresh();
+    }
+
+    private void givenLatestStations(String... stationNames) {
+        List<WeatherData> latest = new ArrayList<>();
+        for (String stationName : stationNames) {
+            latest.add(observation(stationName, 0.0, LocalDateTime.now()));
+        }
+        when(weatherDataRepository.findLatestOfEachStation()).thenReturn(latest);
+        latestWeatherCache.refresh();
+    }
+
+    @Test
+    void testCalculateDeliveryFees_ReportsEachItem() {
+        givenRules(List.of(new BaseFee("Tallinn", "Car", 4.0), new BaseFee("Tallinn", "Bike", 3.0)),
+                List.of(new ExtraFee("Bike", "wind_speed", 0.5, 10.0, 20.0)));
+        givenWeather(new WeatherData("Tallinn", 23503, 5.0, 25.0, "clear"));
+        deliveryFeeService.rebuildFeeMatrix();
+
+        List<DeliveryFeeBatchResult> results = deliveryFeeService.calculateDeliveryFees(List.of(
+                new DeliveryFeeRequest("Tallinn", "Car"),
+                new DeliveryFeeRequest("Tallinn", "Bike"),
+                new DeliveryFeeRequest("Tartu", "Car"),
+                new DeliveryFeeRequest("", "Car"),
+                new DeliveryFeeRequest("Tallinn", "Car")
+        ));
+
+        assertEquals(5, results.size());
+        assertEquals(FeeQuoteStatus.OK, results.get(0).getStatus());
+        assertEquals(4.0, results.get(0).getTotalFee());
+        assertEquals(FeeQuoteStatus.FORBIDDEN, results.get(1).getStatus());
+        assertNull(results.get(1).getTotalFee());
+        assertEquals(FeeQuoteStatus.NO_BASE_FEE, results.get(2).getStatus());
+        assertEquals(FeeQuoteStatus.INVALID_REQUEST, results.get(3).getStatus());
+        assertSame(results.get(0), results.get(4)); // Each distinct pair is evaluated once
+    }
+
+    @Test
+    void testCalculateDeliveryFee_WithOrderTime_UsesWeatherAtThatTime() {
+        LocalDateTime orderTime = LocalDateTime.of(2025, 1, 15, 9, 30);
+        givenRules(List.of(new BaseFee("Tallinn", "Scooter", 3.0)),
+                List.of(new ExtraFee("Scooter", "air_temperature", 1.0, -100.0, -10.0)));
+        givenLatestStations("Tallinn-Harku", "Tartu-Tõravere");
+        when(weatherDataRepository.findFirstByStationNameAndTimestampLessThanEqualOrderByTimestampDesc(
+                "Tallinn-Harku", orderTime))
+                .thenReturn(Optional.of(observation("Tallinn-Harku", -15.0, LocalDateTime.of(2025, 1, 15, 9, 0))));
+
+        FeeQuoteResult result = deliveryFeeService.calculateDeliveryFee(
+                new DeliveryFeeRequest("Tallinn", "Scooter", orderTime));
+
+        assertEquals(FeeQuoteStatus.OK, result.status());
+        assertEquals(4.0, result.response().getTotalFee()); // 3.0 (base) + 1.0 (temperature at 09:00)
+        verify(weatherDataRepository, never())
+                .findFirstByStationNameAndTimestampLessThanEqualOrderByTimestampDesc(eq("Tartu-Tõravere"), any());
+    }
+
+    @Test
+    void testCalculateDeliveryFees_RepricesHistoricalOrdersInBulk() {
+        LocalDateTime dayStart = LocalDateTime.of(2025, 1, 15, 0, 0);
+        givenRules(List.of(new BaseFee("Tallinn", "Scooter", 3.0), new BaseFee("Tallinn", "Car", 4.0)),
+                List.of(new ExtraFee("Scooter", "air_temperature", 1.0, -100.0, -10.0)));
+        givenLatestStations("Tallinn-Harku");
+        when(weatherDataRepository.findFirstByStationNameAndTimestampLessThanEqualOrderByTimestampDesc(
+                "Tallinn-Harku", dayStart.plusHours(1)))
+                .thenReturn(Optional.of(observation("Tallinn-Harku", -15.0, dayStart)));
+        when(weatherDataRepository.findByStationNameAndTimestampBetweenOrderByTimestampAsc(
+                "Tallinn-Harku", dayStart.plusHours(1), dayStart.plusHours(23)))
+                .thenReturn(List.of(observation("Tallinn-Harku", 2.0, dayStart.plusHours(12))));
+
+        List<DeliveryFeeBatchResult> results = deliveryFeeService.calculateDeliveryFees(List.of(
+                new DeliveryFeeRequest("Tallinn", "Scooter", dayStart.plusHours(1)),
+                new DeliveryFeeRequest("Tallinn", "Scooter", dayStart.plusHours(11)),
+                new DeliveryFeeRequest("Tallinn", "Scooter", dayStart.plusHours(23)),
+                new DeliveryFeeRequest("Tallinn", "Car", dayStart.plusHours(12)),
+                new DeliveryFeeRequest("Tartu", "Car", dayStart.plusHours(12))
+        ));
+
+        assertEquals(4.0, results.get(0).getTotalFee());
+        assertSame(results.get(0), results.get(1)); // Same observation and vehicle type, evaluated once
+        assertEquals(3.0, results.get(2).getTotalFee());
+        assertEquals(4.0, results.get(3).getTotalFee());
+        assertEquals(FeeQuoteStatus.NO_BASE_FEE, results.get(4).getStatus());
+        verify(weatherDataRepository, times(1)).findByStationNameAndTimestampBetweenOrderByTimestampAsc(
+                any(), any(), any());
+        verify(weatherDataRepository, times(1)).findFirstByStationNameAndTimestampLessThanEqualOrderByTimestampDesc(
+                any(), any());
+    }
+
+    @Test
+    void testCalculateDeliveryFees_HistoricalUnknownVehicleTypesEchoTheirOwnType() {
+        LocalDateTime orderTime = LocalDateTime.of(2025, 1, 15, 9, 30);
+        givenRules(List.of(new BaseFee("Tallinn", "Car", 4.0)), List.of());
+        givenLatestStations("Tallinn-Harku");
+
+        List<DeliveryFeeBatchResult> results = deliveryFeeService.calculateDeliveryFees(List.of(
+                new DeliveryFeeRequest("Tallinn", "Plane", orderTime),
+                new DeliveryFeeRequest("Tallinn", "Boat", orderTime),
+                new DeliveryFeeRequest("Narva", "Plane", orderTime),
+                new DeliveryFeeRequest("Narva", "Boat", orderTime)));
+
+        assertEquals(List.of("Plane", "Boat", "Plane", "Boat"),
+                results.stream().map(DeliveryFeeBatchResult::getVehicleType).toList());
+        assertEquals(List.of(
+                "No base fee found for city: Tallinn and vehicle type: Plane",
+                "No base fee found for city: Tallinn and vehicle type: Boat",
+                "No base fee found for city: Narva and vehicle type: Plane",
+                "No base fee found for city: Narva and vehicle type: Boat"
+        ), results.stream().map(DeliveryFeeBatchResult::getStatusMessage).toList());
+    }
+
+    @Test
+    void testCalculateDeliveryFee_WithOrderTime_LooksUpMappedStationsById() {
+        LocalDateTime orderTime = LocalDateTime.of(2025, 1, 15, 9, 30);
+        givenRules(List.of(new BaseFee("Tartu", "Scooter", 3.0)),
+                List.of(new ExtraFee("Scooter", "air_temperature", 1.0, -100.0, -10.0)));
+        WeatherStation toravere = new WeatherStation("Tõravere", "Tartu");
+        toravere.setId(7L);
+        when(weatherStationCache.findStations("Tartu")).thenReturn(List.of(toravere));
+        when(weatherDataRepository.findFirstByStationIdAndTimestampLessThanEqualOrderByTimestampDesc(7L, orderTime))
+                .thenReturn(Optional.of(observation("Tõravere", -15.0, LocalDateTime.of(2025, 1, 15, 9, 0))));
+
+        FeeQuoteResult result = deliveryFeeService.calculateDeliveryFee(
+                new DeliveryFeeRequest("Tartu", "Scooter", orderTime));
+
+        assertEquals(4.0, result.response().getTotalFee());
+        verify(weatherDataRepository, never())
+                .findFirstByStationNameAndTimestampLessThanEqualOrderByTimestampDesc(any(), any());
+    }
+
+    @Test
+    void testCalculateDeliveryFee_PastRawRetention_UsesHourlyRollup() {
+        LocalDateTime orderTime = LocalDateTime.of(2025, 1, 15, 9, 30);
+        givenRules(List.of(new BaseFee("Tallinn", "Scooter", 3.0)),
+                List.of(new ExtraFee("Scooter", "air_temperature", 1.0, -100.0, -10.0)));
+        givenLatestStations("Tallinn-Harku");
+        when(weatherHourlyRollupRepository.findFirstByStationNameAndHourStartLessThanEqualOrderByHourStartDesc(
+                "Tallinn-Harku", orderTime))
+                .thenReturn(Optional.of(rollup("Tallinn-Harku", -12.0, LocalDateTime.of(2025, 1, 15, 9, 0))));
+
+        FeeQuoteResult result = deliveryFeeService.calculateDeliveryFee(
+                new DeliveryFeeRequest("Tallinn", "Scooter", orderTime));
+
+        assertEquals(4.0, result.response().getTotalFee()); // 3.0 (base) + 1.0 (average temperature of 09:00-10:00)
+    }
+
+    @Test
+    void testCalculateDeliveryFee_RolledUpObservationJustInsideRawRetention_UsesHourlyRollup() {
+        LocalDateTime orderTime = LocalDateTime.now().minusDays(30).plusMinutes(5);
+        givenRules(List.of(new BaseFee("Tallinn", "Scooter", 3.0)),
+                List.of(new ExtraFee("Scooter", "air_temperature", 1.0, -100.0, -10.0)));
+        givenLatestStations("Tallinn-Harku");
+        when(weatherHourlyRollupRepository.findFirstByStationNameAndHourStartLessThanEqualOrderByHourStartDesc(
+                "Tallinn-Harku", orderTime))
+                .thenReturn(Optional.of(rollup("Tallinn-Harku", -12.0, orderTime.minusMinutes(50))));
+
+        FeeQuoteResult result = deliveryFeeService.calculateDeliveryFee(
+                new DeliveryFeeRequest("Tallinn", "Scooter", orderTime));
+
+        assertEquals(4.0, result.response().getTotalFee()); // 3.0 (base) + 1.0 (average temperature of the rollup)
+    }
+
+    @Test
+    void testCalculateDeliveryFees_RolledUpObservationJustInsideRawRetention_RepricesAgainstRollups() {
+        LocalDateTime orderTime = LocalDateTime.now().minusDays(30).plusMinutes(5);
+        givenRules(List.of(new BaseFee("Tallinn", "Scooter", 3.0)),
+                List.of(new ExtraFee("Scooter", "air_temperature", 1.0, -100.0, -10.0)));
+        givenLatestStations("Tallinn-Harku");
+        when(weatherHourlyRollupRepository.findFirstByStationNameAndHourStartLessThanEqualOrderByHourStartDesc(
+                "Tallinn-Harku", orderTime))
+                .thenReturn(Optional.of(rollup("Tallinn-Harku", -12.0, orderTime.minusMinutes(50))));
+
+        List<DeliveryFeeBatchResult> results = deliveryFeeService.calculateDeliveryFees(List.of(
+                new DeliveryFeeRequest("Tallinn", "Scooter", orderTime)));
+
+        assertEquals(4.0, results.get(0).getTotalFee());
+    }
+
+    @Test
+    void testCalculateDeliveryFees_RawObservationInEffect_IgnoresRollups() {
+        LocalDateTime from = LocalDateTime.now().minusHours(1);
+        givenRules(List.of(new BaseFee("Tallinn", "Scooter", 3.0)), List.of());
+        givenLatestStations("Tallinn-Harku");
+        when(weatherDataRepository.findFirstByStationNameAndTimestampLessThanEqualOrderByTimestampDesc(
+                "Tallinn-Harku", from))
+                .thenReturn(Optional.of(observation("Tallinn-Harku", 2.0, from.minusMinutes(10))));
+
+        deliveryFeeService.calculateDeliveryFees(List.of(
+                new DeliveryFeeRequest("Tallinn", "Scooter", from),
+                new DeliveryFeeRequest("Tallinn", "Scooter", LocalDateTime.now().minusMinutes(1))));
+
+        verifyNoInteractions(weatherHourlyRollupRepository);
+    }
+
+    @Test
+    void testCalculateDeliveryFees_PastRawRetention_RepricesAgainstRollups() {
+        LocalDateTime dayStart = LocalDateTime.of(2025, 1, 15, 0, 0);
+        givenRules(List.of(new BaseFee("Tallinn", "Scooter", 3.0)),
+                List.of(new ExtraFee("Scooter", "air_temperature", 1.0, -100.0, -10.0)));
+        givenLatestStations("Tallinn-Harku");
+        when(weatherHourlyRollupRepository.findFirstByStationNameAndHourStartLessThanEqualOrderByHourStartDesc(
+                "Tallinn-Harku", dayStart.plusMinutes(30)))
+                .thenReturn(Optional.of(rollup("Tallinn-Harku", -15.0, dayStart)));
+        when(weatherHourlyRollupRepository.findByStationNameAndHourStartBetweenOrderByHourStartAsc(
+                "Tallinn-Harku", dayStart.plusMinutes(30), dayStart.plusHours(5)))
+                .thenReturn(List.of(rollup("Tallinn-Harku", 2.0, dayStart.plusHours(3))));
+
+        List<DeliveryFeeBatchResult> results = deliveryFeeService.calculateDeliveryFees(List.of(
+                new DeliveryFeeRequest("Tallinn", "Scooter", dayStart.plusMinutes(30)),
+                new DeliveryFeeRequest("Tallinn", "Scooter", dayStart.plusHours(5))));
+
+        assertEquals(4.0, results.get(0).getTotalFee());
+        assertEquals(3.0, results.get(1).getTotalFee());
+    }
+
+    private static WeatherHourlyRollup rollup(String stationName, double avgAirTemperature, LocalDateTime hourStart) {
+        return new WeatherHourlyRollup(null, stationName, 26038, hourStart, 3, avgAirTemperature - 1.0,
+                avgAirTemperature + 1.0, avgAirTemperature, 4.0, 6.0, 5.0, "clear");
+    }
 
-        assertThrows(InvalidVehicleException.class, () -> deliveryFeeService.calculateDeliveryFee(request));
+    private static WeatherData observation(String stationName, double airTemperature, LocalDateTime timestamp) {
+        WeatherData weatherData = new WeatherData(stationName, 26038, airTemperature, 5.0, "clear");
+        weatherData.setTimestamp(timestamp);
+        return weatherData;
     }
 }
@@ -0,0 +1,192 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.service.FeeRuleSnapshot.ExtraFeeRule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeeBandIndexTest {
+
+    private static final List<ExtraFeeRule> AIR_TEMPERATURE_BANDS = List.of(
+            band(1.0, -100.0, -10.0),
+            band(0.5, -10.0, 0.0)
+    );
+
+    @ParameterizedTest
+    @CsvSource({
+            "-11.0, 1.0",
+            "-10.0, 0.0",   // Exclusive bound between the two bands
+            "-9.0, 0.5",
+            "-100.0, 0.0",  // Exclusive lower bound
+            "0.0, 0.0",     // Exclusive upper bound
+            "2.0, 0.0",
+            "-150.0, 0.0"
+    })
+    void testFeeFor_ExclusiveBounds(double value, double expectedFee) {
+        assertEquals(expectedFee, FeeBandIndex.of(AIR_TEMPERATURE_BANDS).feeFor(value));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "15.0, false",
+            "20.0, false",
+            "20.1, true"
+    })
+    void testIsAboveMax(double value, boolean expected) {
+        FeeBandIndex index = FeeBandIndex.of(List.of(band(0.5, 10.0, 20.0)));
+
+        assertEquals(expected, index.isAboveMax(value));
+    }
+
+    @Test
+    void testEmptyIndex_NeverMatchesOrForbids() {
+        FeeBandIndex index = FeeBandIndex.of(List.of());
+
+        assertEquals(0, index.size());
+        assertEquals(0.0, index.feeFor(5.0));
+        assertFalse(index.isAboveMax(1_000.0));
+    }
+
+    @Test
+    void testOverlappingBands_FirstRowWins() {
+        FeeBandIndex wideFirst = FeeBandIndex.of(List.of(band(1.0, 0.0, 100.0), band(2.0, 10.0, 20.0)));
+        FeeBandIndex narrowFirst = FeeBandIndex.of(List.of(band(2.0, 10.0, 20.0), band(1.0, 0.0, 100.0)));
+
+        assertEquals(1.0, wideFirst.feeFor(50.0));
+        assertEquals(1.0, wideFirst.feeFor(15.0));
+        assertEquals(1.0, narrowFirst.feeFor(50.0));
+        assertEquals(2.0, narrowFirst.feeFor(15.0));
+    }
+
+    @Test
+    void testOverlappingBands_ConsistentWithLinearScan() {
+        Random random = new Random(11);
+
+        for (int round = 0; round < 50; round++) {
+            List<ExtraFeeRule> bands = new ArrayList<>();
+            for (int i = 0, count = 1 + random.nextInt(40); i < count; i++) {
+                double lower = -50.0 + random.nextInt(100);
+                bands.add(band(Math.round(random.nextDouble() * 300) / 100.0, lower,
+                        lower + 0.5 + random.nextInt(40) * 0.5));
+            }
+            FeeBandIndex index = FeeBandIndex.of(bands);
+
+            for (double value : probeValues(random, bands)) {
+                assertEquals(linearAirTemperatureFee(bands, value), index.feeFor(value),
+                        "value " + value + " in round " + round);
+            }
+        }
+    }
+
+    @Test
+    void testAirTemperature_ConsistentWithLinearScan() {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 50; round++) {
+            List<ExtraFeeRule> bands = randomBands(random, 1 + random.nextInt(40), false);
+            List<ExtraFeeRule> shuffled = new ArrayList<>(bands);
+            Collections.shuffle(shuffled, random);
+            FeeBandIndex index = FeeBandIndex.of(shuffled);
+
+            for (double value : probeValues(random, bands)) {
+                assertEquals(linearAirTemperatureFee(shuffled, value), index.feeFor(value),
+                        "value " + value + " in round " + round);
+            }
+        }
+    }
+
+    @Test
+    void testWindSpeed_ConsistentWithLinearScan() {
+        Random random = new Random(7);
+
+        for (int round = 0; round < 50; round++) {
+            List<ExtraFeeRule> bands = randomBands(random, 1 + random.nextInt(40), true);
+            // The linear scan forbids as soon as it meets a band below the value, so it only agrees with
+            // "above the highest band" when the bands leave no gaps and the rows are ordered from the
+            // highest band down.
+            List<ExtraFeeRule> descending = new ArrayList<>(bands);
+            Collections.reverse(descending);
+            FeeBandIndex index = FeeBandIndex.of(descending);
+
+            for (double value : probeValues(random, bands)) {
+                Double expected = linearWindSpeedFee(descending, value);
+                if (expected == null) {
+                    assertTrue(index.isAboveMax(value), "value " + value + " in round " + round);
+                } else {
+                    assertFalse(index.isAboveMax(value), "value " + value + " in round " + round);
+                    assertEquals(expected, index.feeFor(value), "value " + value + " in round " + round);
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates ascending, non-overlapping bands. Unless contiguous, some neighbours are separated by gaps.
+     */
+    private static List<ExtraFeeRule> randomBands(Random random, int count, boolean contiguous) {
+        List<ExtraFeeRule> bands = new ArrayList<>();
+        double lower = -50.0 + random.nextInt(20);
+        for (int i = 0; i < count; i++) {
+            double upper = lower + 0.5 + random.nextInt(10) * 0.5;
+            bands.add(band(Math.round(random.nextDouble() * 300) / 100.0, lower, upper));
+            lower = contiguous || random.nextBoolean() ? upper : upper + 1 + random.nextInt(3);
+        }
+        return bands;
+    }
+
+    private static List<Double> probeValues(Random random, List<ExtraFeeRule> bands) {
+        List<Double> values = new ArrayList<>();
+        for (ExtraFeeRule band : bands) {
+            values.add(band.minValue());
+            values.add(band.maxValue());
+            values.add(Math.nextUp(band.minValue()));
+            values.add(Math.nextDown(band.maxValue()));
+        }
+        double lowest = bands.get(0).minValue() - 5.0;
+        double highest = bands.get(bands.size() - 1).maxValue() + 5.0;
+        for (int i = 0; i < 200; i++) {
+            values.add(lowest + random.nextDouble() * (highest - lowest));
+        }
+        return values;
+    }
+
+    /**
+     * Reference implementation: the per-row scan {@code getAirTemperatureFee} used before the index existed.
+     */
+    private static double linearAirTemperatureFee(List<ExtraFeeRule> rules, double airTemperature) {
+        for (ExtraFeeRule fee : rules) {
+            if (airTemperature > fee.minValue() && airTemperature < fee.maxValue()) {
+                return fee.fee();
+            }
+        }
+        return 0.0;
+    }
+
+    /**
+     * Reference implementation: the per-row scan {@code getWindSpeedFee} used before the index existed.
+     *
+     * @return The fee, or null where the scan would have rejected the vehicle type.
+     */
+    private static Double linearWindSpeedFee(List<ExtraFeeRule> rules, double windSpeed) {
+        for (ExtraFeeRule fee : rules) {
+            if (windSpeed > fee.maxValue()) {
+                return null;
+            }
+            if (windSpeed > fee.minValue() && windSpeed < fee.maxValue()) {
+                return fee.fee();
+            }
+        }
+        return 0.0;
+    }
+
+    private static ExtraFeeRule band(double fee, double minValue, double maxValue) {
+        return new ExtraFeeRule(null, fee, minValue, maxValue, false);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.dto.DeliveryFeeRequest;
+import com.example.fooddelivery.dto.DeliveryFeeResponse;
+import com.example.fooddelivery.entity.BaseFee;
+import com.example.fooddelivery.entity.ExtraFee;
+import com.example.fooddelivery.entity.WeatherData;
+import com.example.fooddelivery.repository.BaseFeeRepository;
+import com.example.fooddelivery.repository.ExtraFeeRepository;
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import com.example.fooddelivery.repository.WeatherHourlyRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks that the interned fee model quotes the same fee as the per-quote rule scan it replaced. The bytes each of
+ * them allocates per quote are compared by {@code FeeQuoteAllocationBenchmark}.
+ */
+class FeeQuoteEquivalenceTest {
+
+    private static final List<BaseFee> BASE_FEES = List.of(
+            new BaseFee("Tallinn", "Car", 4.0),
+            new BaseFee("Tallinn", "Scooter", 3.5),
+            new BaseFee("Tallinn", "Bike", 3.0)
+    );
+
+    private static final List<ExtraFee> EXTRA_FEES = List.of(
+            new ExtraFee("Scooter", "air_temperature", 1.0, -100.0, -10.0),
+            new ExtraFee("Scooter", "air_temperature", 0.5, -10.0, 0.0),
+            new ExtraFee("Bike", "air_temperature", 1.0, -100.0, -10.0),
+            new ExtraFee("Bike", "air_temperature", 0.5, -10.0, 0.0),
+            new ExtraFee("Bike", "wind_speed", 0.5, 10.0, 20.0),
+            phenomenonFee("Scooter", "snow", 1.0),
+            phenomenonFee("Scooter", "rain", 0.5),
+            phenomenonFee("Bike", "snow", 1.0),
+            phenomenonFee("Bike", "rain", 0.5)
+    );
+
+    private static final WeatherData WEATHER = new WeatherData("Tallinn-Harku", 26038, -5.0, 5.0, " Snow ");
+
+    private final DeliveryFeeRequest request = new DeliveryFeeRequest("Tallinn", "Scooter");
+
+    private DeliveryFeeService deliveryFeeService;
+
+    @BeforeEach
+    void setUp() {
+        BaseFeeRepository baseFeeRepository = mock(BaseFeeRepository.class);
+        ExtraFeeRepository extraFeeRepository = mock(ExtraFeeRepository.class);
+        WeatherDataRepository weatherDataRepository = mock(WeatherDataRepository.class);
+        when(baseFeeRepository.findAll()).thenReturn(BASE_FEES);
+        when(extraFeeRepository.findAll()).thenReturn(EXTRA_FEES);
+        when(weatherDataRepository.findLatestOfEachStation()).thenReturn(List.of(WEATHER));
+
+        deliveryFeeService = new DeliveryFeeFixture(baseFeeRepository, extraFeeRepository, weatherDataRepository,
+                mock(WeatherHourlyRollupRepository.class), mock(WeatherStationCache.class))
+                .refresh()
+                .getDeliveryFeeService();
+    }
+
+    @Test
+    void testBothModelsQuoteTheSameFee() {
+        DeliveryFeeResponse legacy = legacyQuote(request);
+        DeliveryFeeResponse interned = deliveryFeeService.calculateDeliveryFee(request).response();
+
+        assertEquals(legacy.getTotalFee(), interned.getTotalFee());
+        assertEquals(legacy.getStatusMessage(), interned.getStatusMessage());
+    }
+
+    /**
+     * The quote path as it was before fee rules were interned: rules are selected by comparing condition type and
+     * vehicle type strings on every quote, fees are boxed and phenomena are trimmed on every comparison.
+     */
+    private static DeliveryFeeResponse legacyQuote(DeliveryFeeRequest request) {
+        String vehicleType = request.getVehicleType();
+
+        Double baseFee = BASE_FEES.stream()
+                .filter(fee -> fee.getCity().equals(request.getCity()) && fee.getVehicleType().equals(vehicleType))
+                .findFirst()
+                .map(BaseFee::getFee)
+                .orElseThrow();
+
+        boolean forbidden = legacyRules("weather_phenomenon", vehicleType).stream()
+                .anyMatch(fee -> fee.getIsForbidden()
+                        && fee.getWeatherPhenomenon().equalsIgnoreCase(WEATHER.getWeatherPhenomenon()));
+        assertFalse(forbidden);
+
+        Double airTemperatureFee = 0.0;
+        for (ExtraFee fee : legacyRules("air_temperature", vehicleType)) {
+            if (WEATHER.getAirTemperature() > fee.getMinValue() && WEATHER.getAirTemperature() < fee.getMaxValue()) {
+                airTemperatureFee = fee.getFee();
+                break;
+            }
+        }
+
+        Double windSpeedFee = 0.0;
+        for (ExtraFee fee : legacyRules("wind_speed", vehicleType)) {
+            if (WEATHER.getWindSpeed() > fee.getMinValue() && WEATHER.getWindSpeed() < fee.getMaxValue()) {
+                windSpeedFee = fee.getFee();
+                break;
+            }
+        }
+
+        Double weatherPhenomenonFee = 0.0;
+        for (ExtraFee fee : legacyRules("weather_phenomenon", vehicleType)) {
+            if (fee.getWeatherPhenomenon().trim().equalsIgnoreCase(WEATHER.getWeatherPhenomenon().trim())) {
+                weatherPhenomenonFee = fee.getFee();
+                break;
+            }
+        }
+
+        Double totalFee = baseFee + airTemperatureFee + windSpeedFee + weatherPhenomenonFee;
+
+        return new DeliveryFeeResponse(String.format("Total delivery fee: %.2f", totalFee), totalFee);
+    }
+
+    /**
+     * Stands in for the per-quote {@code findByConditionTypeAndVehicleType} query, which returned a fresh list.
+     */
+    private static List<ExtraFee> legacyRules(String conditionType, String vehicleType) {
+        return EXTRA_FEES.stream()
+                .filter(fee -> fee.getConditionType().equals(conditionType) && fee.getVehicleType().equals(vehicleType))
+                .toList();
+    }
+
+    private static ExtraFee phenomenonFee(String vehicleType, String weatherPhenomenon, double fee) {
+        ExtraFee extraFee = new ExtraFee();
+        extraFee.setConditionType("weather_phenomenon");
+        extraFee.setVehicleType(vehicleType);
+        extraFee.setWeatherPhenomenon(weatherPhenomenon);
+        extraFee.setFee(fee);
+        extraFee.setIsForbidden(false);
+        return extraFee;
+    }
+}
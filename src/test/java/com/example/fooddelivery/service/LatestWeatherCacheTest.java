@@ -0,0 +1,85 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.WeatherData;
+import com.example.fooddelivery.entity.WeatherStation;
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LatestWeatherCacheTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2025, 1, 15, 12, 0);
+
+    private WeatherDataRepository weatherDataRepository;
+    private WeatherStationCache weatherStationCache;
+    private LatestWeatherCache latestWeatherCache;
+
+    @BeforeEach
+    void setUp() {
+        weatherDataRepository = mock(WeatherDataRepository.class);
+        weatherStationCache = mock(WeatherStationCache.class);
+        latestWeatherCache = new LatestWeatherCache(weatherDataRepository, weatherStationCache);
+    }
+
+    @Test
+    void testRefresh_KeepsNewestPerStation() {
+        WeatherData older = observation("Tallinn-Harku", NOON.minusHours(1));
+        WeatherData newer = observation("Tallinn-Harku", NOON);
+        WeatherData tartu = observation("Tartu-Tõravere", NOON);
+        when(weatherDataRepository.findLatestOfEachStation()).thenReturn(List.of(older, newer, tartu));
+
+        latestWeatherCache.refresh();
+
+        assertSame(newer, latestWeatherCache.findLatest("Tallinn"));
+        assertSame(tartu, latestWeatherCache.findLatest("tartu"));
+        assertNull(latestWeatherCache.findLatest("Pärnu"));
+    }
+
+    @Test
+    void testUpdate_PublishesNewSnapshotAndIgnoresOlderObservations() {
+        WeatherData noon = observation("Tallinn-Harku", NOON);
+        latestWeatherCache.update(List.of(noon));
+        Map<String, WeatherData> before = latestWeatherCache.getLatestByStation();
+
+        WeatherData evening = observation("Tallinn-Harku", NOON.plusHours(6));
+        latestWeatherCache.update(List.of(evening));
+        latestWeatherCache.update(List.of(observation("Tallinn-Harku", NOON.plusHours(1))));
+
+        assertSame(noon, before.get("Tallinn-Harku"));
+        assertSame(evening, latestWeatherCache.findLatest("Tallinn"));
+        verifyNoInteractions(weatherDataRepository);
+    }
+
+    @Test
+    void testFindLatest_PicksNewestOfCityStations() {
+        WeatherData harku = observation("Tallinn-Harku", NOON);
+        WeatherData port = observation("Tallinn Port", NOON.plusMinutes(10));
+        latestWeatherCache.update(List.of(harku, port));
+
+        assertSame(port, latestWeatherCache.findLatest("Tallinn"));
+    }
+
+    @Test
+    void testFindLatest_MappedCityOnlyUsesItsStations() {
+        WeatherData toravere = observation("Tõravere", NOON);
+        WeatherData harbour = observation("Tartu Harbour", NOON.plusMinutes(10));
+        latestWeatherCache.update(List.of(toravere, harbour));
+        when(weatherStationCache.findStations("Tartu")).thenReturn(List.of(new WeatherStation("Tõravere", "Tartu")));
+
+        assertSame(toravere, latestWeatherCache.findLatest("Tartu"));
+        assertSame(harbour, latestWeatherCache.findLatest("Harbour"));
+    }
+
+    private static WeatherData observation(String stationName, LocalDateTime timestamp) {
+        WeatherData observation = new WeatherData(stationName, 26038, -2.0, 5.0, "Clear");
+        observation.setTimestamp(timestamp);
+        return observation;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.WeatherData;
+import com.example.fooddelivery.service.ObservationsFeedParser.ParsedObservations;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObservationsFeedParserTest {
+
+    private static final LocalDateTime FALLBACK_TIMESTAMP = LocalDateTime.of(2025, 1, 15, 12, 0);
+
+    private static final LocalDateTime FEED_TIMESTAMP =
+            LocalDateTime.ofInstant(Instant.ofEpochSecond(1736942400), ZoneId.systemDefault());
+
+    private static final String FEED = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <observations timestamp="1736942400">
+              <station>
+                <name>Kuressaare linn</name>
+                <wmocode></wmocode>
+                <phenomenon>Light snow shower</phenomenon>
+                <airtemperature>-1.0</airtemperature>
+              </station>
+              <station>
+                <name>Tallinn-Harku</name>
+                <wmocode>26038</wmocode>
+                <longitude>24.602891666624284</longitude>
+                <phenomenon>Light snow shower</phenomenon>
+                <visibility>35.0</visibility>
+                <airtemperature>-2.1</airtemperature>
+                <windspeed>4.7</windspeed>
+              </station>
+              <station>
+                <name>Tartu-Tõravere</name>
+                <wmocode>26242</wmocode>
+                <phenomenon/>
+                <airtemperature> -11.3 </airtemperature>
+                <windspeed>n/a</windspeed>
+              </station>
+              <station>
+                <name>Pärnu</name>
+                <wmocode>x</wmocode>
+              </station>
+            </observations>
+            """;
+
+    @Test
+    void testParse_ReadsTargetStationsOnly() throws XMLStreamException {
+        ParsedObservations parsed = parse(FEED, List.of("Tallinn-Harku", "Tartu-Tõravere"));
+
+        assertEquals(2, parsed.targetStationCount());
+        assertEquals(2, parsed.observations().size());
+
+        WeatherData tallinn = parsed.observations().get(0);
+        assertEquals("Tallinn-Harku", tallinn.getStationName());
+        assertEquals(26038, tallinn.getWmoCode());
+        assertEquals(-2.1, tallinn.getAirTemperature());
+        assertEquals(4.7, tallinn.getWindSpeed());
+        assertEquals("Light snow shower", tallinn.getWeatherPhenomenon());
+        assertEquals(FEED_TIMESTAMP, tallinn.getTimestamp());
+
+        WeatherData tartu = parsed.observations().get(1);
+        assertEquals("Tartu-Tõravere", tartu.getStationName());
+        assertEquals(-11.3, tartu.getAirTemperature());
+        assertNull(tartu.getWindSpeed());
+        assertNull(tartu.getWeatherPhenomenon());
+    }
+
+    @Test
+    void testParse_CountsTargetStationsWithoutWmoCode() throws XMLStreamException {
+        ParsedObservations parsed = parse(FEED, List.of("Pärnu", "Kuressaare linn"));
+
+        assertEquals(2, parsed.targetStationCount());
+        assertTrue(parsed.observations().isEmpty());
+    }
+
+    @Test
+    void testParse_NoTargetStations() throws XMLStreamException {
+        ParsedObservations parsed = parse(FEED, List.of("Narva"));
+
+        assertEquals(0, parsed.targetStationCount());
+        assertTrue(parsed.observations().isEmpty());
+    }
+
+    @Test
+    void testParse_FallsBackWithoutFeedTimestamp() throws XMLStreamException {
+        String feed = "<observations timestamp=\"soon\"><station><name>Tallinn-Harku</name>"
+                + "<wmocode>26038</wmocode></station></observations>";
+
+        assertEquals(FALLBACK_TIMESTAMP,
+                parse(feed, List.of("Tallinn-Harku")).observations().get(0).getTimestamp());
+    }
+
+    @Test
+    void testParse_MalformedFeed() {
+        assertThrows(XMLStreamException.class,
+                () -> parse("<observations><station><name>Tallinn-Harku</name>", List.of("Tallinn-Harku")));
+    }
+
+    @Test
+    void testParse_IgnoresDoctype() throws XMLStreamException {
+        String feed = "<?xml version=\"1.0\"?><!DOCTYPE observations [<!ENTITY x SYSTEM \"file:///etc/passwd\">]>"
+                + "<observations><station><name>Tallinn-Harku</name><wmocode>26038</wmocode></station></observations>";
+
+        assertEquals(1, parse(feed, List.of("Tallinn-Harku")).observations().size());
+    }
+
+    private static ParsedObservations parse(String feed, List<String> targetStations) throws XMLStreamException {
+        return ObservationsFeedParser.parse(new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)),
+                targetStations, FALLBACK_TIMESTAMP);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.dto.DeliveryFeeRequest;
+import com.example.fooddelivery.dto.FeeQuoteStatus;
+import com.example.fooddelivery.entity.BaseFee;
+import com.example.fooddelivery.entity.ExtraFee;
+import com.example.fooddelivery.entity.WeatherData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the snowstorm scenario in which most quotes fail. Its throughput, with result-based handling of failed quotes
+ * against the exception-based handling it replaced, is measured by {@code SnowstormQuoteBenchmark} in the JMH source
+ * set.
+ */
+class SnowstormQuoteTest {
+
+    private static final List<String> CITIES = List.of("Tallinn", "Tartu", "Pärnu", "Narva");
+    private static final List<String> VEHICLE_TYPES = List.of("Car", "Scooter", "Bike");
+
+    private DeliveryFeeService deliveryFeeService;
+    private List<DeliveryFeeRequest> requests;
+
+    @BeforeEach
+    void setUp() {
+        List<BaseFee> baseFees = new ArrayList<>();
+        for (String city : CITIES.subList(0, 3)) {
+            baseFees.add(new BaseFee(city, "Car", 4.0));
+            baseFees.add(new BaseFee(city, "Scooter", 3.5));
+            baseFees.add(new BaseFee(city, "Bike", 3.0));
+        }
+        List<ExtraFee> extraFees = List.of(
+                new ExtraFee("Scooter", "air_temperature", 1.0, -100.0, -10.0),
+                new ExtraFee("Bike", "air_temperature", 1.0, -100.0, -10.0),
+                new ExtraFee("Bike", "wind_speed", 0.5, 10.0, 20.0),
+                new ExtraFee("weather_phenomenon", "Scooter", "Heavy snowfall", true),
+                new ExtraFee("weather_phenomenon", "Bike", "Heavy snowfall", true)
+        );
+
+        List<WeatherData> snowstorm = new ArrayList<>();
+        for (String city : CITIES) {
+            WeatherData observation = new WeatherData(city, 0, -15.0, 24.0, "Heavy snowfall");
+            observation.setTimestamp(LocalDateTime.of(2025, 1, 15, 12, 0));
+            snowstorm.add(observation);
+        }
+
+        deliveryFeeService = DeliveryFeeFixture.inMemory(baseFees, extraFees, snowstorm).getDeliveryFeeService();
+
+        requests = new ArrayList<>();
+        for (String city : CITIES) {
+            for (String vehicleType : VEHICLE_TYPES) {
+                requests.add(new DeliveryFeeRequest(city, vehicleType));
+            }
+        }
+    }
+
+    @Test
+    void testSnowstormMostlyFailsQuotes() {
+        long failed = requests.stream()
+                .map(deliveryFeeService::calculateDeliveryFee)
+                .filter(result -> result.status() != FeeQuoteStatus.OK)
+                .count();
+
+        assertEquals(9, failed); // Scooter and Bike in every city, and every vehicle in the city without rules
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.WeatherData;
+import com.example.fooddelivery.entity.WeatherHourlyRollup;
+import com.example.fooddelivery.repository.WeatherHourlyRollupRepository;
+import com.example.fooddelivery.service.WeatherBackfillService.BackfillReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherBackfillServiceTest {
+
+    private static final long HOUR_SECONDS = 3_600L;
+
+    @TempDir
+    private Path archive;
+
+    @Mock
+    private WeatherObservationStore weatherObservationStore;
+
+    @Mock
+    private WeatherHourlyRollupRepository weatherHourlyRollupRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private LatestWeatherCache latestWeatherCache;
+
+    private WeatherBackfillService weatherBackfillService;
+
+    @BeforeEach
+    void setUp() {
+        weatherBackfillService = new WeatherBackfillService(weatherObservationStore, weatherHourlyRollupRepository,
+                latestWeatherCache, eventPublisher, Duration.ofDays(30), 2);
+    }
+
+    @Test
+    void testBackfill_ImportsEveryFileAndSkipsUnreadableOnes() throws IOException {
+        long start = Instant.now().getEpochSecond() - 48 * HOUR_SECONDS;
+        for (int hour = 0; hour < 24; hour++) {
+            writeFeed(String.format("observations-%02d.xml", hour), start + hour * HOUR_SECONDS);
+        }
+        Files.writeString(archive.resolve("observations-99.xml"), "<observations><station>");
+        Files.writeString(archive.resolve("notes.txt"), "not a feed");
+        when(weatherObservationStore.saveNew(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BackfillReport report = weatherBackfillService.backfill(archive, List.of("Tallinn-Harku", "Pärnu"));
+
+        assertEquals(25, report.files());
+        assertEquals(1, report.failedFiles());
+        assertEquals(48, report.parsedRecords());
+        assertEquals(48, report.savedRecords());
+        verify(eventPublisher).publishEvent(new WeatherDataImportedEvent(48));
+        verifyNoInteractions(weatherHourlyRollupRepository);
+
+        ArgumentCaptor<List<WeatherData>> captor = ArgumentCaptor.forClass(List.class);
+        verify(latestWeatherCache).update(captor.capture());
+        List<WeatherData> saved = new ArrayList<>(captor.getValue());
+        saved.sort(Comparator.comparing(WeatherData::getTimestamp));
+        assertEquals(toLocal(start), saved.get(0).getTimestamp());
+        assertEquals(toLocal(start + 23 * HOUR_SECONDS), saved.get(saved.size() - 1).getTimestamp());
+        assertTrue(saved.stream().noneMatch(observation -> observation.getStationName().equals("Tartu-Tõravere")));
+    }
+
+    @Test
+    void testBackfill_SkipsHoursAlreadyCompacted() throws IOException {
+        long compactedHour = Instant.now().getEpochSecond() - 90 * 24 * HOUR_SECONDS;
+        compactedHour -= compactedHour % HOUR_SECONDS;
+        writeFeed("old.xml", compactedHour + 600);
+        when(weatherHourlyRollupRepository.findByHourStartBetween(any(), any())).thenReturn(List.of(
+                new WeatherHourlyRollup(1L, "Tallinn-Harku", 26038, toLocal(compactedHour), 1,
+                        -1.0, -1.0, -1.0, 3.0, 3.0, 3.0, "Clear")));
+        when(weatherObservationStore.saveNew(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BackfillReport report = weatherBackfillService.backfill(archive, List.of("Tallinn-Harku", "Pärnu"));
+
+        assertEquals(2, report.parsedRecords());
+        assertEquals(1, report.savedRecords());
+        assertEquals(1, report.skippedRecords());
+        ArgumentCaptor<List<WeatherData>> captor = ArgumentCaptor.forClass(List.class);
+        verify(weatherObservationStore).saveNew(captor.capture());
+        assertEquals("Pärnu", captor.getValue().get(0).getStationName());
+    }
+
+    @Test
+    void testBackfill_EmptyDirectory() throws IOException {
+        BackfillReport report = weatherBackfillService.backfill(archive, List.of("Tallinn-Harku"));
+
+        assertEquals(0, report.files());
+        verifyNoInteractions(weatherObservationStore, eventPublisher);
+    }
+
+    private void writeFeed(String fileName, long epochSeconds) throws IOException {
+        Files.writeString(archive.resolve(fileName), "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<observations timestamp=\"" + epochSeconds + "\">"
+                + "<station><name>Tallinn-Harku</name><wmocode>26038</wmocode><phenomenon>Clear</phenomenon>"
+                + "<airtemperature>-1.0</airtemperature><windspeed>3.0</windspeed></station>"
+                + "<station><name>Tartu-Tõravere</name><wmocode>26242</wmocode></station>"
+                + "<station><name>Pärnu</name><wmocode>41803</wmocode><airtemperature>0.5</airtemperature>"
+                + "</station></observations>");
+    }
+
+    private static LocalDateTime toLocal(long epochSeconds) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSeconds), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherDataSequenceMigrationTest {
+
+    @Mock
+    private WeatherDataRepository weatherDataRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private WeatherDataSequenceMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        migration = new WeatherDataSequenceMigration(weatherDataRepository, jdbcTemplate);
+    }
+
+    @Test
+    void testRestart_SequenceBelowStoredIdsIsRestartedAboveThem() {
+        when(weatherDataRepository.findMaxId()).thenReturn(1234L);
+        when(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR weather_data_seq", Long.class)).thenReturn(1L);
+
+        migration.restartSequenceAboveStoredIds();
+
+        verify(jdbcTemplate).execute("ALTER SEQUENCE weather_data_seq RESTART WITH 1284");
+    }
+
+    @Test
+    void testRestart_BlockOverlappingStoredIdsIsRestarted() {
+        when(weatherDataRepository.findMaxId()).thenReturn(1234L);
+        when(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR weather_data_seq", Long.class)).thenReturn(1250L);
+
+        migration.restartSequenceAboveStoredIds();
+
+        verify(jdbcTemplate).execute("ALTER SEQUENCE weather_data_seq RESTART WITH 1284");
+    }
+
+    @Test
+    void testRestart_SequenceAboveStoredIdsIsKept() {
+        when(weatherDataRepository.findMaxId()).thenReturn(1234L);
+        when(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR weather_data_seq", Long.class)).thenReturn(1300L);
+
+        migration.restartSequenceAboveStoredIds();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void testRestart_EmptyTableIsLeftAlone() {
+        when(weatherDataRepository.findMaxId()).thenReturn(0L);
+
+        migration.restartSequenceAboveStoredIds();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
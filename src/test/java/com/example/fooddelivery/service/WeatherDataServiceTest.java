@@ -1,20 +1,29 @@
 package com.example.fooddelivery.service;
 
+import com.example.fooddelivery.dto.ObservationKey;
 import com.example.fooddelivery.entity.WeatherData;
 import com.example.fooddelivery.repository.WeatherDataRepository;
-import org.jsoup.Jsoup;
-import org.jsoup.Connection;
-import org.jsoup.nodes.Document;
+import com.example.fooddelivery.service.WeatherFeedClient.FeedVersion;
+import com.example.fooddelivery.service.WeatherFeedClient.WeatherFeedResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,14 +34,33 @@ class WeatherDataServiceTest {
     @Mock
     private WeatherDataRepository weatherDataRepository;
 
+    @Mock
+    private WeatherFeedClient weatherFeedClient;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private WeatherStationCache weatherStationCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private LatestWeatherCache latestWeatherCache;
+
     private WeatherDataService weatherDataService;
 
     @BeforeEach
     void setUp() {
-        weatherDataService = new WeatherDataService(weatherDataRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        latestWeatherCache = new LatestWeatherCache(weatherDataRepository, weatherStationCache);
+        weatherDataService = serviceWith(new IlmateenistusWeatherProvider(
+                "ilmateenistus", weatherFeedClient, List.of("Tallinn", "Tartu"), Duration.ofSeconds(5)));
+    }
 
-        ReflectionTestUtils.setField(weatherDataService, "apiUrl", "https://mocked.api/weather");
-        ReflectionTestUtils.setField(weatherDataService, "targetStations", List.of("Tallinn", "Tartu"));
+    private WeatherDataService serviceWith(WeatherProvider... providers) {
+        return new WeatherDataService(List.of(providers),
+                new WeatherObservationStore(weatherDataRepository, weatherStationCache, mock(EntityManager.class)),
+                latestWeatherCache, eventPublisher, meterRegistry, 3, Duration.ofMinutes(5));
     }
 
     @Test
@@ -44,53 +72,76 @@ class WeatherDataServiceTest {
                 "<windspeed>5.0</windspeed><phenomenon>clear</phenomenon></station>"
                 + "</stations>";
 
-        Document mockDocument = Jsoup.parse(mockHtml);
-
-        try (var mockedJsoup = mockStatic(Jsoup.class)) {
-            Connection mockConnection = mock(Connection.class);
-
-            when(Jsoup.connect(anyString())).thenReturn(mockConnection);
-            when(mockConnection.timeout(anyInt())).thenReturn(mockConnection);
-            when(mockConnection.get()).thenReturn(mockDocument);
-
-            when(weatherDataRepository.existsByWmoCodeAndTimestamp(anyInt(), any())).thenReturn(false);
-
-            weatherDataService.fetchAndStoreWeatherData();
+        when(weatherFeedClient.fetch()).thenReturn(changed(mockHtml));
+        when(weatherDataRepository.findKeysByWmoCodeInAndTimestampIn(any(), any())).thenReturn(List.of());
+        when(weatherDataRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertTrue(weatherDataService.fetchAndStoreWeatherData());
+
+        ArgumentCaptor<List<WeatherData>> captor = ArgumentCaptor.forClass(List.class);
+        verify(weatherDataRepository, times(1)).findKeysByWmoCodeInAndTimestampIn(any(), any());
+        verify(weatherDataRepository, times(1)).saveAll(captor.capture());
+        verify(weatherDataRepository, never()).save(any());
+
+        List<WeatherData> savedWeatherData = captor.getValue();
+
+        assertEquals(2, savedWeatherData.size());
+        assertEquals("Tallinn", savedWeatherData.get(0).getStationName());
+        assertEquals(12345, savedWeatherData.get(0).getWmoCode());
+        assertEquals(-2.5, savedWeatherData.get(0).getAirTemperature());
+        assertEquals(3.0, savedWeatherData.get(0).getWindSpeed());
+        assertEquals("snow", savedWeatherData.get(0).getWeatherPhenomenon());
+
+        assertEquals("Tartu", savedWeatherData.get(1).getStationName());
+        assertEquals(67890, savedWeatherData.get(1).getWmoCode());
+
+        verify(eventPublisher, times(1)).publishEvent(new WeatherDataImportedEvent(2));
+        assertEquals(2.0, meterRegistry.get("weather.import.records").tag("result", "parsed").counter().count());
+        assertEquals(2.0, meterRegistry.get("weather.import.records").tag("result", "saved").counter().count());
+        assertEquals(1L, meterRegistry.get("weather.import.duration").tag("outcome", "success").timer().count());
+        verify(weatherFeedClient, times(1)).markImported(any());
+        assertSame(savedWeatherData.get(0), latestWeatherCache.findLatest("Tallinn"));
+        assertEquals(0.0, weatherDataService.observationAgeSeconds("Tartu"), 5.0);
+        assertTrue(Double.isNaN(weatherDataService.observationAgeSeconds("Pärnu")));
+    }
 
-            ArgumentCaptor<WeatherData> captor = ArgumentCaptor.forClass(WeatherData.class);
-            verify(weatherDataRepository, times(2)).save(captor.capture());
+    @Test
+    void testFetchAndStoreWeatherData_UnchangedFeed() throws IOException {
+        when(weatherFeedClient.fetch()).thenReturn(new WeatherFeedResponse(FeedStatus.NOT_MODIFIED, null, null));
 
-            List<WeatherData> savedWeatherData = captor.getAllValues();
+        weatherDataService.fetchAndStoreWeatherData();
 
-            assertEquals(2, savedWeatherData.size());
-            assertEquals("Tallinn", savedWeatherData.get(0).getStationName());
-            assertEquals(12345, savedWeatherData.get(0).getWmoCode());
-            assertEquals(-2.5, savedWeatherData.get(0).getAirTemperature());
-            assertEquals(3.0, savedWeatherData.get(0).getWindSpeed());
-            assertEquals("snow", savedWeatherData.get(0).getWeatherPhenomenon());
+        verifyNoInteractions(weatherDataRepository, eventPublisher);
+        verify(weatherFeedClient, never()).markImported(any());
+        assertEquals(1.0, meterRegistry.get("weather.import.fetches").tag("status", "not_modified").counter().count());
+        assertEquals(1L, meterRegistry.get("weather.import.duration").tag("outcome", "success").timer().count());
+    }
 
-            assertEquals("Tartu", savedWeatherData.get(1).getStationName());
-            assertEquals(67890, savedWeatherData.get(1).getWmoCode());
-        }
+    @Test
+    void testFetchAndStoreWeatherData_UsesFeedTimestamp() throws IOException {
+        String feed = "<observations timestamp=\"1736942400\">"
+                + "<station><name>Tallinn</name><wmocode>12345</wmocode></station>"
+                + "</observations>";
+        when(weatherFeedClient.fetch()).thenReturn(changed(feed));
+        when(weatherDataRepository.findKeysByWmoCodeInAndTimestampIn(any(), any())).thenReturn(List.of());
+        when(weatherDataRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        weatherDataService.fetchAndStoreWeatherData();
+
+        ArgumentCaptor<List<WeatherData>> captor = ArgumentCaptor.forClass(List.class);
+        verify(weatherDataRepository).saveAll(captor.capture());
+        assertEquals(LocalDateTime.ofInstant(Instant.ofEpochSecond(1736942400), ZoneId.systemDefault()),
+                captor.getValue().get(0).getTimestamp());
     }
 
     @Test
     void testFetchAndStoreWeatherData_NoData() throws IOException {
         String emptyHtml = "<stations></stations>";
-        Document mockDocument = Jsoup.parse(emptyHtml);
-
-        try (var mockedJsoup = mockStatic(Jsoup.class)) {
-            Connection mockConnection = mock(Connection.class);
-
-            when(Jsoup.connect(anyString())).thenReturn(mockConnection);
-            when(mockConnection.timeout(anyInt())).thenReturn(mockConnection);
-            when(mockConnection.get()).thenReturn(mockDocument);
+        when(weatherFeedClient.fetch()).thenReturn(changed(emptyHtml));
 
+        weatherDataService.fetchAndStoreWeatherData();
 
-            weatherDataService.fetchAndStoreWeatherData();
-
-            verify(weatherDataRepository, never()).save(any());
-        }
+        verify(weatherDataRepository, never()).saveAll(any());
     }
 
     @Test
@@ -100,22 +151,17 @@ class WeatherDataServiceTest {
                 "<windspeed>3.0</windspeed><phenomenon>snow</phenomenon></station>"
                 + "</stations>";
 
-        Document mockDocument = Jsoup.parse(mockHtml);
-
-        try (var mockedJsoup = mockStatic(Jsoup.class)) {
-            Connection mockConnection = mock(Connection.class);
-
-            when(Jsoup.connect(anyString())).thenReturn(mockConnection);
-            when(mockConnection.timeout(anyInt())).thenReturn(mockConnection);
-            when(mockConnection.get()).thenReturn(mockDocument);
-
-
-            when(weatherDataRepository.existsByWmoCodeAndTimestamp(eq(12345), any())).thenReturn(true);
+        when(weatherFeedClient.fetch()).thenReturn(changed(mockHtml));
+        when(weatherDataRepository.findKeysByWmoCodeInAndTimestampIn(any(), any()))
+                .thenAnswer(invocation -> invocation.<Collection<LocalDateTime>>getArgument(1).stream()
+                        .map(timestamp -> new ObservationKey(12345, timestamp))
+                        .toList());
 
-            weatherDataService.fetchAndStoreWeatherData();
+        weatherDataService.fetchAndStoreWeatherData();
 
-            verify(weatherDataRepository, never()).save(any());
-        }
+        verify(weatherDataRepository, never()).saveAll(any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+        assertEquals(1.0, meterRegistry.get("weather.import.records").tag("result", "skipped").counter().count());
     }
 
     @Test
@@ -126,28 +172,135 @@ class WeatherDataServiceTest {
                 + "<phenomenon></phenomenon></station>"
                 + "</stations>";
 
-        Document mockDocument = Jsoup.parse(mockHtml);
+        when(weatherFeedClient.fetch()).thenReturn(changed(mockHtml));
 
-        try (var mockedJsoup = mockStatic(Jsoup.class)) {
-            Connection mockConnection = mock(Connection.class);
+        weatherDataService.fetchAndStoreWeatherData();
 
-            when(Jsoup.connect(anyString())).thenReturn(mockConnection);
-            when(mockConnection.timeout(anyInt())).thenReturn(mockConnection);
-            when(mockConnection.get()).thenReturn(mockDocument);
+        verify(weatherDataRepository, never()).saveAll(any());
+    }
 
-            weatherDataService.fetchAndStoreWeatherData();
+    @Test
+    void testFetchAndStoreWeatherData_MalformedFeed() throws IOException {
+        when(weatherFeedClient.fetch()).thenReturn(changed("<stations><station><name>Tallinn</name>"));
 
-            verify(weatherDataRepository, never()).save(any());
-        }
+        weatherDataService.fetchAndStoreWeatherData();
+
+        verify(weatherDataRepository, never()).saveAll(any());
+        verify(weatherFeedClient, never()).markImported(any());
+        assertEquals(1L, meterRegistry.get("weather.import.duration").tag("outcome", "failure").timer().count());
     }
 
     @Test
-    void testScheduledWeatherDataImport() {
-        WeatherDataService spyService = spy(weatherDataService);
-        doNothing().when(spyService).fetchAndStoreWeatherData();
+    void testFetchAndStoreWeatherData_MergesProviders() throws IOException {
+        WeatherData tallinn = observation("Tallinn", 12345);
+        WeatherData parnu = observation("Pärnu", 41803);
+        when(weatherDataRepository.findKeysByWmoCodeInAndTimestampIn(any(), any())).thenReturn(List.of());
+        when(weatherDataRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        Runnable firstImported = mock(Runnable.class);
+        Runnable secondImported = mock(Runnable.class);
+
+        serviceWith(new StubProvider("first", Duration.ofSeconds(5), null,
+                        new WeatherFetch(FeedStatus.CHANGED, List.of(tallinn), 1, firstImported)),
+                new StubProvider("second", Duration.ofSeconds(5), null,
+                        new WeatherFetch(FeedStatus.CHANGED, List.of(parnu), 1, secondImported)))
+                .fetchAndStoreWeatherData();
+
+        verify(weatherDataRepository, times(1)).saveAll(List.of(tallinn, parnu));
+        verify(eventPublisher, times(1)).publishEvent(new WeatherDataImportedEvent(2));
+        verify(firstImported).run();
+        verify(secondImported).run();
+        assertSame(parnu, latestWeatherCache.findLatest("Pärnu"));
+        assertEquals(1.0, meterRegistry.get("weather.import.fetches")
+                .tag("provider", "second").tag("status", "changed").counter().count());
+    }
 
-        spyService.scheduledWeatherDataImport();
+    @Test
+    void testFetchAndStoreWeatherData_SlowProviderTimesOut() throws IOException {
+        WeatherData tallinn = observation("Tallinn", 12345);
+        when(weatherDataRepository.findKeysByWmoCodeInAndTimestampIn(any(), any())).thenReturn(List.of());
+        when(weatherDataRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        CountDownLatch released = new CountDownLatch(1);
+        Runnable slowImported = mock(Runnable.class);
+
+        long started = System.nanoTime();
+        boolean succeeded = serviceWith(new StubProvider("fast", Duration.ofSeconds(5), null,
+                        new WeatherFetch(FeedStatus.CHANGED, List.of(tallinn), 1, () -> { })),
+                new StubProvider("slow", Duration.ofMillis(100), released,
+                        new WeatherFetch(FeedStatus.CHANGED, List.of(observation("Tartu", 26242)), 1, slowImported)))
+                .fetchAndStoreWeatherData();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        released.countDown();
+
+        assertFalse(succeeded);
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(2)) < 0, "Import waited for the slow provider: " + elapsed);
+        verify(weatherDataRepository, times(1)).saveAll(List.of(tallinn));
+        verifyNoInteractions(slowImported);
+        assertEquals(1.0, meterRegistry.get("weather.import.fetches")
+                .tag("provider", "slow").tag("status", "timed_out").counter().count());
+        assertEquals(1L, meterRegistry.get("weather.import.duration").tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    void testFetchAndStoreWeatherData_OpenCircuitSkipsFailingProvider() throws IOException {
+        WeatherProvider failing = mock(WeatherProvider.class);
+        when(failing.getName()).thenReturn("failing");
+        when(failing.getTimeout()).thenReturn(Duration.ofSeconds(5));
+        when(failing.fetch()).thenThrow(new IOException("Connection refused"));
+        WeatherDataService service = serviceWith(failing);
+
+        for (int i = 0; i < 5; i++) {
+            assertFalse(service.fetchAndStoreWeatherData());
+        }
+
+        verify(failing, times(3)).fetch();
+        assertEquals(3.0, meterRegistry.get("weather.import.fetches")
+                .tag("provider", "failing").tag("status", "failed").counter().count());
+        assertEquals(2.0, meterRegistry.get("weather.import.fetches")
+                .tag("provider", "failing").tag("status", "circuit_open").counter().count());
+        verifyNoInteractions(weatherDataRepository);
+    }
 
-        verify(spyService, times(1)).fetchAndStoreWeatherData();
+    private static WeatherFeedResponse changed(String xml) {
+        return new WeatherFeedResponse(FeedStatus.CHANGED, xml.getBytes(StandardCharsets.UTF_8),
+                new FeedVersion(null, null, Integer.toHexString(xml.hashCode())));
+    }
+
+    private static WeatherData observation(String station, int wmoCode) {
+        return new WeatherData(null, station, null, wmoCode, 1.0, 2.0, "Clear", LocalDateTime.now());
+    }
+
+    /**
+     * Returns a fixed fetch, optionally only after a latch is released.
+     */
+    private record StubProvider(String name, Duration timeout, CountDownLatch release, WeatherFetch result)
+            implements WeatherProvider {
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Collection<String> getStations() {
+            return result.observations().stream().map(WeatherData::getStationName).toList();
+        }
+
+        @Override
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        @Override
+        public WeatherFetch fetch() throws IOException {
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while fetching", e);
+                }
+            }
+            return result;
+        }
     }
 }
@@ -0,0 +1,107 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.service.WeatherFeedClient.WeatherFeedResponse;
+import com.sun.net.httpserver.HttpServer;
+import org.jsoup.HttpStatusException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the client against a local feed server that honours {@code If-None-Match} only when asked to.
+ */
+class WeatherFeedClientTest {
+
+    private HttpServer server;
+    private volatile String body = "<observations timestamp=\"1736942400\"/>";
+    private volatile String eTag = "\"v1\"";
+    private volatile int status = 200;
+    private final List<String> ifNoneMatchHeaders = new ArrayList<>();
+
+    private WeatherFeedClient weatherFeedClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/observations", exchange -> {
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            synchronized (ifNoneMatchHeaders) {
+                ifNoneMatchHeaders.add(ifNoneMatch);
+            }
+            if (eTag != null) {
+                exchange.getResponseHeaders().set("ETag", eTag);
+            }
+            if (eTag != null && eTag.equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=UTF-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+
+        weatherFeedClient = new WeatherFeedClient(
+                "http://localhost:" + server.getAddress().getPort() + "/observations", Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testFetch_NotModifiedAfterImport() throws IOException {
+        WeatherFeedResponse first = weatherFeedClient.fetch();
+        assertEquals(FeedStatus.CHANGED, first.status());
+        assertEquals(body, new String(first.body(), StandardCharsets.UTF_8));
+
+        weatherFeedClient.markImported(first);
+        WeatherFeedResponse second = weatherFeedClient.fetch();
+
+        assertEquals(FeedStatus.NOT_MODIFIED, second.status());
+        assertNull(second.body());
+        assertEquals(Arrays.asList(null, "\"v1\""), ifNoneMatchHeaders);
+    }
+
+    @Test
+    void testFetch_ChangedUntilImported() throws IOException {
+        weatherFeedClient.fetch();
+
+        assertEquals(FeedStatus.CHANGED, weatherFeedClient.fetch().status());
+    }
+
+    @Test
+    void testFetch_UnchangedBodyWithoutValidators() throws IOException {
+        eTag = null;
+        weatherFeedClient.markImported(weatherFeedClient.fetch());
+
+        assertEquals(FeedStatus.UNCHANGED, weatherFeedClient.fetch().status());
+
+        body = "<observations timestamp=\"1736946000\"/>";
+        assertEquals(FeedStatus.CHANGED, weatherFeedClient.fetch().status());
+    }
+
+    @Test
+    void testFetch_ServerError() {
+        status = 503;
+
+        assertThrows(HttpStatusException.class, () -> weatherFeedClient.fetch());
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.WeatherImportLease;
+import com.example.fooddelivery.repository.WeatherImportLeaseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherImportCoordinatorTest {
+
+    private static final String LEASE = WeatherImportCoordinator.LEASE_NAME;
+    private static final String CONFIGURATION = WeatherImportCoordinator.CONFIGURATION_NAME;
+
+    @Mock
+    private WeatherImportLeaseRepository weatherImportLeaseRepository;
+
+    @Mock
+    private LatestWeatherCache latestWeatherCache;
+
+    @Mock
+    private FeeRuleCache feeRuleCache;
+
+    @Mock
+    private WeatherStationCache weatherStationCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private WeatherImportCoordinator coordinator;
+
+    @BeforeEach
+    void setUp() {
+        coordinator = new WeatherImportCoordinator(weatherImportLeaseRepository, latestWeatherCache, feeRuleCache,
+                weatherStationCache, eventPublisher, Duration.ofMinutes(20), Duration.ofSeconds(30), "node-a");
+    }
+
+    @Test
+    void testTryAcquireLease_HoldsLeaseForLeaseDuration() {
+        when(weatherImportLeaseRepository.tryAcquire(eq(LEASE), eq("node-a"), any(), any())).thenAnswer(invocation -> {
+            LocalDateTime now = invocation.getArgument(2);
+            LocalDateTime leasedUntil = invocation.getArgument(3);
+            assertEquals(Duration.ofMinutes(20), Duration.between(now, leasedUntil));
+            return 1;
+        });
+
+        assertTrue(coordinator.tryAcquireLease());
+    }
+
+    @Test
+    void testTryAcquireLease_HeldByAnotherInstance() {
+        when(weatherImportLeaseRepository.tryAcquire(eq(LEASE), eq("node-a"), any(), any())).thenReturn(0);
+
+        assertFalse(coordinator.tryAcquireLease());
+    }
+
+    @Test
+    void testPollDataVersion_ReloadsOnceVersionChanges() {
+        when(weatherImportLeaseRepository.findById(LEASE))
+                .thenReturn(lease(4L, null, null), lease(4L, null, null), lease(5L, null, null));
+
+        coordinator.pollDataVersion();
+        coordinator.pollDataVersion();
+        coordinator.pollDataVersion();
+
+        verify(latestWeatherCache, times(2)).refresh();
+        verify(eventPublisher).publishEvent(new WeatherDataReloadedEvent(4L));
+        verify(eventPublisher).publishEvent(new WeatherDataReloadedEvent(5L));
+    }
+
+    @Test
+    void testAnnounceNewData_OwnImportIsNotReloaded() {
+        when(weatherImportLeaseRepository.findById(LEASE)).thenReturn(lease(4L, null, null), lease(5L, null, null));
+        when(weatherImportLeaseRepository.findDataVersion(LEASE)).thenReturn(Optional.of(5L));
+        coordinator.pollDataVersion();
+
+        coordinator.announceNewData();
+        coordinator.pollDataVersion();
+
+        verify(weatherImportLeaseRepository).incrementDataVersion(LEASE);
+        verify(latestWeatherCache, times(1)).refresh();
+        verify(eventPublisher, never()).publishEvent(new WeatherDataReloadedEvent(5L));
+    }
+
+    @Test
+    void testAnnounceNewData_ConcurrentImportElsewhereIsReloaded() {
+        when(weatherImportLeaseRepository.findById(LEASE)).thenReturn(lease(4L, null, null), lease(6L, null, null));
+        when(weatherImportLeaseRepository.findDataVersion(LEASE)).thenReturn(Optional.of(6L));
+        coordinator.pollDataVersion();
+
+        coordinator.announceNewData();
+        coordinator.pollDataVersion();
+
+        verify(latestWeatherCache, times(2)).refresh();
+        verify(eventPublisher).publishEvent(new WeatherDataReloadedEvent(6L));
+    }
+
+    @Test
+    void testCreateLeaseIfAbsent_CreatesLeaseAndConfigurationRows() {
+        when(weatherImportLeaseRepository.existsById(LEASE)).thenReturn(true);
+        when(weatherImportLeaseRepository.existsById(CONFIGURATION)).thenReturn(false);
+
+        coordinator.createLeaseIfAbsent();
+
+        verify(weatherImportLeaseRepository, times(1))
+                .saveAndFlush(argThat(row -> CONFIGURATION.equals(row.getName())));
+    }
+
+    @Test
+    void testPollConfigurationVersion_ReloadsRulesAndStationsOnceVersionChanges() {
+        when(weatherImportLeaseRepository.findDataVersion(CONFIGURATION))
+                .thenReturn(Optional.of(2L), Optional.of(2L), Optional.of(3L));
+
+        coordinator.pollConfigurationVersion();
+        coordinator.pollConfigurationVersion();
+        coordinator.pollConfigurationVersion();
+
+        verify(weatherStationCache, times(2)).reload();
+        verify(feeRuleCache, times(2)).reload();
+        verifyNoInteractions(latestWeatherCache);
+    }
+
+    @Test
+    void testAnnounceConfigurationChange_OwnChangeIsNotReloaded() {
+        when(weatherImportLeaseRepository.findDataVersion(CONFIGURATION)).thenReturn(Optional.of(2L),
+                Optional.of(3L), Optional.of(3L));
+        coordinator.pollConfigurationVersion();
+
+        coordinator.announceConfigurationChange();
+        coordinator.pollConfigurationVersion();
+
+        verify(weatherImportLeaseRepository).incrementDataVersion(CONFIGURATION);
+        verify(feeRuleCache, times(1)).reload();
+        verify(weatherStationCache, times(1)).reload();
+    }
+
+    @Test
+    void testEstimateReloadByOtherImporter_FollowsLeaseOfOtherInstance() {
+        LocalDateTime leasedUntil = LocalDateTime.now().plusMinutes(15);
+        when(weatherImportLeaseRepository.findById(LEASE)).thenReturn(lease(4L, "node-b", leasedUntil));
+
+        coordinator.pollDataVersion();
+
+        assertEquals(leasedUntil.minusMinutes(20).plusMinutes(15).plusSeconds(30),
+                coordinator.estimateReloadByOtherImporter(Duration.ofMinutes(15)));
+    }
+
+    @Test
+    void testEstimateReloadByOtherImporter_NoneWhileHoldingOrAfterExpiry() {
+        when(weatherImportLeaseRepository.findById(LEASE)).thenReturn(
+                lease(4L, "node-a", LocalDateTime.now().plusMinutes(15)),
+                lease(4L, "node-b", LocalDateTime.now().minusMinutes(1)));
+
+        coordinator.pollDataVersion();
+        assertNull(coordinator.estimateReloadByOtherImporter(Duration.ofMinutes(15)));
+
+        coordinator.pollDataVersion();
+        assertNull(coordinator.estimateReloadByOtherImporter(Duration.ofMinutes(15)));
+    }
+
+    private static Optional<WeatherImportLease> lease(long dataVersion, String owner, LocalDateTime leasedUntil) {
+        WeatherImportLease lease = new WeatherImportLease(LEASE);
+        lease.setDataVersion(dataVersion);
+        lease.setOwner(owner);
+        lease.setLeasedUntil(leasedUntil);
+        return Optional.of(lease);
+    }
+}
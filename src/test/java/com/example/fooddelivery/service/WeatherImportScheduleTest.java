@@ -0,0 +1,188 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.dto.WeatherImportLeaseStatus;
+import com.example.fooddelivery.dto.WeatherImportResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WeatherImportScheduleTest {
+
+    private final WeatherDataService weatherDataService = mock(WeatherDataService.class);
+
+    private final WeatherImportCoordinator weatherImportCoordinator = mock(WeatherImportCoordinator.class);
+
+    private final WeatherImportSchedule schedule = new WeatherImportSchedule(weatherDataService,
+            weatherImportCoordinator, true, Duration.ofMinutes(15), Duration.ZERO, Duration.ofMinutes(1),
+            Duration.ofMinutes(10));
+
+    @BeforeEach
+    void setUp() {
+        when(weatherImportCoordinator.tryAcquireLease()).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        schedule.shutdown();
+    }
+
+    @Test
+    void testSecondsUntilNextImport_OneIntervalAfterStart() {
+        schedule.start();
+
+        assertEquals(15 * 60, schedule.secondsUntilNextImport(LocalDateTime.now()), 1);
+    }
+
+    @Test
+    void testSecondsUntilNextImport_NothingPlannedBeforeStart() {
+        assertEquals(0, schedule.secondsUntilNextImport(LocalDateTime.of(2025, 1, 15, 12, 10)));
+    }
+
+    @Test
+    void testSecondsUntilNextImport_FollowsOtherInstanceHoldingLease() {
+        LocalDateTime now = LocalDateTime.of(2025, 1, 15, 12, 10);
+        when(weatherImportCoordinator.estimateReloadByOtherImporter(Duration.ofMinutes(15)))
+                .thenReturn(now.plusMinutes(4));
+        schedule.start();
+
+        assertEquals(4 * 60, schedule.secondsUntilNextImport(now));
+    }
+
+    @Test
+    void testSecondsUntilNextImport_DisabledSchedule() {
+        WeatherImportSchedule disabled = new WeatherImportSchedule(weatherDataService, weatherImportCoordinator, false,
+                Duration.ofMinutes(15), Duration.ZERO, Duration.ofMinutes(1), Duration.ofMinutes(10));
+        disabled.start();
+
+        assertEquals(0, disabled.secondsUntilNextImport());
+        disabled.shutdown();
+    }
+
+    @Test
+    void testNextDelay_AddsJitterWithinBounds() {
+        WeatherImportSchedule jittered = new WeatherImportSchedule(weatherDataService, weatherImportCoordinator, true,
+                Duration.ofMinutes(15), Duration.ofSeconds(30), Duration.ofMinutes(1), Duration.ofMinutes(10));
+
+        for (int i = 0; i < 100; i++) {
+            Duration delay = jittered.nextDelay(0);
+            assertTrue(delay.compareTo(Duration.ofMinutes(15)) >= 0, "Delay below the interval: " + delay);
+            assertTrue(delay.compareTo(Duration.ofSeconds(15 * 60 + 30)) <= 0, "Delay past the jitter: " + delay);
+        }
+        jittered.shutdown();
+    }
+
+    @Test
+    void testNextDelay_BacksOffExponentiallyUpToMaximum() {
+        assertEquals(Duration.ofMinutes(15), schedule.nextDelay(0));
+        assertEquals(Duration.ofMinutes(1), schedule.nextDelay(1));
+        assertEquals(Duration.ofMinutes(2), schedule.nextDelay(2));
+        assertEquals(Duration.ofMinutes(8), schedule.nextDelay(4));
+        assertEquals(Duration.ofMinutes(10), schedule.nextDelay(5));
+        assertEquals(Duration.ofMinutes(10), schedule.nextDelay(1_000));
+    }
+
+    @Test
+    void testTrigger_JoinsImportInProgress() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        when(weatherDataService.fetchAndStoreWeatherData()).thenAnswer(invocation -> {
+            started.countDown();
+            return released.await(5, TimeUnit.SECONDS);
+        });
+
+        CompletableFuture<WeatherImportResult> first = schedule.trigger();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<WeatherImportResult> second = schedule.trigger();
+        released.countDown();
+
+        assertSame(first, second);
+        assertTrue(first.get(5, TimeUnit.SECONDS).isSucceeded());
+        verify(weatherDataService, times(1)).fetchAndStoreWeatherData();
+    }
+
+    @Test
+    void testTrigger_StartsNewImportOncePreviousFinished() throws Exception {
+        when(weatherDataService.fetchAndStoreWeatherData()).thenReturn(true);
+
+        schedule.trigger().get(5, TimeUnit.SECONDS);
+        schedule.trigger().get(5, TimeUnit.SECONDS);
+
+        verify(weatherDataService, times(2)).fetchAndStoreWeatherData();
+    }
+
+    @Test
+    void testTrigger_FailuresBackOffAndSuccessResets() throws Exception {
+        when(weatherDataService.fetchAndStoreWeatherData()).thenReturn(false, false, true);
+
+        WeatherImportResult first = schedule.trigger().get(5, TimeUnit.SECONDS);
+        assertFalse(first.isSucceeded());
+        assertEquals(1, first.getConsecutiveFailures());
+        assertEquals(60, Duration.between(first.getFinishedAt(), first.getNextImportAt()).getSeconds(), 1);
+
+        WeatherImportResult second = schedule.trigger().get(5, TimeUnit.SECONDS);
+        assertEquals(2, second.getConsecutiveFailures());
+        assertEquals(120, Duration.between(second.getFinishedAt(), second.getNextImportAt()).getSeconds(), 1);
+
+        WeatherImportResult third = schedule.trigger().get(5, TimeUnit.SECONDS);
+        assertTrue(third.isSucceeded());
+        assertEquals(0, third.getConsecutiveFailures());
+        assertEquals(15 * 60, Duration.between(third.getFinishedAt(), third.getNextImportAt()).getSeconds(), 1);
+    }
+
+    @Test
+    void testTrigger_SkipsImportWhileAnotherInstanceHoldsLease() throws Exception {
+        when(weatherImportCoordinator.tryAcquireLease()).thenReturn(false);
+
+        WeatherImportResult result = schedule.trigger().get(5, TimeUnit.SECONDS);
+
+        assertEquals(WeatherImportLeaseStatus.HELD_ELSEWHERE, result.getLeaseStatus());
+        assertTrue(result.isSucceeded());
+        assertEquals(15 * 60, Duration.between(result.getFinishedAt(), result.getNextImportAt()).getSeconds(), 1);
+        verifyNoInteractions(weatherDataService);
+    }
+
+    @Test
+    void testTrigger_UnexpectedErrorCountsAsFailure() throws Exception {
+        when(weatherDataService.fetchAndStoreWeatherData()).thenThrow(new IllegalStateException("boom"));
+
+        WeatherImportResult result = schedule.trigger().get(5, TimeUnit.SECONDS);
+
+        assertFalse(result.isSucceeded());
+        assertEquals(WeatherImportLeaseStatus.ACQUIRED, result.getLeaseStatus());
+        assertEquals(1, result.getConsecutiveFailures());
+    }
+
+    @Test
+    void testTrigger_ErrorStillCompletesRunAndAllowsNextTrigger() throws Exception {
+        when(weatherDataService.fetchAndStoreWeatherData()).thenThrow(new OutOfMemoryError("boom")).thenReturn(true);
+
+        WeatherImportResult failed = schedule.trigger().get(5, TimeUnit.SECONDS);
+        assertFalse(failed.isSucceeded());
+        assertEquals(1, failed.getConsecutiveFailures());
+
+        WeatherImportResult next = schedule.trigger().get(5, TimeUnit.SECONDS);
+        assertTrue(next.isSucceeded());
+        verify(weatherDataService, times(2)).fetchAndStoreWeatherData();
+    }
+
+    @Test
+    void testTrigger_LeaseErrorIsReportedAsUnavailable() throws Exception {
+        when(weatherImportCoordinator.tryAcquireLease()).thenThrow(new IllegalStateException("database down"));
+
+        WeatherImportResult result = schedule.trigger().get(5, TimeUnit.SECONDS);
+
+        assertFalse(result.isSucceeded());
+        assertEquals(WeatherImportLeaseStatus.UNAVAILABLE, result.getLeaseStatus());
+        assertEquals(1, result.getConsecutiveFailures());
+        verifyNoInteractions(weatherDataService);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.dto.ObservationKey;
+import com.example.fooddelivery.entity.WeatherData;
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherObservationStoreTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2025, 1, 15, 12, 0);
+
+    @Mock
+    private WeatherDataRepository weatherDataRepository;
+
+    @Mock
+    private WeatherStationCache weatherStationCache;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private WeatherObservationStore weatherObservationStore;
+
+    @BeforeEach
+    void setUp() {
+        weatherObservationStore = new WeatherObservationStore(weatherDataRepository, weatherStationCache,
+                entityManager);
+    }
+
+    @Test
+    void testSaveNew_SkipsStoredAndRepeatedKeys() {
+        when(weatherDataRepository.findKeysByWmoCodeInAndTimestampIn(any(), any()))
+                .thenReturn(List.of(
+                        new ObservationKey(26038, TIMESTAMP),
+                        new ObservationKey(26242, TIMESTAMP.minusHours(1))));
+        when(weatherDataRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(weatherStationCache.findStationId(anyString()))
+                .thenAnswer(invocation -> "Station 26242".equals(invocation.getArgument(0)) ? 7L : null);
+
+        WeatherData stored = observation(26038, TIMESTAMP);
+        WeatherData tartu = observation(26242, TIMESTAMP);
+        WeatherData tartuAgain = observation(26242, TIMESTAMP);
+        WeatherData parnu = observation(41803, TIMESTAMP);
+
+        List<WeatherData> saved = weatherObservationStore.saveNew(List.of(stored, tartu, tartuAgain, parnu));
+
+        assertEquals(List.of(tartu, parnu), saved);
+        verify(weatherDataRepository, times(1)).findKeysByWmoCodeInAndTimestampIn(any(), any());
+        verify(weatherDataRepository, times(1)).saveAll(List.of(tartu, parnu));
+        verify(weatherDataRepository, never()).save(any());
+        assertEquals(7L, tartu.getStationId());
+        assertNull(parnu.getStationId());
+    }
+
+    @Test
+    void testSaveNew_LooksUpAndInsertsPerChunk() {
+        when(weatherDataRepository.findKeysByWmoCodeInAndTimestampIn(any(), any())).thenReturn(List.of());
+        when(weatherDataRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<WeatherData> observations = new ArrayList<>();
+        for (int i = 0; i < 2 * WeatherObservationStore.CHUNK_SIZE + 1; i++) {
+            observations.add(observation(26000 + i % 100, TIMESTAMP.minusMinutes(i / 100)));
+        }
+
+        List<WeatherData> saved = weatherObservationStore.saveNew(observations);
+
+        assertEquals(observations, saved);
+        verify(weatherDataRepository, times(3)).findKeysByWmoCodeInAndTimestampIn(any(), any());
+        verify(weatherDataRepository, times(3)).saveAll(anyList());
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void testSaveNew_NothingNew() {
+        when(weatherDataRepository.findKeysByWmoCodeInAndTimestampIn(any(), any()))
+                .thenReturn(List.of(new ObservationKey(26038, TIMESTAMP)));
+
+        assertTrue(weatherObservationStore.saveNew(List.of(observation(26038, TIMESTAMP))).isEmpty());
+        verify(weatherDataRepository, never()).saveAll(any());
+    }
+
+    private static WeatherData observation(int wmoCode, LocalDateTime timestamp) {
+        WeatherData observation = new WeatherData("Station " + wmoCode, wmoCode, -2.0, 5.0, "Clear");
+        observation.setTimestamp(timestamp);
+        return observation;
+    }
+}
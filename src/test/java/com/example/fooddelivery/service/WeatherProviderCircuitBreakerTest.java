@@ -0,0 +1,87 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.service.WeatherProviderCircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherProviderCircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final WeatherProviderCircuitBreaker circuitBreaker =
+            new WeatherProviderCircuitBreaker(3, Duration.ofMinutes(5), clock::get);
+
+    @Test
+    void testOpensAfterConsecutiveFailures() {
+        assertFalse(circuitBreaker.recordFailure());
+        assertFalse(circuitBreaker.recordFailure());
+        assertTrue(circuitBreaker.tryAcquire());
+
+        assertTrue(circuitBreaker.recordFailure());
+
+        assertEquals(State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void testSuccessResetsFailureCount() {
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordSuccess();
+        circuitBreaker.recordFailure();
+
+        assertEquals(State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void testHalfOpenLetsOneProbeThroughAfterOpenDuration() {
+        open();
+        clock.addAndGet(Duration.ofMinutes(5).minusNanos(1).toNanos());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        clock.incrementAndGet();
+
+        assertTrue(circuitBreaker.tryAcquire());
+        assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void testSuccessfulProbeClosesCircuit() {
+        open();
+        clock.addAndGet(Duration.ofMinutes(5).toNanos());
+        assertTrue(circuitBreaker.tryAcquire());
+
+        circuitBreaker.recordSuccess();
+
+        assertEquals(State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void testFailedProbeReopensCircuitForAnotherOpenDuration() {
+        open();
+        clock.addAndGet(Duration.ofMinutes(5).toNanos());
+        assertTrue(circuitBreaker.tryAcquire());
+
+        assertTrue(circuitBreaker.recordFailure());
+
+        assertEquals(State.OPEN, circuitBreaker.getState());
+        clock.addAndGet(Duration.ofMinutes(4).toNanos());
+        assertFalse(circuitBreaker.tryAcquire());
+        clock.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.recordFailure();
+        }
+        assertEquals(State.OPEN, circuitBreaker.getState());
+    }
+}
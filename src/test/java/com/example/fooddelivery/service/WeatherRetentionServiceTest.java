@@ -0,0 +1,158 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.WeatherData;
+import com.example.fooddelivery.entity.WeatherHourlyRollup;
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import com.example.fooddelivery.repository.WeatherHourlyRollupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherRetentionServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 1, 12, 40);
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2025, 1, 30, 12, 0);
+    private static final LocalDateTime HOUR = LocalDateTime.of(2025, 1, 15, 9, 0);
+
+    @Mock
+    private WeatherDataRepository weatherDataRepository;
+
+    @Mock
+    private WeatherHourlyRollupRepository weatherHourlyRollupRepository;
+
+    @Mock
+    private WeatherImportCoordinator weatherImportCoordinator;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private WeatherRetentionService service(int batchSize) {
+        return new WeatherRetentionService(weatherDataRepository, weatherHourlyRollupRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), weatherImportCoordinator,
+                Duration.ofDays(30), batchSize, Duration.ofMinutes(30), meterRegistry);
+    }
+
+    @Test
+    void testScheduledCompaction_SkippedWhileAnotherInstanceHoldsLease() {
+        when(weatherImportCoordinator.tryAcquireRetentionLease(Duration.ofMinutes(30))).thenReturn(false);
+
+        service(10).scheduledCompaction();
+
+        verifyNoInteractions(weatherDataRepository, weatherHourlyRollupRepository);
+    }
+
+    @Test
+    void testScheduledCompaction_RunsWithLease() {
+        when(weatherImportCoordinator.tryAcquireRetentionLease(Duration.ofMinutes(30))).thenReturn(true);
+        when(weatherDataRepository.findByTimestampBeforeOrderByTimestampAscIdAsc(any(), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        service(10).scheduledCompaction();
+
+        verify(weatherDataRepository).findByTimestampBeforeOrderByTimestampAscIdAsc(any(), any(Pageable.class));
+    }
+
+    @Test
+    void testCompactExpired_RollsUpAndDeletesPerStationHour() {
+        when(weatherDataRepository.findByTimestampBeforeOrderByTimestampAscIdAsc(eq(CUTOFF), any(Pageable.class)))
+                .thenReturn(List.of(
+                        observation(1L, "Tallinn-Harku", -4.0, 2.0, "Light snow", HOUR),
+                        observation(2L, "Tartu-Tõravere", 1.0, 8.0, "Clear", HOUR.plusMinutes(10)),
+                        observation(3L, "Tallinn-Harku", -2.0, 6.0, "Clear", HOUR.plusMinutes(20)),
+                        observation(4L, "Tallinn-Harku", null, 7.0, "Light snow", HOUR.plusMinutes(40)),
+                        observation(5L, "Tallinn-Harku", 0.0, 1.0, "", HOUR.plusHours(1))))
+                .thenReturn(List.of());
+
+        int compacted = service(100).compactExpired(NOW);
+
+        assertEquals(5, compacted);
+        ArgumentCaptor<List<WeatherHourlyRollup>> captor = ArgumentCaptor.forClass(List.class);
+        verify(weatherHourlyRollupRepository).saveAll(captor.capture());
+        List<WeatherHourlyRollup> rollups = captor.getValue();
+        assertEquals(3, rollups.size());
+
+        WeatherHourlyRollup tallinn = rollups.get(0);
+        assertEquals("Tallinn-Harku", tallinn.getStationName());
+        assertEquals(HOUR, tallinn.getHourStart());
+        assertEquals(3, tallinn.getObservationCount());
+        assertEquals(-4.0, tallinn.getMinAirTemperature());
+        assertEquals(-2.0, tallinn.getMaxAirTemperature());
+        assertEquals(-3.0, tallinn.getAvgAirTemperature());
+        assertEquals(5.0, tallinn.getAvgWindSpeed());
+        assertEquals("Light snow", tallinn.getDominantPhenomenon());
+
+        assertEquals("Tartu-Tõravere", rollups.get(1).getStationName());
+        assertEquals(HOUR.plusHours(1), rollups.get(2).getHourStart());
+        assertNull(rollups.get(2).getDominantPhenomenon());
+
+        verify(weatherDataRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L, 4L, 5L));
+        assertEquals(5.0, meterRegistry.get("weather.retention.compacted").counter().count());
+    }
+
+    @Test
+    void testCompactExpired_FullBatchLeavesLastHourForTheNextBatch() {
+        when(weatherDataRepository.findByTimestampBeforeOrderByTimestampAscIdAsc(eq(CUTOFF), any(Pageable.class)))
+                .thenReturn(List.of(
+                        observation(1L, "Tallinn-Harku", -4.0, 2.0, "Clear", HOUR),
+                        observation(2L, "Tallinn-Harku", -2.0, 2.0, "Clear", HOUR.plusHours(1))))
+                .thenReturn(List.of(
+                        observation(2L, "Tallinn-Harku", -2.0, 2.0, "Clear", HOUR.plusHours(1)),
+                        observation(3L, "Tallinn-Harku", -1.0, 2.0, "Clear", HOUR.plusHours(1).plusMinutes(30))))
+                .thenReturn(List.of());
+
+        int compacted = service(2).compactExpired(NOW);
+
+        assertEquals(3, compacted);
+        verify(weatherDataRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(weatherDataRepository).deleteAllByIdInBatch(List.of(2L, 3L));
+    }
+
+    @Test
+    void testCompactExpired_MergesIntoExistingRollup() {
+        WeatherHourlyRollup existing = new WeatherHourlyRollup(7L, "Tallinn-Harku", 26038, HOUR, 3,
+                -6.0, -2.0, -4.0, 2.0, 4.0, 3.0, "Clear");
+        when(weatherDataRepository.findByTimestampBeforeOrderByTimestampAscIdAsc(eq(CUTOFF), any(Pageable.class)))
+                .thenReturn(List.of(observation(9L, "Tallinn-Harku", 4.0, 7.0, "Rain", HOUR.plusMinutes(50))))
+                .thenReturn(List.of());
+        when(weatherHourlyRollupRepository.findByHourStartBetween(HOUR, HOUR)).thenReturn(List.of(existing));
+
+        service(100).compactExpired(NOW);
+
+        verify(weatherHourlyRollupRepository).saveAll(List.of(existing));
+        assertEquals(4, existing.getObservationCount());
+        assertEquals(-6.0, existing.getMinAirTemperature());
+        assertEquals(4.0, existing.getMaxAirTemperature());
+        assertEquals(-2.0, existing.getAvgAirTemperature());
+        assertEquals(7.0, existing.getMaxWindSpeed());
+        assertEquals("Clear", existing.getDominantPhenomenon());
+    }
+
+    @Test
+    void testCompactExpired_NothingExpired() {
+        when(weatherDataRepository.findByTimestampBeforeOrderByTimestampAscIdAsc(eq(CUTOFF), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        assertEquals(0, service(100).compactExpired(NOW));
+
+        verifyNoInteractions(weatherHourlyRollupRepository);
+        verify(weatherDataRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    private static WeatherData observation(Long id, String stationName, Double airTemperature, Double windSpeed,
+                                           String phenomenon, LocalDateTime timestamp) {
+        return new WeatherData(id, stationName, null, 26038, airTemperature, windSpeed, phenomenon, timestamp);
+    }
+}
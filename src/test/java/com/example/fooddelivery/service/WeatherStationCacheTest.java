@@ -0,0 +1,78 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.WeatherStation;
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import com.example.fooddelivery.repository.WeatherStationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherStationCacheTest {
+
+    @Mock
+    private WeatherStationRepository weatherStationRepository;
+
+    @Mock
+    private WeatherDataRepository weatherDataRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private WeatherStationCache weatherStationCache;
+
+    @BeforeEach
+    void setUp() {
+        weatherStationCache = new WeatherStationCache(weatherStationRepository, weatherDataRepository, eventPublisher,
+                List.of("Tallinn-Harku", " Tartu-Tõravere", "Pärnu"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testInitialize_SeedsTargetStationsIntoEmptyMapping() {
+        when(weatherStationRepository.count()).thenReturn(0L);
+
+        weatherStationCache.initialize();
+
+        ArgumentCaptor<List<WeatherStation>> seeds = ArgumentCaptor.forClass(List.class);
+        verify(weatherStationRepository).saveAll(seeds.capture());
+        assertEquals(List.of("Tallinn-Harku", "Tartu-Tõravere", "Pärnu"),
+                seeds.getValue().stream().map(WeatherStation::getStationName).toList());
+        assertEquals(List.of("Tallinn", "Tartu", "Pärnu"),
+                seeds.getValue().stream().map(WeatherStation::getCity).toList());
+        verify(weatherStationRepository).findAll();
+    }
+
+    @Test
+    void testInitialize_KeepsExistingMapping() {
+        WeatherStation harku = new WeatherStation("Tallinn-Harku", "Tallinn");
+        harku.setId(3L);
+        when(weatherStationRepository.count()).thenReturn(1L);
+        when(weatherStationRepository.findAll()).thenReturn(List.of(harku));
+
+        weatherStationCache.initialize();
+
+        verify(weatherStationRepository, never()).saveAll(any());
+        assertEquals(List.of(harku), weatherStationCache.findStations("Tallinn"));
+        assertEquals(3L, weatherStationCache.findStationId("Tallinn-Harku"));
+    }
+
+    @Test
+    void testInitialize_SeededByAnotherInstance() {
+        when(weatherStationRepository.count()).thenReturn(0L);
+        when(weatherStationRepository.saveAll(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        assertDoesNotThrow(() -> weatherStationCache.initialize());
+        verify(weatherStationRepository).findAll();
+    }
+}
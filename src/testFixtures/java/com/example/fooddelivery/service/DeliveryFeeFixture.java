@@ -0,0 +1,92 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.BaseFee;
+import com.example.fooddelivery.entity.ExtraFee;
+import com.example.fooddelivery.entity.WeatherData;
+import com.example.fooddelivery.repository.BaseFeeRepository;
+import com.example.fooddelivery.repository.ExtraFeeRepository;
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import com.example.fooddelivery.repository.WeatherHourlyRollupRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.List;
+
+/**
+ * Wires a {@link DeliveryFeeService} and the caches it quotes from over the given repositories, the way the
+ * application context does. Nothing is loaded until {@link #refresh()} is called. Shared by the tests and the
+ * benchmarks.
+ */
+public class DeliveryFeeFixture {
+
+    private final FeeRuleCache feeRuleCache;
+    private final LatestWeatherCache latestWeatherCache;
+    private final FeeQuoteEncoder feeQuoteEncoder;
+    private final SimpleMeterRegistry meterRegistry;
+    private final DeliveryFeeService deliveryFeeService;
+
+    public DeliveryFeeFixture(BaseFeeRepository baseFeeRepository, ExtraFeeRepository extraFeeRepository,
+                              WeatherDataRepository weatherDataRepository,
+                              WeatherHourlyRollupRepository weatherHourlyRollupRepository,
+                              WeatherStationCache weatherStationCache) {
+        feeRuleCache = new FeeRuleCache(baseFeeRepository, extraFeeRepository, event -> {
+        });
+        latestWeatherCache = new LatestWeatherCache(weatherDataRepository, weatherStationCache);
+        feeQuoteEncoder = new FeeQuoteEncoder(new ObjectMapper().findAndRegisterModules());
+        meterRegistry = new SimpleMeterRegistry();
+        deliveryFeeService = new DeliveryFeeService(feeRuleCache, latestWeatherCache, weatherStationCache,
+                weatherDataRepository, weatherHourlyRollupRepository, feeQuoteEncoder, meterRegistry);
+    }
+
+    /**
+     * Wires the service over {@link InMemoryRepositories} holding the given rules and observations, with no hourly
+     * rollups and no station mappings, and loads them.
+     *
+     * @param baseFees     The base fee rules.
+     * @param extraFees    The extra fee rules.
+     * @param observations The weather observations.
+     * @return The loaded fixture.
+     */
+    public static DeliveryFeeFixture inMemory(List<BaseFee> baseFees, List<ExtraFee> extraFees,
+                                              List<WeatherData> observations) {
+        WeatherDataRepository weatherDataRepository = InMemoryRepositories.weatherData(observations);
+        WeatherStationCache weatherStationCache = new WeatherStationCache(
+                InMemoryRepositories.weatherStations(List.of()), weatherDataRepository, event -> {
+        }, List.of());
+        return new DeliveryFeeFixture(InMemoryRepositories.baseFees(baseFees),
+                InMemoryRepositories.extraFees(extraFees), weatherDataRepository,
+                InMemoryRepositories.hourlyRollups(List.of()), weatherStationCache).refresh();
+    }
+
+    /**
+     * Loads the fee rules and the latest weather from the repositories and rebuilds the fee matrix from them.
+     *
+     * @return This fixture.
+     */
+    public DeliveryFeeFixture refresh() {
+        feeRuleCache.refresh();
+        latestWeatherCache.refresh();
+        deliveryFeeService.rebuildFeeMatrix();
+        return this;
+    }
+
+    public FeeRuleCache getFeeRuleCache() {
+        return feeRuleCache;
+    }
+
+    public LatestWeatherCache getLatestWeatherCache() {
+        return latestWeatherCache;
+    }
+
+    public FeeQuoteEncoder getFeeQuoteEncoder() {
+        return feeQuoteEncoder;
+    }
+
+    public SimpleMeterRegistry getMeterRegistry() {
+        return meterRegistry;
+    }
+
+    public DeliveryFeeService getDeliveryFeeService() {
+        return deliveryFeeService;
+    }
+}
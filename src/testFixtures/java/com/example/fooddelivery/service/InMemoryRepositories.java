@@ -0,0 +1,108 @@
+package com.example.fooddelivery.service;
+
+import com.example.fooddelivery.entity.BaseFee;
+import com.example.fooddelivery.entity.ExtraFee;
+import com.example.fooddelivery.entity.WeatherData;
+import com.example.fooddelivery.entity.WeatherHourlyRollup;
+import com.example.fooddelivery.entity.WeatherStation;
+import com.example.fooddelivery.repository.BaseFeeRepository;
+import com.example.fooddelivery.repository.ExtraFeeRepository;
+import com.example.fooddelivery.repository.WeatherDataRepository;
+import com.example.fooddelivery.repository.WeatherHourlyRollupRepository;
+import com.example.fooddelivery.repository.WeatherStationRepository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * List-backed stand-ins for the repositories, implementing only the queries the delivery fee engine issues. Shared by
+ * the tests and the benchmarks.
+ * <p>
+ * Unlike Mockito mocks they do not record invocations, so they neither allocate per call nor grow over a long
+ * benchmark run.
+ */
+public final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    public static BaseFeeRepository baseFees(List<BaseFee> baseFees) {
+        return proxy(BaseFeeRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "findAll" -> baseFees;
+            default -> unsupported(method.getName());
+        });
+    }
+
+    public static ExtraFeeRepository extraFees(List<ExtraFee> extraFees) {
+        return proxy(ExtraFeeRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "findAll" -> extraFees;
+            default -> unsupported(method.getName());
+        });
+    }
+
+    public static WeatherDataRepository weatherData(List<WeatherData> observations) {
+        List<WeatherData> oldestFirst = observations.stream()
+                .sorted(Comparator.comparing(WeatherData::getTimestamp))
+                .toList();
+        List<WeatherData> newestFirst = observations.stream()
+                .sorted(Comparator.comparing(WeatherData::getTimestamp).reversed())
+                .toList();
+        List<String> stationNames = observations.stream().map(WeatherData::getStationName).distinct().toList();
+
+        return proxy(WeatherDataRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "findLatestOfEachStation" -> stationNames.stream()
+                    .map(name -> newestFirst.stream().filter(w -> w.getStationName().equals(name)).findFirst())
+                    .flatMap(Optional::stream)
+                    .toList();
+            case "findFirstByStationNameAndTimestampLessThanEqualOrderByTimestampDesc" -> newestFirst.stream()
+                    .filter(w -> w.getStationName().equals(args[0]))
+                    .filter(w -> !w.getTimestamp().isAfter((LocalDateTime) args[1]))
+                    .findFirst();
+            case "findByStationNameAndTimestampBetweenOrderByTimestampAsc" -> oldestFirst.stream()
+                    .filter(w -> w.getStationName().equals(args[0]))
+                    .filter(w -> !w.getTimestamp().isBefore((LocalDateTime) args[1])
+                            && !w.getTimestamp().isAfter((LocalDateTime) args[2]))
+                    .toList();
+            default -> unsupported(method.getName());
+        });
+    }
+
+    public static WeatherStationRepository weatherStations(List<WeatherStation> stations) {
+        return proxy(WeatherStationRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "findAll" -> stations;
+            default -> unsupported(method.getName());
+        });
+    }
+
+    public static WeatherHourlyRollupRepository hourlyRollups(List<WeatherHourlyRollup> rollups) {
+        List<WeatherHourlyRollup> oldestFirst = rollups.stream()
+                .sorted(Comparator.comparing(WeatherHourlyRollup::getHourStart))
+                .toList();
+
+        return proxy(WeatherHourlyRollupRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "findFirstByStationNameAndHourStartLessThanEqualOrderByHourStartDesc" -> oldestFirst.stream()
+                    .filter(r -> r.getStationName().equals(args[0]))
+                    .filter(r -> !r.getHourStart().isAfter((LocalDateTime) args[1]))
+                    .reduce((earlier, later) -> later);
+            case "findByStationNameAndHourStartBetweenOrderByHourStartAsc" -> oldestFirst.stream()
+                    .filter(r -> r.getStationName().equals(args[0]))
+                    .filter(r -> !r.getHourStart().isBefore((LocalDateTime) args[1])
+                            && !r.getHourStart().isAfter((LocalDateTime) args[2]))
+                    .toList();
+            default -> unsupported(method.getName());
+        });
+    }
+
+    private static <T> T proxy(Class<T> repositoryType, InvocationHandler handler) {
+        return repositoryType.cast(Proxy.newProxyInstance(InMemoryRepositories.class.getClassLoader(),
+                new Class<?>[]{repositoryType}, handler));
+    }
+
+    private static Object unsupported(String methodName) {
+        throw new UnsupportedOperationException("Not available in the in-memory repository: " + methodName);
+    }
+}